@@ -0,0 +1,312 @@
+package com.ecommerce.com.ecommerce.flash.analytics;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.ecommerce.com.ecommerce.flash.dto.OrderSnapshot;
+import com.ecommerce.com.ecommerce.flash.dto.ProductSnapshot;
+import com.ecommerce.com.ecommerce.flash.entity.StatsRollup;
+import com.ecommerce.com.ecommerce.flash.entity.StatsRollup.Dimension;
+import com.ecommerce.com.ecommerce.flash.entity.StatsRollup.Granularity;
+import com.ecommerce.com.ecommerce.flash.event.OrderChangedEvent;
+import com.ecommerce.com.ecommerce.flash.event.ProductChangedEvent;
+import com.ecommerce.com.ecommerce.flash.repository.StatsRollupRepository;
+import com.ecommerce.com.ecommerce.flash.util.TtlCache;
+
+import jakarta.annotation.PreDestroy;
+
+// Hourly and daily admin analytics. Order and product changes are folded into in-memory
+// deltas and written to stats_rollup in one batch per flush, so the write path stays cheap
+// and reading a month of stats touches a few hundred rows.
+@Service
+public class StatsRollupService {
+
+    private static final String IN_CART = "In Cart";
+    // Statuses that do not count as a sale
+    private static final Set<String> NOT_SOLD = Set.of(IN_CART, "REJECTED", "CANCELLED");
+    private static final String NONE = "(none)";
+    private static final int SCAN_CHUNK = 5000;
+
+    private static final String UPDATE_SQL = "UPDATE stats_rollup SET item_count = item_count + ?, "
+            + "units = units + ?, revenue = revenue + ? "
+            + "WHERE granularity = ? AND bucket_start = ? AND dimension = ? AND dimension_key = ?";
+    private static final String INSERT_SQL = "INSERT INTO stats_rollup "
+            + "(granularity, bucket_start, dimension, dimension_key, item_count, units, revenue) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static class ProductInfo {
+        final Long ownerId;
+        final String category;
+        final BigDecimal price;
+
+        ProductInfo(Long ownerId, String category, BigDecimal price) {
+            this.ownerId = ownerId;
+            this.category = category;
+            this.price = price;
+        }
+    }
+
+    private static class Delta {
+        long itemCount;
+        long units;
+        BigDecimal revenue = BigDecimal.ZERO;
+
+        Delta add(long itemCount, long units, BigDecimal revenue) {
+            this.itemCount += itemCount;
+            this.units += units;
+            this.revenue = this.revenue.add(revenue);
+            return this;
+        }
+
+        boolean isZero() {
+            return itemCount == 0 && units == 0 && revenue.signum() == 0;
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private StatsRollupRepository statsRollupRepository;
+
+    // Changes not yet written to the table
+    private final Map<StatsRollup.Key, Delta> pending = new ConcurrentHashMap<>();
+    private final TtlCache<Long, ProductInfo> products = new TtlCache<>(10000, 300000);
+
+    // After commit only: deltas are flushed regardless of the publishing transaction, so a change
+    // rolled back (or a batch retried order by order) must not reach them
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderChanged(OrderChangedEvent event) {
+        try {
+            applyOrder(event.getBefore(), -1, pending);
+            applyOrder(event.getAfter(), 1, pending);
+        } catch (Exception e) {
+            // Rollups are derived data; a backfill restores them, the order itself must not fail
+            System.err.println("Could not update order rollups: " + e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        products.remove(event.getProductId());
+        applyProduct(event.getBefore(), -1, pending);
+        applyProduct(event.getAfter(), 1, pending);
+    }
+
+    public List<StatsRollup> getBuckets(Granularity granularity, LocalDateTime from, LocalDateTime to, Dimension dimension) {
+        return statsRollupRepository.findBuckets(granularity, from, to, dimension);
+    }
+
+    // Write pending changes: one batched UPDATE, then INSERTs for buckets that did not exist yet
+    @Scheduled(fixedDelayString = "${flash.analytics.flush-interval-ms:5000}")
+    public synchronized void flush() {
+        List<StatsRollup.Key> keys = new ArrayList<>();
+        List<Delta> deltas = new ArrayList<>();
+        for (StatsRollup.Key key : pending.keySet()) {
+            Delta delta = pending.remove(key);
+            if (delta != null && !delta.isZero()) {
+                keys.add(key);
+                deltas.add(delta);
+            }
+        }
+        if (keys.isEmpty()) {
+            return;
+        }
+        List<Object[]> updates = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            StatsRollup.Key key = keys.get(i);
+            Delta delta = deltas.get(i);
+            updates.add(new Object[] { delta.itemCount, delta.units, delta.revenue, key.getGranularity().name(),
+                    Timestamp.valueOf(key.getBucketStart()), key.getDimension().name(), key.getDimensionKey() });
+        }
+        int[] results;
+        try {
+            results = jdbcTemplate.batchUpdate(UPDATE_SQL, updates);
+        } catch (DataAccessException e) {
+            // Keep the changes and retry on the next flush
+            System.err.println("Stats rollup flush failed, will retry: " + e.getMessage());
+            for (int i = 0; i < keys.size(); i++) {
+                merge(pending, keys.get(i), deltas.get(i));
+            }
+            return;
+        }
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] == 0) {
+                insert(keys.get(i), deltas.get(i), updates.get(i));
+            }
+        }
+    }
+
+    // Rebuild every bucket from the orders, orders_archive and products tables. Changes made while it runs
+    // may be counted twice, so run it when the shop is quiet.
+    @Transactional
+    public synchronized int backfill() {
+        pending.clear();
+        products.clear();
+        Map<StatsRollup.Key, Delta> totals = new HashMap<>();
+
+        // Walk the tables in id order a chunk at a time so memory only holds the buckets
+        scanOrders("orders", totals);
+        scanOrders("orders_archive", totals);
+
+        long lastId = 0;
+        while (true) {
+            List<Long> ids = new ArrayList<>();
+            jdbcTemplate.query("SELECT id, status, created_at FROM products WHERE id > ? ORDER BY id LIMIT ?", rs -> {
+                ids.add(rs.getLong("id"));
+                Timestamp createdAt = rs.getTimestamp("created_at");
+                if (createdAt != null) {
+                    addBuckets(totals, createdAt.toLocalDateTime(), Dimension.PRODUCT_STATUS,
+                            rs.getString("status") != null ? rs.getString("status") : NONE, 1, 0, BigDecimal.ZERO);
+                }
+            }, lastId, SCAN_CHUNK);
+            if (ids.isEmpty()) {
+                break;
+            }
+            lastId = ids.get(ids.size() - 1);
+        }
+
+        List<Object[]> rows = new ArrayList<>(totals.size());
+        for (Map.Entry<StatsRollup.Key, Delta> entry : totals.entrySet()) {
+            StatsRollup.Key key = entry.getKey();
+            Delta delta = entry.getValue();
+            rows.add(new Object[] { key.getGranularity().name(), Timestamp.valueOf(key.getBucketStart()),
+                    key.getDimension().name(), key.getDimensionKey(), delta.itemCount, delta.units, delta.revenue });
+        }
+        jdbcTemplate.update("DELETE FROM stats_rollup");
+        for (int from = 0; from < rows.size(); from += SCAN_CHUNK) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, rows.subList(from, Math.min(rows.size(), from + SCAN_CHUNK)));
+        }
+        System.out.println("Stats rollup backfill wrote " + rows.size() + " buckets");
+        return rows.size();
+    }
+
+    private void scanOrders(String table, Map<StatsRollup.Key, Delta> totals) {
+        long lastId = 0;
+        while (true) {
+            List<Long> ids = new ArrayList<>();
+            jdbcTemplate.query("SELECT o.id, o.status, o.quantity, o.order_date, p.product_owner_id, p.category, "
+                    + "COALESCE(o.unit_price, p.price) AS price "
+                    + "FROM " + table + " o JOIN products p ON p.id = o.product_id WHERE o.id > ? ORDER BY o.id LIMIT ?", rs -> {
+                ids.add(rs.getLong("id"));
+                ProductInfo info = new ProductInfo((Long) rs.getObject("product_owner_id", Long.class),
+                        rs.getString("category"), rs.getBigDecimal("price"));
+                Timestamp orderDate = rs.getTimestamp("order_date");
+                applyOrder(rs.getString("status"), rs.getInt("quantity"),
+                        orderDate != null ? orderDate.toLocalDateTime() : null, info, info.price, 1, totals);
+            }, lastId, SCAN_CHUNK);
+            if (ids.isEmpty()) {
+                return;
+            }
+            lastId = ids.get(ids.size() - 1);
+        }
+    }
+
+    // Build the rollups the first time the application runs against existing data
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (statsRollupRepository.count() == 0) {
+            backfill();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private void applyOrder(OrderSnapshot order, int sign, Map<StatsRollup.Key, Delta> target) {
+        if (order == null || order.getProductId() == null) {
+            return;
+        }
+        ProductInfo info = productInfo(order.getProductId());
+        if (info != null) {
+            // The price recorded at placement; older orders fall back to the product's current one
+            applyOrder(order.getStatus(), order.getQuantity() != null ? order.getQuantity() : 0, order.getOrderDate(),
+                    info, order.getUnitPrice() != null ? order.getUnitPrice() : info.price, sign, target);
+        }
+    }
+
+    private void applyOrder(String status, int quantity, LocalDateTime orderDate, ProductInfo info, BigDecimal price,
+                            int sign, Map<StatsRollup.Key, Delta> target) {
+        if (status == null || orderDate == null || IN_CART.equals(status)) {
+            return;
+        }
+        long units = (long) sign * quantity;
+        BigDecimal revenue = price != null ? price.multiply(BigDecimal.valueOf(units)) : BigDecimal.ZERO;
+        addBuckets(target, orderDate, Dimension.ORDER_STATUS, status, sign, units, revenue);
+        if (!NOT_SOLD.contains(status)) {
+            addBuckets(target, orderDate, Dimension.CATEGORY, info.category != null ? info.category : NONE,
+                    sign, units, revenue);
+            if (info.ownerId != null) {
+                addBuckets(target, orderDate, Dimension.OWNER, info.ownerId.toString(), sign, units, revenue);
+            }
+        }
+    }
+
+    private void applyProduct(ProductSnapshot product, int sign, Map<StatsRollup.Key, Delta> target) {
+        if (product == null || product.getCreatedAt() == null) {
+            return;
+        }
+        String status = product.getStatus() != null ? product.getStatus().name() : NONE;
+        addBuckets(target, product.getCreatedAt(), Dimension.PRODUCT_STATUS, status, sign, 0, BigDecimal.ZERO);
+    }
+
+    private void addBuckets(Map<StatsRollup.Key, Delta> target, LocalDateTime time, Dimension dimension, String key,
+                            long itemCount, long units, BigDecimal revenue) {
+        Delta delta = new Delta().add(itemCount, units, revenue);
+        merge(target, new StatsRollup.Key(Granularity.HOUR, time.truncatedTo(ChronoUnit.HOURS), dimension, key), delta);
+        merge(target, new StatsRollup.Key(Granularity.DAY, time.toLocalDate().atStartOfDay(), dimension, key), delta);
+    }
+
+    // compute() is atomic per key, so a concurrent flush either sees the whole change or none of it
+    private void merge(Map<StatsRollup.Key, Delta> target, StatsRollup.Key key, Delta delta) {
+        target.compute(key, (k, existing) -> (existing != null ? existing : new Delta())
+                .add(delta.itemCount, delta.units, delta.revenue));
+    }
+
+    private void insert(StatsRollup.Key key, Delta delta, Object[] updateArgs) {
+        try {
+            jdbcTemplate.update(INSERT_SQL, key.getGranularity().name(), Timestamp.valueOf(key.getBucketStart()),
+                    key.getDimension().name(), key.getDimensionKey(), delta.itemCount, delta.units, delta.revenue);
+        } catch (DuplicateKeyException e) {
+            // Inserted by another node since the update; add to that row
+            jdbcTemplate.update(UPDATE_SQL, updateArgs);
+        } catch (DataAccessException e) {
+            System.err.println("Stats rollup insert failed, will retry: " + e.getMessage());
+            merge(pending, key, delta);
+        }
+    }
+
+    private ProductInfo productInfo(Long productId) {
+        ProductInfo info = products.get(productId);
+        if (info == null) {
+            info = jdbcTemplate.query("SELECT product_owner_id, category, price FROM products WHERE id = ?",
+                    rs -> rs.next() ? new ProductInfo((Long) rs.getObject("product_owner_id", Long.class),
+                            rs.getString("category"), rs.getBigDecimal("price")) : null, productId);
+            if (info != null) {
+                products.put(productId, info);
+            }
+        }
+        return info;
+    }
+}
@@ -0,0 +1,130 @@
+package com.ecommerce.com.ecommerce.flash.archive;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+
+// Moves old orders in a final status from orders to orders_archive so the hot table (and its
+// indexes) only hold carts, open orders and recent history. Runs in small batches, each in its
+// own transaction, with a pause between batches to leave room for regular traffic.
+@Service
+public class OrderArchiver {
+
+    // Columns copied as-is; orders_archive adds archived_at
+    private static final String COLUMNS = "id, product_id, user_id, status, order_date, quantity, unit_price, "
+            + "shipping_address_id, payment_method, card_last_four";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${flash.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${flash.archive.statuses:ACCEPTED,REJECTED,DELIVERED,CANCELLED}")
+    private List<String> configuredStatuses;
+
+    @Value("${flash.archive.min-age-days:180}")
+    private int minAgeDays;
+
+    @Value("${flash.archive.batch-size:500}")
+    private int batchSize;
+
+    @Value("${flash.archive.pause-ms:200}")
+    private long pauseMs;
+
+    @Value("${flash.archive.max-batches-per-run:1000}")
+    private int maxBatchesPerRun;
+
+    private Set<String> statuses;
+    private String statusPlaceholders;
+
+    @PostConstruct
+    public void init() {
+        statuses = Collections.unmodifiableSet(new LinkedHashSet<>(configuredStatuses));
+        statusPlaceholders = placeholders(statuses.size());
+    }
+
+    // Whether orders in this status can end up in the archive
+    public boolean isArchivable(String status) {
+        return status == null || statuses.contains(status);
+    }
+
+    @Scheduled(cron = "${flash.archive.cron:0 30 3 * * *}")
+    public void scheduledRun() {
+        if (enabled) {
+            archiveOldOrders();
+        }
+    }
+
+    // Archive everything currently eligible (up to max-batches-per-run batches); returns the number moved
+    public synchronized int archiveOldOrders() {
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minusDays(minAgeDays));
+        int moved = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            List<Object> args = new ArrayList<>(statuses);
+            args.add(cutoff);
+            args.add(batchSize);
+            List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM orders WHERE status IN (" + statusPlaceholders
+                    + ") AND order_date < ? ORDER BY id LIMIT ?", Long.class, args.toArray());
+            if (ids.isEmpty()) {
+                break;
+            }
+            Integer count = transactionTemplate.execute(tx -> moveBatch(ids, cutoff));
+            moved += count != null ? count : 0;
+            if (ids.size() < batchSize) {
+                break;
+            }
+            try {
+                Thread.sleep(pauseMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (moved > 0) {
+            System.out.println("Archived " + moved + " orders older than " + cutoff);
+        }
+        return moved;
+    }
+
+    // Copy then delete, re-checking status and age so an order changed since it was picked stays put
+    private int moveBatch(List<Long> ids, Timestamp cutoff) {
+        String condition = " WHERE id IN (" + placeholders(ids.size()) + ") AND status IN (" + statusPlaceholders
+                + ") AND order_date < ?";
+        List<Object> args = new ArrayList<>(ids);
+        args.addAll(statuses);
+        args.add(cutoff);
+
+        List<Object> insertArgs = new ArrayList<>();
+        insertArgs.add(Timestamp.valueOf(LocalDateTime.now()));
+        insertArgs.addAll(args);
+        int copied = jdbcTemplate.update("INSERT INTO orders_archive (" + COLUMNS + ", archived_at) SELECT " + COLUMNS
+                + ", ? FROM orders" + condition, insertArgs.toArray());
+        int deleted = jdbcTemplate.update("DELETE FROM orders" + condition, args.toArray());
+        if (copied != deleted) {
+            // Rolls back the batch; it will be picked up again on the next run
+            throw new IllegalStateException("Archived " + copied + " orders but removed " + deleted);
+        }
+        return deleted;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+}
@@ -0,0 +1,300 @@
+package com.ecommerce.com.ecommerce.flash.catalog;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.ecommerce.com.ecommerce.flash.dao.ProductDao;
+import com.ecommerce.com.ecommerce.flash.dto.ProductBatchDTO;
+import com.ecommerce.com.ecommerce.flash.event.CatalogSnapshotEvent;
+import com.ecommerce.com.ecommerce.flash.event.ProductChangedEvent;
+import com.ecommerce.com.ecommerce.flash.service.ProductService;
+import com.ecommerce.com.ecommerce.flash.util.FieldSelection;
+import com.ecommerce.com.ecommerce.flash.util.SingleFlight;
+import com.ecommerce.com.ecommerce.flash.util.TtlCache;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// Final response bytes of product detail and approved-product pages, serialized once (per format) and
+// compressed once per coding, so serving a hot entry is a buffer copy. Product changes and new
+// catalog snapshots re-render the affected entries in the background (readers keep the previous
+// bytes until then); the TTL bounds staleness from stock the flash-sale engine writes without an event.
+@Service
+public class CatalogResponseCache {
+
+    private static final String PRODUCT_PREFIX = "product:";
+    private static final String APPROVED_PREFIX = "approved:";
+    private static final String NORMALIZED_PREFIX = "approved-normalized:";
+    // Separates a key from the ?fields= selection it was rendered with
+    private static final String FIELDS_SEPARATOR = "|";
+    // Separates a key from the binary format it was rendered in (JSON keys have none)
+    private static final String FORMAT_SEPARATOR = "#";
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private MappingJackson2CborHttpMessageConverter cborConverter;
+
+    @Autowired
+    private MappingJackson2SmileHttpMessageConverter smileConverter;
+
+    @Value("${flash.catalog.response-cache.max-entries:5000}")
+    private int maxEntries;
+
+    @Value("${flash.catalog.response-cache.ttl-ms:10000}")
+    private long ttlMs;
+
+    private TtlCache<String, EncodedResponse> responses;
+    // Misses for the same key serialize and compress once
+    private final SingleFlight<String, Optional<EncodedResponse>> renders = new SingleFlight<>();
+    private final Set<Long> changedProducts = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean approvedStale = new AtomicBoolean();
+    private final ExecutorService refresher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "catalog-cache-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void init() {
+        responses = new TtlCache<>(maxEntries, ttlMs);
+        Gauge.builder("flash.cache.hit.ratio", responses, TtlCache::hitRatio)
+             .tag("cache", "catalogResponse")
+             .register(meterRegistry);
+        Gauge.builder("flash.cache.size", responses, TtlCache::size)
+             .tag("cache", "catalogResponse")
+             .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    // fields is null for the full ProductDTO
+    public ResponseEntity<?> product(Long id, FieldSelection fields, ResponseFormat format, String acceptEncoding,
+                                     String ifNoneMatch) {
+        Optional<EncodedResponse> response = get(inFormat(withFields(PRODUCT_PREFIX + id, fields), format));
+        if (response.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Product not found.");
+        }
+        return write(response.get(), acceptEncoding, ifNoneMatch);
+    }
+
+    // page and size are both null for the full list
+    public ResponseEntity<?> approved(Integer page, Integer size, FieldSelection fields, boolean normalized,
+                                      ResponseFormat format, String acceptEncoding, String ifNoneMatch) {
+        String prefix = normalized ? NORMALIZED_PREFIX : APPROVED_PREFIX;
+        String key = inFormat(withFields(prefix + (page == null ? "all" : page + ":" + size), fields), format);
+        return write(get(key).orElseThrow(), acceptEncoding, ifNoneMatch);
+    }
+
+    // Several products at once, in request order with null for unknown ids (also listed in missing).
+    // Products already cached are taken from the cache; the rest are loaded with one IN query.
+    public ProductBatchDTO products(List<Long> ids, FieldSelection fields) {
+        Map<Long, Object> found = new HashMap<>();
+        Set<Long> toLoad = new LinkedHashSet<>();
+        for (Long id : ids) {
+            if (found.containsKey(id) || toLoad.contains(id)) {
+                continue;
+            }
+            EncodedResponse cached = responses.get(withFields(PRODUCT_PREFIX + id, fields));
+            if (cached != null) {
+                found.put(id, cached.body());
+            } else {
+                toLoad.add(id);
+            }
+        }
+        if (!toLoad.isEmpty()) {
+            found.putAll(fields == null ? productService.getProductDTOs(toLoad)
+                    : productService.getProductFieldsByIds(toLoad, fields));
+        }
+        List<Object> products = new ArrayList<>(ids.size());
+        Set<Long> missing = new LinkedHashSet<>();
+        for (Long id : ids) {
+            Object product = found.get(id);
+            products.add(product);
+            if (product == null) {
+                missing.add(id);
+            }
+        }
+        return new ProductBatchDTO(products, new ArrayList<>(missing));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        changedProducts.add(event.getProductId());
+        refresher.execute(this::refresh);
+    }
+
+    // Approved pages are rendered from the catalog snapshot, so a new one makes them stale
+    @EventListener
+    public void onCatalogSnapshot(CatalogSnapshotEvent event) {
+        approvedStale.set(true);
+        refresher.execute(this::refresh);
+    }
+
+    private Optional<EncodedResponse> get(String key) {
+        EncodedResponse cached = responses.get(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        return renders.execute(key, () -> {
+            Optional<EncodedResponse> rendered = render(key);
+            rendered.ifPresent(response -> responses.put(key, response));
+            return rendered;
+        });
+    }
+
+    // Re-render the changed products (in every field selection) and every cached approved page
+    // (any product change or new catalog snapshot may move them)
+    private void refresh() {
+        boolean snapshotChanged = approvedStale.getAndSet(false);
+        if (changedProducts.isEmpty() && !snapshotChanged) {
+            return;
+        }
+        Set<String> changedKeys = new HashSet<>();
+        for (Long id : List.copyOf(changedProducts)) {
+            changedProducts.remove(id);
+            changedKeys.add(PRODUCT_PREFIX + id);
+        }
+        for (String key : responses.keys()) {
+            if (key.startsWith(APPROVED_PREFIX) || key.startsWith(NORMALIZED_PREFIX) || changedKeys.contains(baseKey(key))) {
+                rerender(key);
+            }
+        }
+    }
+
+    private void rerender(String key) {
+        try {
+            Optional<EncodedResponse> rendered = render(key);
+            if (rendered.isPresent()) {
+                responses.put(key, rendered.get());
+            } else {
+                responses.remove(key);
+            }
+        } catch (Exception e) {
+            // Drop the entry; the next request renders it again
+            responses.remove(key);
+            System.err.println("Could not refresh catalog response " + key + ": " + e.getMessage());
+        }
+    }
+
+    private Optional<EncodedResponse> render(String key) {
+        ResponseFormat format = ResponseFormat.JSON;
+        int formatAt = key.indexOf(FORMAT_SEPARATOR);
+        if (formatAt >= 0) {
+            format = ResponseFormat.valueOf(key.substring(formatAt + 1));
+            key = key.substring(0, formatAt);
+        }
+        String base = baseKey(key);
+        FieldSelection fields = base.length() < key.length()
+                ? FieldSelection.parse(key.substring(base.length() + 1), ProductDao.SPARSE_FIELDS) : null;
+        Object body;
+        if (base.startsWith(PRODUCT_PREFIX)) {
+            Long id = Long.valueOf(base.substring(PRODUCT_PREFIX.length()));
+            Optional<?> product = fields == null ? productService.getProductDTO(id) : productService.getProductFields(id, fields);
+            if (product.isEmpty()) {
+                return Optional.empty();
+            }
+            body = product.get();
+        } else {
+            boolean normalized = base.startsWith(NORMALIZED_PREFIX);
+            String page = base.substring(normalized ? NORMALIZED_PREFIX.length() : APPROVED_PREFIX.length());
+            Integer pageNumber = null;
+            Integer pageSize = null;
+            if (!page.equals("all")) {
+                String[] parts = page.split(":");
+                pageNumber = Integer.valueOf(parts[0]);
+                pageSize = Integer.valueOf(parts[1]);
+            }
+            body = normalized ? productService.getApprovedProductsNormalized(pageNumber, pageSize, null, null, fields)
+                    : productService.getApprovedProducts(pageNumber, pageSize, null, null, fields);
+        }
+        try {
+            return Optional.of(new EncodedResponse(body, format.mediaType(), mapperFor(format).writeValueAsBytes(body)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private ObjectMapper mapperFor(ResponseFormat format) {
+        switch (format) {
+            case CBOR:
+                return cborConverter.getObjectMapper();
+            case SMILE:
+                return smileConverter.getObjectMapper();
+            default:
+                return objectMapper;
+        }
+    }
+
+    private static String inFormat(String key, ResponseFormat format) {
+        return format == ResponseFormat.JSON ? key : key + FORMAT_SEPARATOR + format.name();
+    }
+
+    private static String withFields(String key, FieldSelection fields) {
+        return fields == null ? key : key + FIELDS_SEPARATOR + fields.key();
+    }
+
+    // The key without its field selection and format
+    private static String baseKey(String key) {
+        int end = key.length();
+        for (String separator : new String[] {FIELDS_SEPARATOR, FORMAT_SEPARATOR}) {
+            int at = key.indexOf(separator);
+            if (at >= 0) {
+                end = Math.min(end, at);
+            }
+        }
+        return key.substring(0, end);
+    }
+
+    private static ResponseEntity<?> write(EncodedResponse response, String acceptEncoding, String ifNoneMatch) {
+        EncodedResponse.Coding coding = EncodedResponse.negotiate(acceptEncoding);
+        if (response.matches(ifNoneMatch, coding)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(response.etag(coding))
+                                 .header(HttpHeaders.VARY, HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING).build();
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                                                           .contentType(response.contentType())
+                                                           .eTag(response.etag(coding))
+                                                           .header(HttpHeaders.VARY, HttpHeaders.ACCEPT,
+                                                                   HttpHeaders.ACCEPT_ENCODING);
+        if (coding.header() != null) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, coding.header());
+        }
+        return builder.body(response.body(coding));
+    }
+}
@@ -0,0 +1,592 @@
+package com.ecommerce.com.ecommerce.flash.catalog;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+import com.ecommerce.com.ecommerce.flash.dto.ProductOwnerDTO;
+
+// Immutable, column-oriented copy of the approved catalog. One row per product, ordered by id:
+// numbers live in primitive arrays, category/size/color strings are dictionary-encoded into int
+// codes, and names, descriptions and images are UTF-8 in direct (off-heap) segments addressed by
+// segment, offset and length. Orders by price, stock and name are precomputed, so a browse query is
+// a scan of int arrays and objects are only created for the rows of the page being returned.
+// Snapshots are never modified. patched() builds the next one without decoding this one: unchanged
+// rows keep their column values and go on sharing this snapshot's segments, and only the fresh rows'
+// text is written to a new segment. The text of replaced rows stays in the shared segments until
+// compacted() copies the live byte ranges into new ones; needsCompaction() says when that is due.
+public final class CatalogSnapshot {
+
+    // What the snapshot holds for every product, as ProductDao.findFields field names
+    public static final Set<String> SNAPSHOT_FIELDS = Collections.unmodifiableSet(new LinkedHashSet<>(List.of(
+            "id", "name", "description", "price", "stock", "category", "available", "productSizes", "productColors",
+            "productImageBase64", "productOwner")));
+    // Row key for the product's @Version, set by the caller; rows without it never count as current
+    public static final String VERSION = "version";
+
+    private static final int NULL_STRING = -1;
+    private static final long NO_OWNER = Long.MIN_VALUE;
+    private static final long NO_VERSION = -1;
+    // Text columns, as indexes into textRef and textLength
+    private static final String[] TEXT_FIELDS = {"name", "description", "productImageBase64"};
+    private static final int NAME = 0;
+    private static final int DESCRIPTION = 1;
+    private static final int IMAGE = 2;
+    // Segments are at most this big (one buffer cannot hold more than 2 GB; the arena can)
+    private static final int MAX_SEGMENT_BYTES = 1 << 30;
+    // Patches may leave this many segments, or this much unreachable text beyond the live text
+    private static final int MAX_SEGMENTS = 32;
+    private static final long COMPACT_SLACK_BYTES = 1 << 20;
+
+    private final long[] ids;
+    private final long[] versions;
+    private final long[] priceCents;
+    private final int[] stock;
+    private final boolean[] available;
+    private final int[] categoryCodes;
+    private final long[] ownerIds;
+    // Sizes of row i are sizeCodes[sizeStart[i] .. sizeStart[i + 1]) (likewise colors)
+    private final int[] sizeStart;
+    private final int[] sizeCodes;
+    private final int[] colorStart;
+    private final int[] colorCodes;
+    // Dictionary shared by categories, sizes and colors
+    private final String[] strings;
+
+    // Row i's name is textLength[NAME][i] bytes at textRef[NAME][i], a reference of the form
+    // segment << 32 | offset (likewise description and image)
+    private final ByteBuffer[] segments;
+    private final long[][] textRef;
+    private final int[][] textLength;
+    private final long liveBytes;
+    private final long segmentBytes;
+
+    private final int[] byPrice;
+    private final int[] byStock;
+    private final int[] byName;
+
+    private final Map<Long, ProductOwnerDTO> owners;
+    private final long builtAt;
+
+    // orders holds byPrice, byStock and byName for the columns' rows, or is null to sort them here
+    private CatalogSnapshot(Columns columns, String[] strings, ByteBuffer[] segments, int[][] orders,
+                            Map<Long, ProductOwnerDTO> owners) {
+        int n = columns.count;
+        ids = columns.ids;
+        versions = columns.versions;
+        priceCents = columns.priceCents;
+        stock = columns.stock;
+        available = columns.available;
+        categoryCodes = columns.categoryCodes;
+        ownerIds = columns.ownerIds;
+        sizeStart = columns.sizeStart;
+        colorStart = columns.colorStart;
+        sizeStart[n] = columns.sizes.size();
+        colorStart[n] = columns.colors.size();
+        sizeCodes = columns.sizes.stream().mapToInt(Integer::intValue).toArray();
+        colorCodes = columns.colors.stream().mapToInt(Integer::intValue).toArray();
+        this.strings = strings;
+
+        this.segments = segments;
+        textRef = columns.textRef;
+        textLength = columns.textLength;
+        long live = 0;
+        for (int[] lengths : textLength) {
+            for (int length : lengths) {
+                live += Math.max(length, 0);
+            }
+        }
+        liveBytes = live;
+        long capacity = 0;
+        for (ByteBuffer segment : segments) {
+            capacity += segment.capacity();
+        }
+        segmentBytes = capacity;
+
+        if (orders != null) {
+            byPrice = orders[0];
+            byStock = orders[1];
+            byName = orders[2];
+        } else {
+            byPrice = order(n, Comparator.comparingLong(row -> priceCents[row]));
+            byStock = order(n, Comparator.comparingInt(row -> stock[row]));
+            String[] names = new String[n];
+            for (int i = 0; i < n; i++) {
+                names[i] = sortName(name(i));
+            }
+            byName = order(n, Comparator.comparing(row -> names[row]));
+        }
+
+        this.owners = Collections.unmodifiableMap(new HashMap<>(owners));
+        this.builtAt = System.currentTimeMillis();
+    }
+
+    // rows are raw sparse-read rows (ProductDao.findFields with SNAPSHOT_FIELDS, plus VERSION), in any order
+    public static CatalogSnapshot build(List<Map<String, Object>> rows, Map<Long, ProductOwnerDTO> owners) {
+        List<Map<String, Object>> sorted = sortedById(rows);
+        Columns columns = new Columns(sorted.size());
+        Dictionary dictionary = new Dictionary(new String[0]);
+        TextWriter writer = new TextWriter(0);
+        for (Map<String, Object> row : sorted) {
+            columns.add(row, dictionary, writer);
+        }
+        return new CatalogSnapshot(columns, dictionary.strings(), writer.write(), null, owners);
+    }
+
+    // Copy-on-write update: the rows of changedIds are replaced by fresh (changed products that are no
+    // longer approved, or were deleted, are simply absent from it); freshOwners covers fresh's owners.
+    // Unchanged rows are copied column by column and keep referring to this snapshot's text, and the
+    // fresh rows are inserted into the sort orders, so nothing of this snapshot is decoded except the
+    // names the fresh rows are compared with.
+    public CatalogSnapshot patched(Collection<Long> changedIds, List<Map<String, Object>> fresh,
+                                   Map<Long, ProductOwnerDTO> freshOwners) {
+        List<Map<String, Object>> added = sortedById(fresh);
+        Set<Long> replaced = new HashSet<>(changedIds);
+        for (Map<String, Object> row : added) {
+            replaced.add((Long) row.get("id"));
+        }
+        int kept = 0;
+        for (long id : ids) {
+            if (!replaced.contains(id)) {
+                kept++;
+            }
+        }
+        Columns columns = new Columns(kept + added.size());
+        Dictionary dictionary = new Dictionary(strings);
+        TextWriter writer = new TextWriter(segments.length);
+        int[] oldToNew = new int[ids.length];
+        int[] newToOld = new int[kept + added.size()];
+        int[] addedRows = new int[added.size()];
+        int old = 0;
+        int next = 0;
+        while (old < ids.length || next < added.size()) {
+            if (old < ids.length && replaced.contains(ids[old])) {
+                oldToNew[old++] = -1;
+            } else if (next < added.size() && (old == ids.length || (Long) added.get(next).get("id") < ids[old])) {
+                newToOld[columns.count] = -1;
+                addedRows[next] = columns.count;
+                columns.add(added.get(next++), dictionary, writer);
+            } else {
+                oldToNew[old] = columns.count;
+                newToOld[columns.count] = old;
+                columns.copy(this, old++, null);
+            }
+        }
+        ByteBuffer[] nextSegments = concat(segments, writer.write());
+
+        Map<Integer, String> addedNames = new HashMap<>();
+        for (int i = 0; i < added.size(); i++) {
+            addedNames.put(addedRows[i], sortName((String) added.get(i).get("name")));
+        }
+        IntFunction<String> nameOf = row -> newToOld[row] >= 0 ? sortName(name(newToOld[row])) : addedNames.get(row);
+        int[][] orders = {
+                merged(byPrice, oldToNew, addedRows, Comparator.comparingLong(row -> columns.priceCents[row])),
+                merged(byStock, oldToNew, addedRows, Comparator.comparingInt(row -> columns.stock[row])),
+                merged(byName, oldToNew, addedRows, Comparator.comparing(nameOf::apply))};
+
+        Map<Long, ProductOwnerDTO> merged = new HashMap<>(owners);
+        merged.putAll(freshOwners);
+        return new CatalogSnapshot(columns, dictionary.strings(), nextSegments, orders, merged);
+    }
+
+    // The same rows with their text copied, range by range, into new segments that hold nothing else
+    public CatalogSnapshot compacted() {
+        Columns columns = new Columns(ids.length);
+        TextWriter writer = new TextWriter(0);
+        for (int row = 0; row < ids.length; row++) {
+            columns.copy(this, row, writer);
+        }
+        return new CatalogSnapshot(columns, strings, writer.write(), new int[][] {byPrice, byStock, byName}, owners);
+    }
+
+    // Whether patches have left enough segments or unreachable text behind to make compacted() worth it
+    public boolean needsCompaction() {
+        return segments.length > MAX_SEGMENTS || segmentBytes - liveBytes > Math.max(liveBytes, COMPACT_SLACK_BYTES);
+    }
+
+    // Whether the product is in the snapshot at this version and stock
+    public boolean isCurrent(long id, long version, int units) {
+        int row = Arrays.binarySearch(ids, id);
+        return row >= 0 && versions[row] != NO_VERSION && versions[row] == version && stock[row] == units;
+    }
+
+    public boolean contains(long id) {
+        return Arrays.binarySearch(ids, id) >= 0;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public long builtAt() {
+        return builtAt;
+    }
+
+    public Map<Long, ProductOwnerDTO> owners() {
+        return owners;
+    }
+
+    // Rows in the given category (case-insensitive; null for all) in sort order (null for id order)
+    public int[] select(String category, CatalogSort sort) {
+        boolean[] categoryMatches = null;
+        if (category != null) {
+            categoryMatches = new boolean[strings.length];
+            for (int code = 0; code < strings.length; code++) {
+                categoryMatches[code] = strings[code].equalsIgnoreCase(category.trim());
+            }
+        }
+        int[] order = sort == null ? null : orderFor(sort.key());
+        boolean descending = sort != null && sort.isDescending();
+        int n = ids.length;
+        int[] selected = new int[n];
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            int at = descending ? n - 1 - i : i;
+            int row = order == null ? at : order[at];
+            int code = categoryCodes[row];
+            if (categoryMatches == null || (code != NULL_STRING && categoryMatches[code])) {
+                selected[count++] = row;
+            }
+        }
+        return count == n ? selected : Arrays.copyOf(selected, count);
+    }
+
+    // One page of the selected rows (all of them when page or size is null) as raw sparse-read rows
+    public List<Map<String, Object>> rows(int[] selected, Integer page, Integer size, Set<String> fields) {
+        int from = 0;
+        int to = selected.length;
+        if (page != null && size != null) {
+            from = (int) Math.min((long) page * size, selected.length);
+            to = (int) Math.min((long) from + size, selected.length);
+        }
+        List<Map<String, Object>> rows = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            rows.add(row(selected[i], fields));
+        }
+        return rows;
+    }
+
+    // Row values as ProductDao.findFields returns them: raw image (and thumbnail), owner id
+    private Map<String, Object> row(int row, Set<String> fields) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (String field : fields) {
+            switch (field) {
+                case "id":
+                    values.put(field, ids[row]);
+                    break;
+                case "name":
+                    values.put(field, name(row));
+                    break;
+                case "description":
+                    values.put(field, text(DESCRIPTION, row));
+                    break;
+                case "price":
+                    values.put(field, priceCents[row] / 100.0);
+                    break;
+                case "stock":
+                    values.put(field, stock[row]);
+                    break;
+                case "category":
+                    values.put(field, decode(categoryCodes[row]));
+                    break;
+                case "available":
+                    values.put(field, available[row]);
+                    break;
+                case "approved":
+                    values.put(field, true);
+                    break;
+                case "productSizes":
+                    values.put(field, decode(sizeCodes, sizeStart[row], sizeStart[row + 1]));
+                    break;
+                case "productColors":
+                    values.put(field, decode(colorCodes, colorStart[row], colorStart[row + 1]));
+                    break;
+                case "productImageBase64":
+                case "thumbnail":
+                    values.put(field, text(IMAGE, row));
+                    break;
+                case "productOwner":
+                    values.put(field, ownerIds[row] == NO_OWNER ? null : ownerIds[row]);
+                    break;
+                default:
+                    values.put(field, null);
+            }
+        }
+        return values;
+    }
+
+    private String name(int row) {
+        return text(NAME, row);
+    }
+
+    private String text(int column, int row) {
+        int length = textLength[column][row];
+        if (length == NULL_STRING) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        long ref = textRef[column][row];
+        segments[(int) (ref >>> 32)].get((int) ref, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // A view of a text's bytes, for copying without decoding
+    private ByteBuffer slice(long ref, int length) {
+        return segments[(int) (ref >>> 32)].slice((int) ref, length);
+    }
+
+    private String decode(int code) {
+        return code == NULL_STRING ? null : strings[code];
+    }
+
+    private List<String> decode(int[] codes, int from, int to) {
+        List<String> values = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            values.add(strings[codes[i]]);
+        }
+        return values;
+    }
+
+    private int[] orderFor(CatalogSort.Key key) {
+        switch (key) {
+            case PRICE:
+                return byPrice;
+            case STOCK:
+                return byStock;
+            case NAME:
+                return byName;
+            default:
+                return null;
+        }
+    }
+
+    private static String sortName(String name) {
+        return name == null ? "" : name.toLowerCase(Locale.ROOT);
+    }
+
+    private static List<Map<String, Object>> sortedById(List<Map<String, Object>> rows) {
+        List<Map<String, Object>> sorted = new ArrayList<>(rows);
+        sorted.sort(Comparator.comparingLong(row -> (Long) row.get("id")));
+        return sorted;
+    }
+
+    private static ByteBuffer[] concat(ByteBuffer[] first, ByteBuffer[] second) {
+        ByteBuffer[] all = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, all, first.length, second.length);
+        return all;
+    }
+
+    // Row numbers sorted by the comparator; rows are in id order, so ties stay in id order
+    private static int[] order(int n, Comparator<Integer> comparator) {
+        return IntStream.range(0, n).boxed().sorted(comparator).mapToInt(Integer::intValue).toArray();
+    }
+
+    // An order of the previous snapshot's rows carried over to the next one: dropped rows removed, the
+    // rest renumbered (oldToNew), and the added rows (new numbers) inserted where the comparator puts
+    // them. Ties go by row number, as in order(). Only O(added * log rows) comparisons.
+    private static int[] merged(int[] order, int[] oldToNew, int[] added, Comparator<Integer> comparator) {
+        Comparator<Integer> full = comparator.thenComparingInt(row -> row);
+        int[] kept = new int[order.length];
+        int keptCount = 0;
+        for (int row : order) {
+            if (oldToNew[row] >= 0) {
+                kept[keptCount++] = oldToNew[row];
+            }
+        }
+        Integer[] inserted = IntStream.of(added).boxed().sorted(full).toArray(Integer[]::new);
+        int[] result = new int[keptCount + inserted.length];
+        int from = 0;
+        int count = 0;
+        for (int row : inserted) {
+            // First kept row that sorts after the inserted one
+            int low = from;
+            int high = keptCount;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (full.compare(kept[middle], row) > 0) {
+                    high = middle;
+                } else {
+                    low = middle + 1;
+                }
+            }
+            System.arraycopy(kept, from, result, count, low - from);
+            count += low - from;
+            from = low;
+            result[count++] = row;
+        }
+        System.arraycopy(kept, from, result, count, keptCount - from);
+        return result;
+    }
+
+    // Column arrays of a snapshot under construction, filled one row at a time
+    private static final class Columns {
+        final long[] ids;
+        final long[] versions;
+        final long[] priceCents;
+        final int[] stock;
+        final boolean[] available;
+        final int[] categoryCodes;
+        final long[] ownerIds;
+        final int[] sizeStart;
+        final int[] colorStart;
+        final List<Integer> sizes = new ArrayList<>();
+        final List<Integer> colors = new ArrayList<>();
+        final long[][] textRef;
+        final int[][] textLength;
+        int count;
+
+        Columns(int n) {
+            ids = new long[n];
+            versions = new long[n];
+            priceCents = new long[n];
+            stock = new int[n];
+            available = new boolean[n];
+            categoryCodes = new int[n];
+            ownerIds = new long[n];
+            sizeStart = new int[n + 1];
+            colorStart = new int[n + 1];
+            textRef = new long[TEXT_FIELDS.length][n];
+            textLength = new int[TEXT_FIELDS.length][n];
+        }
+
+        // Append a raw row, queueing its text on writer
+        void add(Map<String, Object> row, Dictionary dictionary, TextWriter writer) {
+            int i = count++;
+            ids[i] = (Long) row.get("id");
+            Number version = (Number) row.get(VERSION);
+            versions[i] = version == null ? NO_VERSION : version.longValue();
+            Double price = (Double) row.get("price");
+            priceCents[i] = price == null ? 0 : Math.round(price * 100);
+            Integer units = (Integer) row.get("stock");
+            stock[i] = units == null ? 0 : units;
+            available[i] = Boolean.TRUE.equals(row.get("available"));
+            categoryCodes[i] = dictionary.encode((String) row.get("category"));
+            Long ownerId = (Long) row.get("productOwner");
+            ownerIds[i] = ownerId == null ? NO_OWNER : ownerId;
+            sizeStart[i] = sizes.size();
+            for (Object size : (Collection<?>) row.getOrDefault("productSizes", List.of())) {
+                sizes.add(dictionary.encode((String) size));
+            }
+            colorStart[i] = colors.size();
+            for (Object color : (Collection<?>) row.getOrDefault("productColors", List.of())) {
+                colors.add(dictionary.encode((String) color));
+            }
+            for (int column = 0; column < TEXT_FIELDS.length; column++) {
+                String text = (String) row.get(TEXT_FIELDS[column]);
+                if (text == null) {
+                    textLength[column][i] = NULL_STRING;
+                } else {
+                    byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+                    textRef[column][i] = writer.add(ByteBuffer.wrap(bytes));
+                    textLength[column][i] = bytes.length;
+                }
+            }
+        }
+
+        // Append a row of from as it is. Dictionary codes carry over (the dictionary starts with
+        // from's); text is copied byte for byte through writer, or keeps referring to from's
+        // segments when writer is null.
+        void copy(CatalogSnapshot from, int row, TextWriter writer) {
+            int i = count++;
+            ids[i] = from.ids[row];
+            versions[i] = from.versions[row];
+            priceCents[i] = from.priceCents[row];
+            stock[i] = from.stock[row];
+            available[i] = from.available[row];
+            categoryCodes[i] = from.categoryCodes[row];
+            ownerIds[i] = from.ownerIds[row];
+            sizeStart[i] = sizes.size();
+            for (int at = from.sizeStart[row]; at < from.sizeStart[row + 1]; at++) {
+                sizes.add(from.sizeCodes[at]);
+            }
+            colorStart[i] = colors.size();
+            for (int at = from.colorStart[row]; at < from.colorStart[row + 1]; at++) {
+                colors.add(from.colorCodes[at]);
+            }
+            for (int column = 0; column < TEXT_FIELDS.length; column++) {
+                long ref = from.textRef[column][row];
+                int length = from.textLength[column][row];
+                textLength[column][i] = length;
+                textRef[column][i] = writer == null || length == NULL_STRING ? ref : writer.add(from.slice(ref, length));
+            }
+        }
+    }
+
+    // Category, size and color strings to int codes; a patch extends the previous snapshot's dictionary
+    private static final class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values;
+
+        Dictionary(String[] existing) {
+            values = new ArrayList<>(Arrays.asList(existing));
+            for (int code = 0; code < existing.length; code++) {
+                codes.put(existing[code], code);
+            }
+        }
+
+        int encode(String value) {
+            if (value == null) {
+                return NULL_STRING;
+            }
+            return codes.computeIfAbsent(value, key -> {
+                values.add(key);
+                return values.size() - 1;
+            });
+        }
+
+        String[] strings() {
+            return values.toArray(new String[0]);
+        }
+    }
+
+    // Lays text out in new direct segments of at most MAX_SEGMENT_BYTES, numbered from base
+    private static final class TextWriter {
+        private final int base;
+        private final List<List<ByteBuffer>> pending = new ArrayList<>();
+        private final List<Integer> sizes = new ArrayList<>();
+
+        TextWriter(int base) {
+            this.base = base;
+        }
+
+        // Queue the text's remaining bytes and return the reference they will have
+        long add(ByteBuffer text) {
+            int length = text.remaining();
+            int last = sizes.size() - 1;
+            if (last < 0 || (sizes.get(last) > 0 && (long) sizes.get(last) + length > MAX_SEGMENT_BYTES)) {
+                pending.add(new ArrayList<>());
+                sizes.add(0);
+                last++;
+            }
+            int offset = sizes.get(last);
+            pending.get(last).add(text);
+            sizes.set(last, offset + length);
+            return (long) (base + last) << 32 | offset;
+        }
+
+        ByteBuffer[] write() {
+            ByteBuffer[] segments = new ByteBuffer[pending.size()];
+            for (int i = 0; i < segments.length; i++) {
+                segments[i] = ByteBuffer.allocateDirect(Math.max(sizes.get(i), 1));
+                for (ByteBuffer text : pending.get(i)) {
+                    segments[i].put(text);
+                }
+            }
+            return segments;
+        }
+    }
+}
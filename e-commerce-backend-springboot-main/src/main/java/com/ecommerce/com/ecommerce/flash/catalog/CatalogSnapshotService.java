@@ -0,0 +1,238 @@
+package com.ecommerce.com.ecommerce.flash.catalog;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.ecommerce.com.ecommerce.flash.dao.ProductDao;
+import com.ecommerce.com.ecommerce.flash.dto.ProductOwnerDTO;
+import com.ecommerce.com.ecommerce.flash.entity.ProductOwner;
+import com.ecommerce.com.ecommerce.flash.event.CatalogSnapshotEvent;
+import com.ecommerce.com.ecommerce.flash.event.ProductChangedEvent;
+import com.ecommerce.com.ecommerce.flash.repository.ProductOwnerRepository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// Owns the current CatalogSnapshot of approved products. Loaded once the application is ready,
+// patched copy-on-write for the products named by change events, and fully rebuilt on a schedule
+// (which also picks up stock the flash-sale engine writes without an event). Every new snapshot is
+// published with a single volatile write, so readers never lock and never see a half-built one. A
+// failed load keeps the previous snapshot, so browsing continues while the database is unavailable.
+// Both first probe the products' version and stock (stock because the flash-sale engine changes it
+// without touching the version) and only load, build and publish when rows actually differ, so an
+// idle catalog costs one narrow query per rebuild and no new snapshot or CatalogSnapshotEvent.
+@Service
+public class CatalogSnapshotService {
+
+    private static final String APPROVED = "WHERE p.approved = TRUE";
+
+    @Autowired
+    private ProductDao productDao;
+
+    @Autowired
+    private ProductOwnerRepository productOwnerRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // null until the first load succeeds; callers then fall back to the database
+    private volatile CatalogSnapshot snapshot;
+
+    private final Set<Long> changedProducts = ConcurrentHashMap.newKeySet();
+    // All loads and patches run here, one at a time
+    private final ExecutorService builder = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "catalog-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("flash.catalog.snapshot.age.seconds", this,
+                     service -> service.snapshot == null ? -1
+                             : (System.currentTimeMillis() - service.snapshot.builtAt()) / 1000.0)
+             .register(meterRegistry);
+        Gauge.builder("flash.catalog.snapshot.products", this,
+                     service -> service.snapshot == null ? 0 : service.snapshot.size())
+             .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        builder.shutdownNow();
+    }
+
+    public CatalogSnapshot current() {
+        return snapshot;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @org.springframework.core.annotation.Order(3)
+    public void load() {
+        builder.execute(this::rebuild);
+    }
+
+    @Scheduled(initialDelayString = "${flash.catalog.snapshot.rebuild-ms:15000}",
+               fixedDelayString = "${flash.catalog.snapshot.rebuild-ms:15000}")
+    public void scheduledRebuild() {
+        builder.execute(this::rebuild);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        changedProducts.add(event.getProductId());
+        builder.execute(this::patch);
+    }
+
+    private void rebuild() {
+        long start = System.currentTimeMillis();
+        try {
+            // Changes so far are covered by the full load
+            changedProducts.clear();
+            Map<Long, long[]> state = probe(APPROVED);
+            CatalogSnapshot current = snapshot;
+            if (current != null && current.size() == state.size() && isCurrent(current, state)
+                    && ownersUnchanged(current)) {
+                if (current.needsCompaction()) {
+                    snapshot = current.compacted();
+                }
+                return;
+            }
+            List<Map<String, Object>> rows = withVersions(
+                    productDao.findFields(CatalogSnapshot.SNAPSHOT_FIELDS, APPROVED), state);
+            publish(CatalogSnapshot.build(rows, loadOwners(rows)));
+            System.out.println("Catalog snapshot built from " + rows.size() + " products in "
+                    + (System.currentTimeMillis() - start) + " ms");
+        } catch (RuntimeException e) {
+            System.err.println("Catalog snapshot rebuild failed, keeping the previous one: " + e.getMessage());
+        }
+    }
+
+    // Replace the rows of the changed products with their current state
+    private void patch() {
+        CatalogSnapshot current = snapshot;
+        if (current == null || changedProducts.isEmpty()) {
+            return;
+        }
+        List<Long> changed = new ArrayList<>(changedProducts);
+        changedProducts.removeAll(changed);
+        try {
+            String condition = APPROVED + " AND p.id IN ("
+                    + String.join(", ", Collections.nCopies(changed.size(), "?")) + ")";
+            Map<Long, long[]> state = probe(condition, changed.toArray());
+            // Events also come for saves that changed nothing the snapshot holds at this version
+            List<Long> differing = new ArrayList<>();
+            for (Long id : changed) {
+                long[] versionAndStock = state.get(id);
+                boolean same = versionAndStock == null ? !current.contains(id)
+                        : current.isCurrent(id, versionAndStock[0], (int) versionAndStock[1]);
+                if (!same) {
+                    differing.add(id);
+                }
+            }
+            if (differing.isEmpty()) {
+                return;
+            }
+            condition = APPROVED + " AND p.id IN ("
+                    + String.join(", ", Collections.nCopies(differing.size(), "?")) + ")";
+            List<Map<String, Object>> fresh = withVersions(
+                    productDao.findFields(CatalogSnapshot.SNAPSHOT_FIELDS, condition, differing.toArray()), state);
+            CatalogSnapshot next = current.patched(differing, fresh, loadOwners(fresh));
+            publish(next.needsCompaction() ? next.compacted() : next);
+        } catch (RuntimeException e) {
+            // Retried with the next change, or covered by the next rebuild
+            changedProducts.addAll(changed);
+            System.err.println("Catalog snapshot patch failed for " + changed + ": " + e.getMessage());
+        }
+    }
+
+    private void publish(CatalogSnapshot next) {
+        snapshot = next;
+        eventPublisher.publishEvent(new CatalogSnapshotEvent(next.size()));
+    }
+
+    // Version and stock of the matching products, by id
+    private Map<Long, long[]> probe(String condition, Object... args) {
+        Map<Long, long[]> state = new HashMap<>();
+        jdbcTemplate.query("SELECT p.id, p.version, p.stock FROM products p " + condition, rs -> {
+            state.put(rs.getLong("id"), new long[] {rs.getLong("version"), rs.getInt("stock")});
+        }, args);
+        return state;
+    }
+
+    private static boolean isCurrent(CatalogSnapshot current, Map<Long, long[]> state) {
+        for (Map.Entry<Long, long[]> entry : state.entrySet()) {
+            long[] versionAndStock = entry.getValue();
+            if (!current.isCurrent(entry.getKey(), versionAndStock[0], (int) versionAndStock[1])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Rows as loaded, tagged with the version probed just before. A product saved in between gets
+    // the older version, so the next rebuild sees it differ and loads it again.
+    private static List<Map<String, Object>> withVersions(List<Map<String, Object>> rows, Map<Long, long[]> state) {
+        for (Map<String, Object> row : rows) {
+            long[] versionAndStock = state.get((Long) row.get("id"));
+            row.put(CatalogSnapshot.VERSION, versionAndStock == null ? null : versionAndStock[0]);
+        }
+        return rows;
+    }
+
+    // Owner details are not versioned with the products, so compare what the snapshot shows
+    private boolean ownersUnchanged(CatalogSnapshot current) {
+        Map<Long, ProductOwnerDTO> held = current.owners();
+        int found = 0;
+        for (ProductOwner owner : productOwnerRepository.findAllById(held.keySet())) {
+            ProductOwnerDTO before = held.get(owner.getProductOwnerId());
+            if (before == null
+                    || !Objects.equals(before.getProductOwnerName(), owner.getProductOwnerName())
+                    || !Objects.equals(before.getProductOwnerEmail(), owner.getProductOwnerEmail())
+                    || before.getProductOwnerNumber() != owner.getProductOwnerNumber()) {
+                return false;
+            }
+            found++;
+        }
+        return found == held.size();
+    }
+
+    private Map<Long, ProductOwnerDTO> loadOwners(List<Map<String, Object>> rows) {
+        Set<Long> ownerIds = rows.stream()
+                                 .map(row -> (Long) row.get("productOwner"))
+                                 .filter(Objects::nonNull)
+                                 .collect(Collectors.toCollection(LinkedHashSet::new));
+        Map<Long, ProductOwnerDTO> owners = new HashMap<>();
+        for (ProductOwner owner : productOwnerRepository.findAllById(ownerIds)) {
+            owners.put(owner.getProductOwnerId(), ProductOwnerDTO.of(owner));
+        }
+        return owners;
+    }
+}
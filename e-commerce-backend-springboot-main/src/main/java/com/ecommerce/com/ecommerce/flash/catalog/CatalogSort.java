@@ -0,0 +1,55 @@
+package com.ecommerce.com.ecommerce.flash.catalog;
+
+import java.util.Locale;
+
+// ?sort= for browse queries: id, price, stock or name, descending with a leading '-' (e.g. -price)
+public class CatalogSort {
+
+    public enum Key {
+        ID("p.id"), PRICE("p.price"), STOCK("p.stock"), NAME("p.name");
+
+        private final String column;
+
+        Key(String column) {
+            this.column = column;
+        }
+    }
+
+    private final Key key;
+    private final boolean descending;
+
+    private CatalogSort(Key key, boolean descending) {
+        this.key = key;
+        this.descending = descending;
+    }
+
+    // null when the parameter is absent; throws IllegalArgumentException for anything else unknown
+    public static CatalogSort parse(String param) {
+        if (param == null) {
+            return null;
+        }
+        String value = param.trim();
+        boolean descending = value.startsWith("-");
+        String name = (descending ? value.substring(1) : value).toUpperCase(Locale.ROOT);
+        for (Key key : Key.values()) {
+            if (key.name().equals(name)) {
+                return new CatalogSort(key, descending);
+            }
+        }
+        throw new IllegalArgumentException("sort must be one of id, price, stock, name (prefix - for descending)");
+    }
+
+    public Key key() {
+        return key;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    // ORDER BY clause for the database fallback; ties are broken by id, in the same direction
+    public String orderBy() {
+        String direction = descending ? " DESC" : "";
+        return key == Key.ID ? key.column + direction : key.column + direction + ", p.id" + direction;
+    }
+}
@@ -0,0 +1,151 @@
+package com.ecommerce.com.ecommerce.flash.catalog;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.http.MediaType;
+
+// One response body serialized once (JSON, CBOR or Smile) and compressed once per content coding
+public class EncodedResponse {
+
+    public enum Coding {
+        IDENTITY(null), GZIP("gzip"), DEFLATE("deflate");
+
+        private final String header;
+
+        Coding(String header) {
+            this.header = header;
+        }
+
+        // Content-Encoding value; null for identity
+        public String header() {
+            return header;
+        }
+    }
+
+    private final Object body;
+    private final MediaType contentType;
+    private final byte[] identity;
+    private final byte[] gzip;
+    private final byte[] deflate;
+    // Opaque part of the entity tags; each coding is a different representation with its own tag
+    private final String hash;
+
+    public EncodedResponse(Object body, MediaType contentType, byte[] identity) {
+        this.body = body;
+        this.contentType = contentType;
+        this.identity = identity;
+        this.gzip = compress(identity, true);
+        this.deflate = compress(identity, false);
+        this.hash = sha256(identity).substring(0, 32);
+    }
+
+    public byte[] body(Coding coding) {
+        switch (coding) {
+            case GZIP:
+                return gzip;
+            case DEFLATE:
+                return deflate;
+            default:
+                return identity;
+        }
+    }
+
+    // The value the bytes were rendered from, for responses composed of cached parts (batch reads)
+    public Object body() {
+        return body;
+    }
+
+    public MediaType contentType() {
+        return contentType;
+    }
+
+    // Strong tag of the representation in the given coding
+    public String etag(Coding coding) {
+        return "\"" + hash + (coding.header() != null ? "-" + coding.header() : "") + "\"";
+    }
+
+    // Whether an If-None-Match header matches the representation in the given coding: "*", or any tag
+    // in the list under the weak comparison RFC 9110 prescribes for If-None-Match (W/ is ignored)
+    public boolean matches(String ifNoneMatch, Coding coding) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        if (ifNoneMatch.trim().equals("*")) {
+            return true;
+        }
+        String etag = etag(coding);
+        int at = 0;
+        int length = ifNoneMatch.length();
+        while (at < length) {
+            char c = ifNoneMatch.charAt(at);
+            if (c == ',' || Character.isWhitespace(c)) {
+                at++;
+                continue;
+            }
+            if (ifNoneMatch.startsWith("W/", at)) {
+                at += 2;
+            }
+            if (at >= length || ifNoneMatch.charAt(at) != '"') {
+                // Not a list of entity tags; treat it as matching nothing
+                return false;
+            }
+            int end = ifNoneMatch.indexOf('"', at + 1);
+            if (end < 0) {
+                return false;
+            }
+            if (ifNoneMatch.regionMatches(at, etag, 0, etag.length()) && end + 1 - at == etag.length()) {
+                return true;
+            }
+            at = end + 1;
+        }
+        return false;
+    }
+
+    // Best coding the client accepts: gzip, then deflate, then identity. Codings listed with q=0 are refused.
+    public static Coding negotiate(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return Coding.IDENTITY;
+        }
+        boolean gzip = false;
+        boolean deflate = false;
+        for (String part : acceptEncoding.split(",")) {
+            String[] fields = part.trim().split(";");
+            String name = fields[0].trim().toLowerCase();
+            boolean refused = fields.length > 1 && fields[1].trim().matches("q=0(\\.0*)?");
+            if (refused) {
+                continue;
+            }
+            if (name.equals("gzip") || name.equals("*")) {
+                gzip = true;
+            } else if (name.equals("deflate")) {
+                deflate = true;
+            }
+        }
+        return gzip ? Coding.GZIP : deflate ? Coding.DEFLATE : Coding.IDENTITY;
+    }
+
+    private static byte[] compress(byte[] data, boolean gzip) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+        try (DeflaterOutputStream stream = gzip ? new GZIPOutputStream(out) : new DeflaterOutputStream(out)) {
+            stream.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.ecommerce.com.ecommerce.flash.catalog;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.ecommerce.com.ecommerce.flash.dao.OrderDao;
+import com.ecommerce.com.ecommerce.flash.dao.ProductDao;
+import com.ecommerce.com.ecommerce.flash.dto.OrderSummaryDTO;
+import com.ecommerce.com.ecommerce.flash.dto.ProductDTO;
+import com.ecommerce.com.ecommerce.flash.dto.ProductOwnerDTO;
+import com.ecommerce.com.ecommerce.flash.dto.ProductPageDTO;
+import com.ecommerce.com.ecommerce.flash.service.ProductService;
+import com.ecommerce.com.ecommerce.flash.util.FieldSelection;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// Builds the product detail page (GET /api/products/{id}/page) from independent loads running at the
+// same time on a bounded pool: the product (which carries its seller), then the seller's other
+// products, and the caller's cart alongside both. Each load has its own timeout; the product is
+// required, the others are left out of the page (and named in unavailable) when they fail.
+// A timeout only stops waiting: a load that overruns keeps its pool thread until the query returns
+// (CompletableFuture cannot interrupt it, and a JDBC call would not notice), so slow loads are bounded
+// by the pool and its queue, not by the timeout.
+@Service
+public class ProductPageService {
+
+    // What a seller's other products show on the page
+    private static final FieldSelection SELLER_PRODUCT_FIELDS =
+            FieldSelection.parse("id,name,price,thumbnail", ProductDao.SPARSE_FIELDS);
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private OrderDao orderDao;
+
+    // 0 uses the number of CPUs
+    @Value("${flash.catalog.page.threads:0}")
+    private int threads;
+
+    @Value("${flash.catalog.page.queue:256}")
+    private int queueCapacity;
+
+    @Value("${flash.catalog.page.branch-timeout-ms:1000}")
+    private long branchTimeoutMs;
+
+    @Value("${flash.catalog.page.seller-products:12}")
+    private int sellerProductLimit;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger count = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "product-page-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    // Empty when the product does not exist; fails with a TimeoutException when the product itself
+    // cannot be loaded in time. userId is null for callers without a cart.
+    // Throws RejectedExecutionException when the pool's queue is full.
+    public CompletableFuture<Optional<ProductPageDTO>> load(Long productId, Long userId) {
+        CompletableFuture<Optional<ProductDTO>> product = CompletableFuture
+                .supplyAsync(() -> productService.getProductDTO(productId), executor)
+                .orTimeout(branchTimeoutMs, TimeUnit.MILLISECONDS);
+        List<String> unavailable = Collections.synchronizedList(new ArrayList<>());
+        CompletableFuture<List<OrderSummaryDTO>> cart = userId == null ? CompletableFuture.completedFuture(null)
+                : branch("cart", () -> orderDao.getOrderSummariesByUserIdAndStatus(userId, "In Cart"), unavailable);
+        return product.thenCompose(found -> {
+            if (found.isEmpty()) {
+                return CompletableFuture.completedFuture(Optional.empty());
+            }
+            ProductDTO dto = found.get();
+            ProductOwnerDTO owner = dto.getProductOwner();
+            CompletableFuture<List<Map<String, Object>>> sellerProducts = owner == null
+                    ? CompletableFuture.completedFuture(List.of())
+                    : branch("sellerProducts", () -> productService.getSellerProductFields(owner.getProductOwnerId(),
+                            productId, sellerProductLimit, SELLER_PRODUCT_FIELDS), unavailable);
+            return sellerProducts.thenCombine(cart, (others, items) -> Optional.of(new ProductPageDTO(withoutOwner(dto),
+                    owner, others, items, List.copyOf(unavailable))));
+        });
+    }
+
+    // The page shows the seller once, at the top level, not again inside the product.
+    // A copy, since the loaded DTO may be shared through the product cache.
+    private static ProductDTO withoutOwner(ProductDTO dto) {
+        ProductDTO copy = new ProductDTO();
+        copy.setId(dto.getId());
+        copy.setName(dto.getName());
+        copy.setDescription(dto.getDescription());
+        copy.setPrice(dto.getPrice());
+        copy.setStock(dto.getStock());
+        copy.setCategory(dto.getCategory());
+        copy.setAvailable(dto.isAvailable());
+        copy.setProductSizes(dto.getProductSizes());
+        copy.setProductColors(dto.getProductColors());
+        copy.setProductImageBase64(dto.getProductImageBase64());
+        copy.setApproved(dto.isApproved());
+        return copy;
+    }
+
+    // An optional part of the page: null (and named in unavailable) if it fails, times out or cannot be queued
+    private <T> CompletableFuture<T> branch(String name, Supplier<T> loader, List<String> unavailable) {
+        CompletableFuture<T> future;
+        try {
+            future = CompletableFuture.supplyAsync(loader, executor);
+        } catch (RejectedExecutionException e) {
+            unavailable.add(name);
+            return CompletableFuture.completedFuture(null);
+        }
+        return future.orTimeout(branchTimeoutMs, TimeUnit.MILLISECONDS).handle((value, error) -> {
+            if (error != null) {
+                System.err.println("Product page part " + name + " unavailable: " + error);
+                unavailable.add(name);
+                return null;
+            }
+            return value;
+        });
+    }
+}
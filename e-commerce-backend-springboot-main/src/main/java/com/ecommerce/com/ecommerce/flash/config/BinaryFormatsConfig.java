@@ -0,0 +1,42 @@
+package com.ecommerce.com.ecommerce.flash.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORGenerator;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+
+// Binary encodings for clients that ask for them with Accept (responses) or Content-Type (request
+// bodies): application/cbor and application/x-jackson-smile. JSON stays the default. Both mappers
+// start from the application's Jackson settings so every format carries the same properties.
+@Configuration
+public class BinaryFormatsConfig {
+
+    // CBOR string references (tag 256/25) are an extension; clients must support them to decode
+    @Value("${flash.api.cbor.string-refs:true}")
+    private boolean cborStringRefs;
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        CBORFactory factory = CBORFactory.builder()
+                                         .configure(CBORGenerator.Feature.STRINGREF, cborStringRefs)
+                                         .build();
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(factory).build());
+    }
+
+    // Smile back-references repeated property names and short string values (category, color, status, ...)
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        SmileFactory factory = SmileFactory.builder()
+                                           .enable(SmileGenerator.Feature.CHECK_SHARED_NAMES)
+                                           .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                                           .build();
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(factory).build());
+    }
+}
@@ -1,28 +1,48 @@
 package com.ecommerce.com.ecommerce.flash.config;
+import java.util.Arrays;
+
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
 @Configuration
 public class CorsConfig {
 
+    // Front ends allowed to call the API
+    public static final String[] ALLOWED_ORIGINS = {
+        "http://localhost:3000",
+        "http://localhost:3001",
+        "http://localhost:3002",
+        "http://localhost:5173",
+        "http://localhost:5174"
+    };
+
+    // For responses written by servlet filters, which run before the MVC CORS handling:
+    // let an allowed front end read the response and its Retry-After header
+    public static void allowRejectionResponse(HttpServletRequest request, HttpServletResponse response) {
+        String origin = request.getHeader(HttpHeaders.ORIGIN);
+        if (origin != null && Arrays.asList(ALLOWED_ORIGINS).contains(origin)) {
+            response.setHeader(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN, origin);
+            response.setHeader(HttpHeaders.ACCESS_CONTROL_ALLOW_CREDENTIALS, "true");
+            response.setHeader(HttpHeaders.ACCESS_CONTROL_EXPOSE_HEADERS, HttpHeaders.RETRY_AFTER);
+        }
+    }
+
     @Bean
     public WebMvcConfigurer corsConfigurer() {
         return new WebMvcConfigurer() {
             @Override
             public void addCorsMappings(CorsRegistry registry) {
                 registry.addMapping("/**")
-                        .allowedOrigins(
-                            "http://localhost:3000", 
-                            "http://localhost:3001", 
-                            "http://localhost:3002",
-                            "http://localhost:5173",
-                            "http://localhost:5174"
-                        )
+                        .allowedOrigins(ALLOWED_ORIGINS)
                         .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH")
                         .allowedHeaders("*")
-                        .exposedHeaders("Authorization", "X-User-ID")
+                        .exposedHeaders("Authorization", "X-User-ID", "Idempotent-Replayed")
                         .allowCredentials(true)
                         .maxAge(3600); // 1 hour
             }
@@ -0,0 +1,10 @@
+package com.ecommerce.com.ecommerce.flash.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Enables @Scheduled background jobs (inventory flush, reservation expiry, ...)
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
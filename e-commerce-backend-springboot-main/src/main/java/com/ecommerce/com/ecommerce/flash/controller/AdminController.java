@@ -2,7 +2,10 @@ package com.ecommerce.com.ecommerce.flash.controller;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -20,8 +23,12 @@ public class AdminController {
     // Create a new admin
     @PostMapping
     public ResponseEntity<?> createAdmin(@RequestBody Admin admin) {
-        Admin savedAdmin = adminDao.createAdmin(admin);
-        return ResponseEntity.ok(savedAdmin);
+        try {
+            Admin savedAdmin = adminDao.createAdmin(admin);
+            return ResponseEntity.ok(savedAdmin);
+        } catch (RejectedExecutionException e) {
+            return busyResponse();
+        }
     }
 
     // Get all admins
@@ -45,7 +52,12 @@ public class AdminController {
     // Update admin by id
     @PutMapping("/{id}")
     public ResponseEntity<?> updateAdmin(@PathVariable Long id, @RequestBody Admin adminDetails) {
-        Admin updatedAdmin = adminDao.updateAdmin(id, adminDetails);
+        Admin updatedAdmin;
+        try {
+            updatedAdmin = adminDao.updateAdmin(id, adminDetails);
+        } catch (RejectedExecutionException e) {
+            return busyResponse();
+        }
         if (updatedAdmin != null) {
             return ResponseEntity.ok(updatedAdmin);
         } else {
@@ -64,4 +76,10 @@ public class AdminController {
             return ResponseEntity.status(404).body("Admin not found with id: " + id);
         }
     }
+
+    // Too many password hashes queued; the client should retry shortly
+    private static ResponseEntity<?> busyResponse() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "1")
+                             .body("Too many password changes in progress, please retry");
+    }
 }
@@ -0,0 +1,97 @@
+package com.ecommerce.com.ecommerce.flash.controller;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import com.ecommerce.com.ecommerce.flash.analytics.StatsRollupService;
+import com.ecommerce.com.ecommerce.flash.dto.AdminStatsDTO;
+import com.ecommerce.com.ecommerce.flash.entity.StatsRollup;
+
+@RestController
+@RequestMapping("/api/admin/stats")
+@CrossOrigin(origins = {"http://localhost:5173", "http://localhost:5174"}, allowCredentials = "true")
+public class AdminStatsController {
+
+    // Widest range a single request may ask for, in days
+    private static final int MAX_HOUR_RANGE_DAYS = 31;
+    private static final int MAX_DAY_RANGE_DAYS = 366;
+
+    @Autowired
+    private StatsRollupService statsRollupService;
+
+    // Orders by status, sales by category and owner, new products by status.
+    // Dates are ISO (yyyy-MM-dd) and inclusive; the default range is the last 30 days.
+    @GetMapping
+    public ResponseEntity<?> getStats(@RequestParam(defaultValue = "DAY") String granularity,
+                                      @RequestParam(required = false) String from,
+                                      @RequestParam(required = false) String to,
+                                      @RequestParam(required = false) String dimension) {
+        StatsRollup.Granularity bucketSize;
+        StatsRollup.Dimension onlyDimension;
+        LocalDate fromDay;
+        LocalDate toDay;
+        try {
+            bucketSize = StatsRollup.Granularity.valueOf(granularity.toUpperCase());
+            onlyDimension = dimension != null ? StatsRollup.Dimension.valueOf(dimension.toUpperCase()) : null;
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("granularity must be HOUR or DAY and dimension one of "
+                    + "ORDER_STATUS, CATEGORY, OWNER, PRODUCT_STATUS");
+        }
+        try {
+            toDay = to != null ? LocalDate.parse(to) : LocalDate.now();
+            fromDay = from != null ? LocalDate.parse(from) : toDay.minusDays(29);
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().body("Dates must be formatted as yyyy-MM-dd");
+        }
+        int maxDays = bucketSize == StatsRollup.Granularity.HOUR ? MAX_HOUR_RANGE_DAYS : MAX_DAY_RANGE_DAYS;
+        if (fromDay.isAfter(toDay) || fromDay.plusDays(maxDays).isBefore(toDay.plusDays(1))) {
+            return ResponseEntity.badRequest().body("Range must be between 1 and " + maxDays + " days for "
+                    + bucketSize + " buckets");
+        }
+
+        LocalDateTime start = fromDay.atStartOfDay();
+        LocalDateTime end = toDay.plusDays(1).atStartOfDay();
+        try {
+            List<StatsRollup> buckets = statsRollupService.getBuckets(bucketSize, start, end, onlyDimension);
+            Map<StatsRollup.Dimension, Map<String, AdminStatsDTO.Totals>> totals = new EnumMap<>(StatsRollup.Dimension.class);
+            for (StatsRollup bucket : buckets) {
+                totals.computeIfAbsent(bucket.getDimension(), d -> new TreeMap<>())
+                      .computeIfAbsent(bucket.getDimensionKey(), k -> new AdminStatsDTO.Totals())
+                      .add(bucket);
+            }
+            AdminStatsDTO stats = new AdminStatsDTO();
+            stats.setGranularity(bucketSize);
+            stats.setFrom(start);
+            stats.setTo(end);
+            stats.setTotals(totals);
+            stats.setBuckets(buckets);
+            return ResponseEntity.ok(stats);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                               .body("Error fetching stats: " + e.getMessage());
+        }
+    }
+
+    // Rebuild all rollups from the orders and products tables
+    @PostMapping("/backfill")
+    public ResponseEntity<?> backfill() {
+        try {
+            int buckets = statsRollupService.backfill();
+            return ResponseEntity.ok("Rebuilt " + buckets + " stats buckets.");
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                               .body("Error rebuilding stats: " + e.getMessage());
+        }
+    }
+}
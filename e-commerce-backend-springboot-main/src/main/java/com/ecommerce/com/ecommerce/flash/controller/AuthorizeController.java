@@ -3,18 +3,20 @@ package com.ecommerce.com.ecommerce.flash.controller;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import com.ecommerce.com.ecommerce.flash.dao.AdminDao;
-import com.ecommerce.com.ecommerce.flash.dao.ProductOwnerDao;
-import com.ecommerce.com.ecommerce.flash.dao.UserDao;
-import com.ecommerce.com.ecommerce.flash.entity.Admin;
-import com.ecommerce.com.ecommerce.flash.entity.ProductOwner;
-import com.ecommerce.com.ecommerce.flash.entity.User;
+import com.ecommerce.com.ecommerce.flash.entity.Principal;
+import com.ecommerce.com.ecommerce.flash.security.PrincipalService;
+import com.ecommerce.com.ecommerce.flash.security.TokenService;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -22,54 +24,69 @@ import com.ecommerce.com.ecommerce.flash.entity.User;
 public class AuthorizeController {
 
     @Autowired
-    private UserDao userDao;
+    private PrincipalService principalService;
 
     @Autowired
-    private ProductOwnerDao productOwnerDao;
-    
-    @Autowired
-    private AdminDao adminDao; // Make sure AdminDao is annotated with @Repository (or @Component)
+    private TokenService tokenService;
+
+    @Value("${flash.auth.login-timeout-ms:5000}")
+    private long loginTimeoutMs;
 
+    // One lookup in the login index, then the password check on the hashing pool; the request
+    // thread is released while the hash runs
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody Map<String, String> loginData) {
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody Map<String, String> loginData) {
         String email = loginData.get("email");
         String password = loginData.get("password");
 
-        // Check if it's a normal user
-        Optional<User> user = userDao.getUserByEmail(email);
-        if (user.isPresent() && user.get().getPassword().equals(password)) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("token", user.get().getId().toString());
-            response.put("userId", user.get().getId().toString());
-            response.put("type", "USER");
-            response.put("message", "User login successful");
-            return ResponseEntity.ok(response);
+        CompletableFuture<Optional<Principal>> match;
+        try {
+            match = principalService.authenticate(email, password);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(busyResponse());
         }
+        return match.orTimeout(loginTimeoutMs, TimeUnit.MILLISECONDS)
+                    .<ResponseEntity<?>>thenApply(principal -> principal.isPresent()
+                            ? ResponseEntity.ok(loginResponse(principal.get()))
+                            : invalidCredentials())
+                    .exceptionally(e -> e instanceof TimeoutException || e.getCause() instanceof TimeoutException
+                            ? busyResponse()
+                            : ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error logging in: " + e.getMessage()));
+    }
 
-        // Check if it's a product owner
-        Optional<ProductOwner> productOwner = productOwnerDao.getProductOwnerByEmail(email);
-        if (productOwner.isPresent() && productOwner.get().getProductOwnerPassword().equals(password)) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("token", productOwner.get().getProductOwnerId().toString());
-            response.put("userId", productOwner.get().getProductOwnerId().toString());
-            response.put("type", "PRODUCT_OWNER");
-            response.put("message", "Product Owner login successful");
-            return ResponseEntity.ok(response);
-        }
-        
-        // Check if it's an admin
-        Optional<Admin> admin = Optional.ofNullable(adminDao.findByEmailAdmin(email));
-        if (admin.isPresent() && admin.get().getAdminPassword().equals(password)) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("token", admin.get().getAdminId());
-            response.put("userId", admin.get().getAdminId());
-            response.put("type", "ADMIN");
-            response.put("message", "Admin login successful");
-            return ResponseEntity.ok(response);
+    // The token is sent back as "Authorization: Bearer <token>" on later requests
+    private Map<String, Object> loginResponse(Principal principal) {
+        Map<String, Object> response = new HashMap<>();
+        switch (principal.getAccountType()) {
+            case USER:
+                response.put("userId", principal.getAccountId().toString());
+                response.put("message", "User login successful");
+                break;
+            case PRODUCT_OWNER:
+                response.put("userId", principal.getAccountId().toString());
+                response.put("message", "Product Owner login successful");
+                break;
+            default:
+                response.put("userId", principal.getAccountId());
+                response.put("message", "Admin login successful");
+                break;
         }
+        response.put("token", tokenService.issue(principal));
+        response.put("expiresIn", tokenService.getTtlMs() / 1000);
+        response.put("type", principal.getAccountType().name());
+        return response;
+    }
 
+    private static ResponseEntity<?> invalidCredentials() {
         Map<String, String> error = new HashMap<>();
         error.put("message", "Invalid credentials");
         return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
     }
+
+    // Too many logins waiting for a password check
+    private static ResponseEntity<?> busyResponse() {
+        Map<String, String> error = new HashMap<>();
+        error.put("message", "Too many login attempts in progress, please retry");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "1").body(error);
+    }
 }
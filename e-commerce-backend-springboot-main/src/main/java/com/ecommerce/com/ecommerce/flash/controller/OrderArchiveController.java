@@ -0,0 +1,30 @@
+package com.ecommerce.com.ecommerce.flash.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import com.ecommerce.com.ecommerce.flash.archive.OrderArchiver;
+
+@RestController
+@RequestMapping("/api/admin/archive")
+@CrossOrigin(origins = {"http://localhost:5173", "http://localhost:5174"}, allowCredentials = "true")
+public class OrderArchiveController {
+
+    @Autowired
+    private OrderArchiver orderArchiver;
+
+    // Archive eligible orders now instead of waiting for the nightly run
+    @PostMapping("/run")
+    public ResponseEntity<?> runArchival() {
+        try {
+            int moved = orderArchiver.archiveOldOrders();
+            return ResponseEntity.ok("Archived " + moved + " orders.");
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                               .body("Error archiving orders: " + e.getMessage());
+        }
+    }
+}
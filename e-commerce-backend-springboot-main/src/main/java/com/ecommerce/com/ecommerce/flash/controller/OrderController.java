@@ -1,17 +1,31 @@
 package com.ecommerce.com.ecommerce.flash.controller;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
 import java.time.LocalDateTime;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import com.ecommerce.com.ecommerce.flash.dao.OrderDao;
+import com.ecommerce.com.ecommerce.flash.dto.OrderDetailDTO;
+import com.ecommerce.com.ecommerce.flash.dto.OrderSummaryDTO;
 import com.ecommerce.com.ecommerce.flash.entity.Order;
+import com.ecommerce.com.ecommerce.flash.idempotency.IdempotencyService;
+import com.ecommerce.com.ecommerce.flash.intake.IntakeStatus;
+import com.ecommerce.com.ecommerce.flash.intake.OrderIntakeQueue;
+import com.ecommerce.com.ecommerce.flash.inventory.InventoryEngine;
+import com.ecommerce.com.ecommerce.flash.inventory.Reservation;
+import com.ecommerce.com.ecommerce.flash.service.OrderService;
+import com.ecommerce.com.ecommerce.flash.util.FieldSelection;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 @RestController
 @CrossOrigin(origins = {"http://localhost:3000", "http://localhost:3001", "http://localhost:3002"}, allowCredentials = "true")
@@ -20,6 +34,21 @@ public class OrderController {
 
     @Autowired
     private OrderDao orderDao;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private InventoryEngine inventoryEngine;
+
+    @Autowired
+    private OrderIntakeQueue orderIntakeQueue;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
     
     // ----------------------------
     // Cart Endpoints
@@ -27,7 +56,13 @@ public class OrderController {
     
     // Add an item to the cart (creates an order with status "In Cart")
     @PostMapping("/cart")
-    public ResponseEntity<?> addToCart(@RequestBody Order order) {
+    public ResponseEntity<?> addToCart(@RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+                                       @RequestBody Order order) {
+        return idempotencyService.execute("POST /api/cart", idempotencyKey, fingerprint(order),
+                                          () -> doAddToCart(order));
+    }
+
+    private ResponseEntity<?> doAddToCart(Order order) {
         try {
             // Validate required fields
             if (order.getProduct() == null || order.getProduct().getId() == null) {
@@ -47,7 +82,7 @@ public class OrderController {
             order.setOrderDate(LocalDateTime.now());
 
             Order savedOrder = orderDao.placeOrder(order);
-            return ResponseEntity.ok(savedOrder);
+            return detailResponse(savedOrder.getId());
         } catch (Exception e) {
             e.printStackTrace(); // Log the full stack trace
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -59,10 +94,7 @@ public class OrderController {
     @GetMapping("/cart/user/{userId}")
     public ResponseEntity<?> getCartItemsByUser(@PathVariable Long userId) {
         try {
-            List<Order> orders = orderDao.getOrdersByUserId(userId);
-            List<Order> cartItems = orders.stream()
-                                        .filter(o -> "In Cart".equals(o.getStatus()))
-                                        .collect(Collectors.toList());
+            List<OrderSummaryDTO> cartItems = orderDao.getOrderSummariesByUserIdAndStatus(userId, "In Cart");
             return ResponseEntity.ok(cartItems);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -70,20 +102,21 @@ public class OrderController {
         }
     }
     
-    // Update cart item quantity
+    // Update cart item quantity. Placed orders take or return the difference in stock.
     @PutMapping("/cart/{orderId}")
     public ResponseEntity<?> updateCartItem(@PathVariable Long orderId, @RequestBody Order updatedOrder) {
+        if (updatedOrder.getQuantity() == null || updatedOrder.getQuantity() < 1) {
+            return ResponseEntity.badRequest().body("Quantity must be at least 1");
+        }
         try {
-            Optional<Order> existingOrder = orderDao.getOrderById(orderId);
-            if (existingOrder.isPresent()) {
-                Order order = existingOrder.get();
-                order.setQuantity(updatedOrder.getQuantity());
-                Order savedOrder = orderDao.updateOrder(order);
-                return ResponseEntity.ok(savedOrder);
+            if (orderService.updateOrderQuantity(orderId, updatedOrder.getQuantity())) {
+                return detailResponse(orderId);
             } else {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND)
                                    .body("Cart item not found with id: " + orderId);
             }
+        } catch (OptimisticLockingFailureException | IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                                .body("Error updating cart item: " + e.getMessage());
@@ -94,9 +127,7 @@ public class OrderController {
     @DeleteMapping("/cart/{orderId}")
     public ResponseEntity<?> removeFromCart(@PathVariable Long orderId) {
         try {
-            Optional<Order> orderOptional = orderDao.getOrderById(orderId);
-            if (orderOptional.isPresent()) {
-                orderDao.deleteOrder(orderId);
+            if (orderService.deleteOrder(orderId)) {
                 return ResponseEntity.ok("Item removed from cart.");
             } else {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -112,15 +143,7 @@ public class OrderController {
     @DeleteMapping("/cart/clear/{userId}")
     public ResponseEntity<?> clearCart(@PathVariable Long userId) {
         try {
-            List<Order> cartItems = orderDao.getOrdersByUserId(userId)
-                                          .stream()
-                                          .filter(o -> "In Cart".equals(o.getStatus()))
-                                          .collect(Collectors.toList());
-            
-            for (Order item : cartItems) {
-                orderDao.deleteOrder(item.getId());
-            }
-            
+            orderService.clearCart(userId);
             return ResponseEntity.ok("Cart cleared successfully.");
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -134,7 +157,13 @@ public class OrderController {
     
     // Place an order (for immediate purchase)
     @PostMapping("/orders")
-    public ResponseEntity<?> placeOrder(@RequestBody Order order) {
+    public ResponseEntity<?> placeOrder(@RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+                                        @RequestBody Order order) {
+        return idempotencyService.execute("POST /api/orders", idempotencyKey, fingerprint(order),
+                                          () -> doPlaceOrder(order));
+    }
+
+    private ResponseEntity<?> doPlaceOrder(Order order) {
         try {
             // Validate required fields
             if (order.getProduct() == null || order.getProduct().getId() == null) {
@@ -167,8 +196,38 @@ public class OrderController {
                 order.setStatus("PENDING");
             }
 
-            Order savedOrder = orderDao.placeOrder(order);
-            return ResponseEntity.ok(savedOrder);
+            // Take the units before saving so concurrent checkouts cannot oversell
+            Reservation reservation = inventoryEngine.reserve(order.getProduct().getId(), order.getQuantity());
+            if (reservation == null) {
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                                   .body("Insufficient stock for product: " + order.getProduct().getId());
+            }
+
+            // Asynchronous intake: queue the order and let the client poll for the final id
+            if (orderIntakeQueue.isEnabled()) {
+                IntakeStatus status = orderIntakeQueue.submit(order, reservation);
+                if (status == null) {
+                    inventoryEngine.release(reservation);
+                    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                                       .header("Retry-After", "1")
+                                       .body("Order intake is busy, please retry");
+                }
+                return ResponseEntity.accepted().body(status);
+            }
+
+            Order savedOrder;
+            try {
+                savedOrder = orderDao.placeOrder(order);
+            } catch (Exception e) {
+                inventoryEngine.release(reservation);
+                throw e;
+            }
+            if (!inventoryEngine.confirm(reservation)) {
+                orderDao.deleteOrder(savedOrder.getId());
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                                   .body("Insufficient stock for product: " + order.getProduct().getId());
+            }
+            return detailResponse(savedOrder.getId());
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -176,13 +235,35 @@ public class OrderController {
         }
     }
     
+    // Get the result of an order accepted by the asynchronous intake.
+    // With waitMs the request is held until the order settles or the wait runs out.
+    @GetMapping("/orders/intake/{token}")
+    public DeferredResult<ResponseEntity<?>> getIntakeStatus(@PathVariable String token,
+                                                             @RequestParam(value = "waitMs", defaultValue = "0") long waitMs) {
+        long timeout = Math.min(Math.max(waitMs, 0), 30000);
+        IntakeStatus status = orderIntakeQueue.getStatus(token);
+        DeferredResult<ResponseEntity<?>> result = new DeferredResult<>(timeout > 0 ? timeout : null);
+        if (status == null) {
+            result.setResult(ResponseEntity.status(HttpStatus.NOT_FOUND)
+                                           .body("No queued order with token: " + token));
+            return result;
+        }
+        if (timeout == 0 || status.getState() != IntakeStatus.State.QUEUED) {
+            result.setResult(ResponseEntity.ok(status));
+            return result;
+        }
+        result.onTimeout(() -> result.setResult(ResponseEntity.ok(status)));
+        status.getCompletion().thenAccept(done -> result.setResult(ResponseEntity.ok(done)));
+        return result;
+    }
+    
     // Get a single order by id
     @GetMapping("/orders/{orderId}")
-    public ResponseEntity<?> getOrderById(@PathVariable Long orderId) {
+    public ResponseEntity<?> getOrderById(@PathVariable Long orderId, @RequestParam(required = false) String fields) {
         try {
-            Optional<Order> orderOpt = orderDao.getOrderById(orderId);
+            Optional<OrderDetailDTO> orderOpt = orderDao.getOrderDetail(orderId);
             if (orderOpt.isPresent()) {
-                return ResponseEntity.ok(orderOpt.get());
+                return withFields(orderOpt.get(), fields, OrderDetailDTO.FIELDS);
             } else {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND)
                                    .body("Order not found with id: " + orderId);
@@ -195,10 +276,10 @@ public class OrderController {
     
     // Get orders for a user (all orders, regardless of status)
     @GetMapping("/orders/user/{userId}")
-    public ResponseEntity<?> getOrdersByUser(@PathVariable Long userId) {
+    public ResponseEntity<?> getOrdersByUser(@PathVariable Long userId, @RequestParam(required = false) String fields) {
         try {
-            List<Order> orders = orderDao.getOrdersByUserId(userId);
-            return ResponseEntity.ok(orders);
+            List<OrderSummaryDTO> orders = orderDao.getOrderSummariesByUserId(userId);
+            return withFields(orders, fields, OrderSummaryDTO.FIELDS);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                                .body("Error fetching orders: " + e.getMessage());
@@ -207,10 +288,11 @@ public class OrderController {
     
     // Get orders for a product owner
     @GetMapping("/orders/owner/{productOwnerId}")
-    public ResponseEntity<?> getOrdersByProductOwner(@PathVariable Long productOwnerId) {
+    public ResponseEntity<?> getOrdersByProductOwner(@PathVariable Long productOwnerId,
+                                                     @RequestParam(required = false) String fields) {
         try {
-            List<Order> orders = orderDao.getOrdersByProductOwnerId(productOwnerId);
-            return ResponseEntity.ok(orders);
+            List<OrderSummaryDTO> orders = orderDao.getOrderSummariesByProductOwnerId(productOwnerId);
+            return withFields(orders, fields, OrderSummaryDTO.FIELDS);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                                .body("Error fetching orders: " + e.getMessage());
@@ -221,15 +303,15 @@ public class OrderController {
     @PutMapping("/orders/{orderId}")
     public ResponseEntity<?> updateOrderStatus(@PathVariable Long orderId, @RequestBody Order updatedOrder) {
         try {
-            Optional<Order> existingOrderOpt = orderDao.getOrderById(orderId);
-            if (existingOrderOpt.isPresent()) {
-                Order existingOrder = existingOrderOpt.get();
-                existingOrder.setStatus(updatedOrder.getStatus());
-                Order savedOrder = orderDao.updateOrder(existingOrder);
-                return ResponseEntity.ok(savedOrder);
+            if (orderService.updateOrderStatus(orderId, updatedOrder.getStatus())) {
+                return detailResponse(orderId);
+            } else if (orderDao.isArchived(orderId)) {
+                return archivedResponse(orderId);
             } else {
                 return ResponseEntity.notFound().build();
             }
+        } catch (OptimisticLockingFailureException | IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                                .body("Error updating order: " + e.getMessage());
@@ -240,10 +322,10 @@ public class OrderController {
     @DeleteMapping("/orders/{orderId}")
     public ResponseEntity<?> cancelOrder(@PathVariable Long orderId) {
         try {
-            Optional<Order> orderOptional = orderDao.getOrderById(orderId);
-            if (orderOptional.isPresent()) {
-                orderDao.deleteOrder(orderId);
+            if (orderService.deleteOrder(orderId)) {
                 return ResponseEntity.ok("Order cancelled successfully.");
+            } else if (orderDao.isArchived(orderId)) {
+                return archivedResponse(orderId);
             } else {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND)
                                    .body("Order not found with id: " + orderId);
@@ -256,14 +338,50 @@ public class OrderController {
 
     // Add a new endpoint to get all orders
     @GetMapping("/orders")
-    public ResponseEntity<?> getAllOrders() {
+    public ResponseEntity<?> getAllOrders(@RequestParam(required = false) String fields) {
         try {
-            List<Order> orders = orderDao.getAllOrders();
-            return ResponseEntity.ok(orders);
+            List<OrderSummaryDTO> orders = orderDao.getAllOrderSummaries();
+            return withFields(orders, fields, OrderSummaryDTO.FIELDS);
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                                .body("Error fetching orders: " + e.getMessage());
         }
     }
+
+    // Keep only the ?fields= properties of an order response (product.name style for nested ones);
+    // 400 for names not in allowed
+    private ResponseEntity<?> withFields(Object body, String fields, Set<String> allowed) {
+        FieldSelection selection;
+        try {
+            selection = FieldSelection.parse(fields, allowed);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        return ResponseEntity.ok(selection == null ? body : selection.apply(objectMapper, body));
+    }
+
+    // Respond with the lean detail view of an order that was just written
+    private ResponseEntity<?> detailResponse(Long orderId) {
+        Optional<OrderDetailDTO> detail = orderDao.getOrderDetail(orderId);
+        if (detail.isPresent()) {
+            return ResponseEntity.ok(detail.get());
+        }
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Order not found with id: " + orderId);
+    }
+
+    // Archived orders are final; they can be read but not changed
+    private ResponseEntity<?> archivedResponse(Long orderId) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body("Order " + orderId + " is archived and can no longer be changed");
+    }
+
+    // What identifies a cart/order request for idempotency checks (the client-sent fields only)
+    private Map<String, Object> fingerprint(Order order) {
+        Map<String, Object> fingerprint = new HashMap<>();
+        fingerprint.put("productId", order.getProduct() != null ? order.getProduct().getId() : null);
+        fingerprint.put("userId", order.getUser() != null ? order.getUser().getId() : null);
+        fingerprint.put("quantity", order.getQuantity());
+        fingerprint.put("shippingDetails", order.getShippingDetails());
+        return fingerprint;
+    }
 }
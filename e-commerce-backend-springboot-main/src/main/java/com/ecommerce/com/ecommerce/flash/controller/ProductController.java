@@ -9,9 +9,13 @@ import java.util.Base64;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -21,185 +25,220 @@ import com.ecommerce.com.ecommerce.flash.util.FileUploadUtil;
 import java.util.HashMap;
 import java.util.Map;
 
+import com.ecommerce.com.ecommerce.flash.catalog.CatalogResponseCache;
+import com.ecommerce.com.ecommerce.flash.catalog.CatalogSort;
+import com.ecommerce.com.ecommerce.flash.catalog.ProductPageService;
+import com.ecommerce.com.ecommerce.flash.catalog.ProductSuggestIndex;
+import com.ecommerce.com.ecommerce.flash.catalog.ResponseFormat;
 import com.ecommerce.com.ecommerce.flash.dao.ProductDao;
+import com.ecommerce.com.ecommerce.flash.dto.ProductBatchRequest;
+import com.ecommerce.com.ecommerce.flash.dto.ProductDTO;
+import com.ecommerce.com.ecommerce.flash.dto.ProductPageDTO;
+import com.ecommerce.com.ecommerce.flash.entity.Principal;
 import com.ecommerce.com.ecommerce.flash.entity.Product;
-import com.ecommerce.com.ecommerce.flash.entity.ProductOwner;
-import com.ecommerce.com.ecommerce.flash.repository.ProductOwnerRepository;
-import com.ecommerce.com.ecommerce.flash.repository.ProductRepository;
+import com.ecommerce.com.ecommerce.flash.inventory.InventoryEngine;
+import com.ecommerce.com.ecommerce.flash.security.AuthTokenFilter;
+import com.ecommerce.com.ecommerce.flash.security.AuthenticatedPrincipal;
+import com.ecommerce.com.ecommerce.flash.service.ProductService;
+import com.ecommerce.com.ecommerce.flash.util.FieldSelection;
 
 @CrossOrigin(origins = {"http://localhost:5173", "http://localhost:5174", "http://localhost:3000", "http://localhost:3001", "http://localhost:3002"}, allowCredentials = "true")
 @RestController
 @RequestMapping("/api/products")
 public class ProductController {
 
+    // Largest page /approved serves
+    private static final int MAX_PAGE_SIZE = 100;
+
+    @Value("${flash.products.batch.max-ids:100}")
+    private int maxBatchIds;
+
     @Autowired
     private ProductDao productDao;
 
     @Autowired
-    private ProductOwnerRepository productOwnerRepository;
+    private ProductService productService;
 
     @Autowired
-    private ProductRepository productRepository;
-    
-    // DTO for Product Data Transfer
-    public static class ProductDTO {
-        private Long id;
-        private String name;
-        private String description;
-        private double price;
-        private int stock;
-        private String category;
-        private boolean available;
-        private List<String> productSizes;
-        private List<String> productColors;
-        private String productImageBase64;
-        private ProductOwner productOwner;
-        private boolean approved;
+    private InventoryEngine inventoryEngine;
 
-        // Getters and Setters
-        public Long getId() { return id; }
-        public void setId(Long id) { this.id = id; }
-        public String getName() { return name; }
-        public void setName(String name) { this.name = name; }
-        public String getDescription() { return description; }
-        public void setDescription(String description) { this.description = description; }
-        public double getPrice() { return price; }
-        public void setPrice(double price) { this.price = price; }
-        public int getStock() { return stock; }
-        public void setStock(int stock) { this.stock = stock; }
-        public String getCategory() { return category; }
-        public void setCategory(String category) { this.category = category; }
-        public boolean isAvailable() { return available; }
-        public void setAvailable(boolean available) { this.available = available; }
-        public List<String> getProductSizes() { return productSizes; }
-        public void setProductSizes(List<String> productSizes) { this.productSizes = productSizes; }
-        public List<String> getProductColors() { return productColors; }
-        public void setProductColors(List<String> productColors) { this.productColors = productColors; }
-        public String getProductImageBase64() { return productImageBase64; }
-        public void setProductImageBase64(String productImageBase64) { this.productImageBase64 = productImageBase64; }
-        public ProductOwner getProductOwner() { return productOwner; }
-        public void setProductOwner(ProductOwner productOwner) { this.productOwner = productOwner; }
-        public boolean isApproved() { return approved; }
-        public void setApproved(boolean approved) { this.approved = approved; }
-    }
-    
-    // Convert Product -> ProductDTO
-    private ProductDTO convertToDTO(Product product) {
-        ProductDTO dto = new ProductDTO();
-        dto.setId(product.getId());
-        dto.setName(product.getName());
-        dto.setDescription(product.getDescription());
-        dto.setPrice(product.getPrice());
-        dto.setStock(product.getStock());
-        dto.setCategory(product.getCategory());
-        dto.setAvailable(product.isAvailable());
-        dto.setProductSizes(product.getProductSizes());
-        dto.setProductColors(product.getProductColors());
-        dto.setProductOwner(product.getProductOwner());
-        dto.setApproved(product.isApproved());
+    @Autowired
+    private CatalogResponseCache catalogResponseCache;
 
-        // Handle image
-        String imageData = product.getProductImage();
-        if (imageData != null) {
-            System.out.println("Product " + product.getId() + " has image data");
-            
-            // If it's a URL (including Unsplash URLs), use it directly
-            if (imageData.startsWith("http")) {
-                System.out.println("Processing URL: " + imageData);
-                // Add optimization parameters for Unsplash URLs if needed
-                if (imageData.contains("images.unsplash.com") && !imageData.contains("?")) {
-                    imageData += "?w=800&q=80&auto=format&fit=crop";
-                    System.out.println("Added optimization parameters: " + imageData);
-                }
-                dto.setProductImageBase64(imageData);
-            } else {
-                // For any other string, assume it's a base64 string
-                System.out.println("Processing as base64 data");
-                if (!imageData.startsWith("data:")) {
-                    try {
-                        // Verify it's valid base64
-                        Base64.getDecoder().decode(imageData);
-                        dto.setProductImageBase64("data:image/jpeg;base64," + imageData);
-                        System.out.println("Successfully processed base64 data");
-                    } catch (IllegalArgumentException e) {
-                        System.out.println("Invalid base64 data, using placeholder");
-                        dto.setProductImageBase64("data:image/svg+xml,%3Csvg xmlns='http://www.w3.org/2000/svg' width='300' height='300' viewBox='0 0 300 300'%3E%3Crect width='100%25' height='100%25' fill='%23f0f0f0'/%3E%3Ctext x='50%25' y='50%25' dominant-baseline='middle' text-anchor='middle' font-family='Arial' font-size='14' fill='%23666666'%3ENo Image Available%3C/text%3E%3C/svg%3E");
-                    }
-                } else {
-                    // Already has data URL prefix
-                    dto.setProductImageBase64(imageData);
-                }
-            }
-        } else {
-            System.out.println("Product " + product.getId() + " has no image data");
-            dto.setProductImageBase64("data:image/svg+xml,%3Csvg xmlns='http://www.w3.org/2000/svg' width='300' height='300' viewBox='0 0 300 300'%3E%3Crect width='100%25' height='100%25' fill='%23f0f0f0'/%3E%3Ctext x='50%25' y='50%25' dominant-baseline='middle' text-anchor='middle' font-family='Arial' font-size='14' fill='%23666666'%3ENo Image Available%3C/text%3E%3C/svg%3E");
-        }
-        return dto;
-    }
+    @Autowired
+    private ProductPageService productPageService;
+
+    @Autowired
+    private ProductSuggestIndex productSuggestIndex;
     
-    // Fetch All Products
+    // Fetch All Products (only some properties of each with ?fields=id,name,price,thumbnail;
+    // sellers listed once in an owners map with ?shape=normalized)
     @GetMapping
-    public ResponseEntity<List<ProductDTO>> getAllProducts() {
+    public ResponseEntity<?> getAllProducts(@RequestParam(required = false) String fields,
+                                            @RequestParam(required = false) String shape) {
         System.out.println("GET /products endpoint called");
-        List<Product> products = productDao.getAllProducts();
+        FieldSelection selection;
+        try {
+            selection = FieldSelection.parse(fields, ProductDao.SPARSE_FIELDS);
+            if (isNormalized(shape)) {
+                return ResponseEntity.ok(productService.getAllProductsNormalized(selection));
+            }
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        if (selection != null) {
+            return ResponseEntity.ok(productService.getAllProductFields(selection));
+        }
+        List<Product> products = productService.getAllProducts();
         System.out.println("Found " + products.size() + " products");
-        List<ProductDTO> productDTOs = products.stream()
-                                               .map(this::convertToDTO)
-                                               .collect(Collectors.toList());
+        List<ProductDTO> productDTOs = productService.toDTOs(products);
         System.out.println("Converted to DTOs, returning response");
         return ResponseEntity.ok(productDTOs);
     }
     
+    // Type-ahead completions (product names and categories) for what has been typed so far
+    @GetMapping("/suggest")
+    public ResponseEntity<?> suggest(@RequestParam String prefix, @RequestParam(defaultValue = "10") int limit) {
+        if (limit < 1) {
+            return ResponseEntity.badRequest().body("limit must be at least 1");
+        }
+        return ResponseEntity.ok(productSuggestIndex.suggest(prefix, limit));
+    }
+
+    // Fetch several Products in one call (?ids=3,1,2), in request order with explicit misses
+    @GetMapping("/batch")
+    public ResponseEntity<?> getProductBatch(@RequestParam List<Long> ids, @RequestParam(required = false) String fields) {
+        return batchResponse(ids, fields);
+    }
+
+    // Same as GET /batch, for id lists too long for a URL
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+            "application/x-jackson-smile"})
+    public ResponseEntity<?> postProductBatch(@RequestBody ProductBatchRequest request) {
+        return batchResponse(request.getIds(), request.getFields());
+    }
+
     // Fetch Product by ID
     @GetMapping("/{id}")
-    public ResponseEntity<?> getProductById(@PathVariable Long id) {
-        Optional<Product> optionalProduct = productDao.getProductById(id);
-        if (optionalProduct.isPresent()) {
-            return ResponseEntity.ok(convertToDTO(optionalProduct.get()));
-        } else {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Product not found.");
+    public ResponseEntity<?> getProductById(@PathVariable Long id,
+                                            @RequestParam(required = false) String fields,
+                                            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        try {
+            return catalogResponseCache.product(id, FieldSelection.parse(fields, ProductDao.SPARSE_FIELDS),
+                                                ResponseFormat.negotiate(accept), acceptEncoding, ifNoneMatch);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
     
-    // Fetch Approved Products
+    // Everything the product detail page shows in one call: the product, its seller, the seller's
+    // other products and (for a signed-in user) their cart, loaded concurrently
+    @GetMapping("/{id}/page")
+    public CompletableFuture<ResponseEntity<?>> getProductPage(@PathVariable Long id,
+            @RequestAttribute(name = AuthTokenFilter.PRINCIPAL_ATTRIBUTE, required = false) AuthenticatedPrincipal principal) {
+        Long userId = principal != null && principal.getAccountType() == Principal.AccountType.USER
+                ? principal.getAccountId() : null;
+        CompletableFuture<Optional<ProductPageDTO>> page;
+        try {
+            page = productPageService.load(id, userId);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(busyResponse());
+        }
+        return page.handle((found, error) -> {
+            if (error != null) {
+                return busyResponse();
+            }
+            if (found.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Product not found.");
+            }
+            return ResponseEntity.ok(found.get());
+        });
+    }
+
+    // Fetch Approved Products (all of them, or one page with ?page=0&size=20; narrowed with
+    // ?category= and ordered with ?sort=price, -price, stock or name)
     @GetMapping("/approved")
-    public ResponseEntity<List<ProductDTO>> getApprovedProducts() {
-        List<Product> approvedProducts = productRepository.findByApproved(true);
-        List<ProductDTO> productDTOs = approvedProducts.stream()
-                                                       .map(this::convertToDTO)
-                                                       .collect(Collectors.toList());
-        return ResponseEntity.ok(productDTOs);
+    public ResponseEntity<?> getApprovedProducts(@RequestParam(required = false) Integer page,
+                                                 @RequestParam(required = false) Integer size,
+                                                 @RequestParam(required = false) String fields,
+                                                 @RequestParam(required = false) String shape,
+                                                 @RequestParam(required = false) String category,
+                                                 @RequestParam(required = false) String sort,
+                                                 @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                                 @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                                 @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if ((page == null) != (size == null) || (page != null && (page < 0 || size < 1 || size > MAX_PAGE_SIZE))) {
+            return ResponseEntity.badRequest().body("page and size go together; size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        try {
+            FieldSelection selection = FieldSelection.parse(fields, ProductDao.SPARSE_FIELDS);
+            if (category != null || sort != null) {
+                // Filtered or re-sorted views come straight from the catalog snapshot, uncached
+                CatalogSort order = CatalogSort.parse(sort);
+                return ResponseEntity.ok(isNormalized(shape)
+                        ? productService.getApprovedProductsNormalized(page, size, category, order, selection)
+                        : productService.getApprovedProducts(page, size, category, order, selection));
+            }
+            return catalogResponseCache.approved(page, size, selection, isNormalized(shape),
+                                                 ResponseFormat.negotiate(accept), acceptEncoding, ifNoneMatch);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
     
     // Approve a Product
     @PutMapping("/{id}/approve")
     public ResponseEntity<?> approveProduct(@PathVariable Long id) {
-        Optional<Product> optionalProduct = productDao.getProductById(id);
-        if (optionalProduct.isPresent()) {
-            Product product = optionalProduct.get();
-            product.setApproved(true);
-            productDao.saveProduct(product);
-            return ResponseEntity.ok("Product approved successfully.");
-        } else {
+        try {
+            if (productDao.approveProduct(id)) {
+                return ResponseEntity.ok("Product approved successfully.");
+            } else {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Product not found.");
+            }
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Product was changed concurrently, please retry.");
+        }
+    }
+    
+    // Set a Product's stock level
+    @PutMapping("/{id}/stock")
+    public ResponseEntity<?> updateStock(@PathVariable Long id, @RequestParam("stock") int stock) {
+        if (stock < 0) {
+            return ResponseEntity.badRequest().body("Stock cannot be negative.");
+        }
+        // Write back flash-sale sales first so they are not applied on top of the new level
+        inventoryEngine.flushConfirmed();
+        if (!productDao.updateStock(id, stock)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Product not found.");
+        }
+        inventoryEngine.resync(id);
+        return ResponseEntity.ok("Stock updated successfully.");
+    }
+    
+    // Flag or unflag a Product for flash-sale inventory
+    @PutMapping("/{id}/flash-sale")
+    public ResponseEntity<?> setFlashSale(@PathVariable Long id, @RequestParam("enabled") boolean enabled) {
+        if (enabled) {
+            if (!productDao.updateFlashSale(id, true)) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Product not found.");
+            }
+            inventoryEngine.track(id);
+            return ResponseEntity.ok("Product added to flash sale.");
+        }
+        inventoryEngine.untrack(id);
+        if (!productDao.updateFlashSale(id, false)) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Product not found.");
         }
+        return ResponseEntity.ok("Product removed from flash sale.");
     }
     
     // Delete a Product
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deleteProduct(@PathVariable Long id) {
         try {
-            Optional<Product> prodOpt = productDao.getProductById(id);
-            if (prodOpt.isPresent()) {
-                Product product = prodOpt.get();
-                if (product.getProductSizes() != null) {
-                    product.getProductSizes().clear();
-                }
-                if (product.getProductColors() != null) {
-                    product.getProductColors().clear();
-                }
-                productDao.saveProduct(product);
-                productDao.deleteProduct(id);
+            if (productService.deleteProduct(id)) {
                 return ResponseEntity.ok("Product deleted successfully.");
             } else {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Product not found.");
@@ -268,14 +307,11 @@ public class ProductController {
                 System.out.println("No image provided");
             }
             
-            Optional<ProductOwner> optOwner = productOwnerRepository.findById(productOwnerId);
-            if (!optOwner.isPresent()) {
+            Product savedProduct = productService.addProduct(product, productOwnerId);
+            if (savedProduct == null) {
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid product owner ID");
             }
-            product.setProductOwner(optOwner.get());
-            
-            Product savedProduct = productDao.saveProduct(product);
-            return ResponseEntity.ok(convertToDTO(savedProduct));
+            return ResponseEntity.ok(productService.toDTO(savedProduct));
         } catch (IOException e) {
             e.printStackTrace();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error processing image file.");
@@ -287,8 +323,21 @@ public class ProductController {
     
     // NEW: Fetch Products by Owner ID
     @GetMapping("/owner/{ownerId}")
-    public ResponseEntity<?> getProductsByOwner(@PathVariable Long ownerId) {
-        List<Product> products = productDao.getProductsByOwnerId(ownerId);
+    public ResponseEntity<?> getProductsByOwner(@PathVariable Long ownerId, @RequestParam(required = false) String fields,
+                                                @RequestParam(required = false) String shape) {
+        FieldSelection selection;
+        try {
+            selection = FieldSelection.parse(fields, ProductDao.SPARSE_FIELDS);
+            if (isNormalized(shape)) {
+                return ResponseEntity.ok(productService.getProductsByOwnerNormalized(ownerId, selection));
+            }
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        if (selection != null) {
+            return ResponseEntity.ok(productService.getProductFieldsByOwner(ownerId, selection));
+        }
+        List<Product> products = productService.getProductsByOwnerId(ownerId);
         return ResponseEntity.ok(products);
     }
     
@@ -348,4 +397,32 @@ public class ProductController {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
     }
+
+    private ResponseEntity<?> batchResponse(List<Long> ids, String fields) {
+        if (ids == null || ids.isEmpty() || ids.size() > maxBatchIds || ids.contains(null)) {
+            return ResponseEntity.badRequest().body("ids must hold between 1 and " + maxBatchIds + " product ids");
+        }
+        try {
+            return ResponseEntity.ok(catalogResponseCache.products(ids, FieldSelection.parse(fields, ProductDao.SPARSE_FIELDS)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // The product page could not be built in time
+    private static ResponseEntity<?> busyResponse() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1")
+                             .body("Product page is temporarily unavailable, please retry.");
+    }
+
+    // ?shape= on list endpoints: embedded (default, each product carries its owner) or normalized
+    private static boolean isNormalized(String shape) {
+        if (shape == null || shape.equals("embedded")) {
+            return false;
+        }
+        if (shape.equals("normalized")) {
+            return true;
+        }
+        throw new IllegalArgumentException("shape must be embedded or normalized");
+    }
 }
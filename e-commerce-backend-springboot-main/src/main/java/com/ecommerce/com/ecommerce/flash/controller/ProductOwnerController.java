@@ -2,16 +2,16 @@ package com.ecommerce.com.ecommerce.flash.controller;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import com.ecommerce.com.ecommerce.flash.dao.ProductOwnerDao;
 import com.ecommerce.com.ecommerce.flash.entity.ProductOwner;
-import com.ecommerce.com.ecommerce.flash.repository.ProductOwnerRepository;
-import com.ecommerce.com.ecommerce.flash.repository.ProductRepository;
+import com.ecommerce.com.ecommerce.flash.service.ProductOwnerService;
 
 import jakarta.validation.Valid;
 
@@ -21,17 +21,11 @@ import jakarta.validation.Valid;
 public class ProductOwnerController {
 
     @Autowired
-    private ProductOwnerDao productOwnerDao;
-
-    @Autowired
-    private ProductOwnerRepository productOwnerRepository;
-
-    @Autowired
-    private ProductRepository productRepository;
+    private ProductOwnerService productOwnerService;
 
     @GetMapping("/{email:.+@.+\\..+}") // Regex to match email format
     public ResponseEntity<?> getProductOwnerByEmail(@PathVariable String email) {
-        Optional<ProductOwner> productOwner = productOwnerDao.getProductOwnerByEmail(email);
+        Optional<ProductOwner> productOwner = productOwnerService.getProductOwnerByEmail(email);
         return productOwner.map(ResponseEntity::ok)
                            .orElse(ResponseEntity.notFound().build());
     }
@@ -39,8 +33,19 @@ public class ProductOwnerController {
     @PostMapping("/register")
     public ResponseEntity<?> registerProductOwner(@Valid @RequestBody ProductOwner productOwner) {
         try {
-            ProductOwner savedOwner = productOwnerRepository.save(productOwner);
+            ProductOwner savedOwner = productOwnerService.registerProductOwner(productOwner);
+            if (savedOwner == null) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Email already registered");
+            }
             return ResponseEntity.ok(savedOwner);
+        } catch (DataIntegrityViolationException e) {
+            // Same email (or phone number) registered concurrently or already taken
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Email or phone number already registered");
+        } catch (RejectedExecutionException e) {
+            // Too many password hashes queued; the client should retry shortly
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "1")
+                    .body("Too many registrations in progress, please retry");
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -50,13 +55,13 @@ public class ProductOwnerController {
 
     @GetMapping("/all")
     public ResponseEntity<List<ProductOwner>> getAllProductOwners() {
-        List<ProductOwner> owners = productOwnerRepository.findAll();
+        List<ProductOwner> owners = productOwnerService.getAllProductOwners();
         return ResponseEntity.ok(owners);
     }
 
     @GetMapping("/{ownerId}")
     public ResponseEntity<ProductOwner> getProductOwnerById(@PathVariable Long ownerId) {
-        Optional<ProductOwner> owner = productOwnerRepository.findById(ownerId);
+        Optional<ProductOwner> owner = productOwnerService.getProductOwnerById(ownerId);
         return owner.map(ResponseEntity::ok)
                     .orElseGet(() -> ResponseEntity.notFound().build());
     }
@@ -64,13 +69,7 @@ public class ProductOwnerController {
     @PutMapping("/update/{id}")
     public ResponseEntity<?> updateProductOwner(@PathVariable Long id,
                                                 @RequestBody ProductOwner updatedOwner) {
-        Optional<ProductOwner> existingOwner = productOwnerRepository.findById(id);
-
-        if (existingOwner.isPresent()) {
-            ProductOwner owner = existingOwner.get();
-            owner.setProductOwnerName(updatedOwner.getProductOwnerName());
-            owner.setProductOwnerNumber(updatedOwner.getProductOwnerNumber());
-            productOwnerRepository.save(owner);
+        if (productOwnerService.updateProductOwner(id, updatedOwner)) {
             return ResponseEntity.ok("Product owner updated successfully!");
         } else {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -0,0 +1,60 @@
+package com.ecommerce.com.ecommerce.flash.controller;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import com.ecommerce.com.ecommerce.flash.dashboard.SellerDashboardService;
+
+@RestController
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:3001", "http://localhost:3002"}, allowCredentials = "true")
+@RequestMapping("/api/orders/owner")
+public class SellerDashboardController {
+
+    @Autowired
+    private SellerDashboardService sellerDashboardService;
+
+    // Order counts per status and units/revenue for today, 7 and 30 days, from pre-aggregated counters
+    @GetMapping("/{productOwnerId}/dashboard")
+    public ResponseEntity<?> getDashboard(@PathVariable Long productOwnerId) {
+        try {
+            return ResponseEntity.ok(sellerDashboardService.getDashboard(productOwnerId));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                               .body("Error fetching dashboard: " + e.getMessage());
+        }
+    }
+
+    // One page of a seller's orders, newest first. Dates are ISO (yyyy-MM-dd), both inclusive;
+    // pass nextCursor from the previous page to continue.
+    @GetMapping("/{productOwnerId}/page")
+    public ResponseEntity<?> getOrderPage(@PathVariable Long productOwnerId,
+                                          @RequestParam(required = false) String status,
+                                          @RequestParam(required = false) String from,
+                                          @RequestParam(required = false) String to,
+                                          @RequestParam(required = false) String cursor,
+                                          @RequestParam(defaultValue = "20") int limit) {
+        LocalDateTime fromDate;
+        LocalDateTime toDate;
+        try {
+            fromDate = from != null ? LocalDate.parse(from).atStartOfDay() : null;
+            toDate = to != null ? LocalDate.parse(to).plusDays(1).atStartOfDay() : null;
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().body("Dates must be formatted as yyyy-MM-dd");
+        }
+        try {
+            return ResponseEntity.ok(sellerDashboardService.getOrderPage(productOwnerId, status, fromDate, toDate,
+                                                                         cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Invalid cursor");
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                               .body("Error fetching orders: " + e.getMessage());
+        }
+    }
+}
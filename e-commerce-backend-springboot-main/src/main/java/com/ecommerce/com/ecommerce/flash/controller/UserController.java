@@ -1,16 +1,21 @@
 package com.ecommerce.com.ecommerce.flash.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
-import com.ecommerce.com.ecommerce.flash.dao.UserDao;
+import com.ecommerce.com.ecommerce.flash.entity.Principal;
 import com.ecommerce.com.ecommerce.flash.entity.User;
-import com.ecommerce.com.ecommerce.flash.repository.UserRepository;
+import com.ecommerce.com.ecommerce.flash.security.AuthTokenFilter;
+import com.ecommerce.com.ecommerce.flash.security.AuthenticatedPrincipal;
+import com.ecommerce.com.ecommerce.flash.service.UserService;
 
 import java.util.Collections;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 @CrossOrigin(origins = {"http://localhost:5173", "http://localhost:5174", "http://localhost:3000", "http://localhost:3001", "http://localhost:3002"}, allowCredentials = "true")
 @RestController
@@ -18,14 +23,16 @@ import java.util.Optional;
 public class UserController {
 
     @Autowired
-    private UserDao userDao;
-    
-    @Autowired
-    private UserRepository userRepository;
+    private UserService userService;
+
+    // Accept the unsigned X-User-ID header from clients that do not send a session token yet.
+    // Anyone can send any id in it, so it stays off unless a deployment opts in.
+    @Value("${flash.auth.legacy-user-id-header:false}")
+    private boolean legacyUserIdHeader;
 
     @GetMapping("/email/{email}")
     public ResponseEntity<?> getUserByEmail(@PathVariable String email) {
-        Optional<User> user = userDao.getUserByEmail(email);
+        Optional<User> user = userService.getUserByEmail(email);
         return user.map(ResponseEntity::ok)
                    .orElse(ResponseEntity.notFound().build());
     }
@@ -33,16 +40,21 @@ public class UserController {
     @PostMapping("/register")
     public ResponseEntity<?> registerUser(@RequestBody User user) {
         try {
-            // Check if email already exists
-            Optional<User> existingUser = userDao.getUserByEmail(user.getEmail());
-            if (existingUser.isPresent()) {
+            // Check the email and save the new user in one transaction
+            User savedUser = userService.registerUser(user);
+            if (savedUser == null) {
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body("Email already registered");
             }
-
-            // Save the new user
-            User savedUser = userDao.saveUser(user);
             return ResponseEntity.ok(savedUser);
+        } catch (DataIntegrityViolationException e) {
+            // Registered concurrently with the same email
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body("Email already registered");
+        } catch (RejectedExecutionException e) {
+            // Too many password hashes queued; the client should retry shortly
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "1")
+                .body("Too many registrations in progress, please retry");
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -52,7 +64,7 @@ public class UserController {
     @GetMapping("/id/{id}")
     public ResponseEntity<?> getUserById(@PathVariable Long id) {
         try {
-            Optional<User> user = userRepository.findById(id);
+            Optional<User> user = userService.getUserById(id);
             if (user.isPresent()) {
                 return ResponseEntity.ok(user.get());
             } else {
@@ -66,24 +78,24 @@ public class UserController {
     }
     @PutMapping("/update/{id}")
     public ResponseEntity<User> updateUser(@PathVariable Long id, @RequestBody User user) {
-        Optional<User> existingUser = userRepository.findById(id);
-        if (existingUser.isPresent()) {
-            User updatedUser = existingUser.get();
-            updatedUser.setName(user.getName());
-            updatedUser.setPhoneNumber(user.getPhoneNumber());
-            updatedUser.setAddress(user.getAddress());
-            userRepository.save(updatedUser);
-            return ResponseEntity.ok(updatedUser);
+        Optional<User> updatedUser = userService.updateProfile(id, user);
+        if (updatedUser.isPresent()) {
+            return ResponseEntity.ok(updatedUser.get());
         } else {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
     }
 
     @GetMapping("/profile")
-    public ResponseEntity<?> getProfile(@RequestHeader("X-User-ID") String userId) {
+    public ResponseEntity<?> getProfile(@RequestAttribute(name = AuthTokenFilter.PRINCIPAL_ATTRIBUTE, required = false) AuthenticatedPrincipal principal,
+                                        @RequestHeader(value = "X-User-ID", required = false) String userIdHeader) {
         try {
+            Long userId = callerUserId(principal, userIdHeader);
+            if (userId == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Authentication required");
+            }
             System.out.println("Received profile request for user ID: " + userId);
-            Optional<User> user = userRepository.findById(Long.parseLong(userId));
+            Optional<User> user = userService.getUserById(userId);
             if (user.isPresent()) {
                 System.out.println("Found user: " + user.get().getName());
                 return ResponseEntity.ok(user.get());
@@ -91,6 +103,8 @@ public class UserController {
                 System.out.println("User not found for ID: " + userId);
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body("User not found");
             }
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().body("X-User-ID must be a numeric user id");
         } catch (Exception e) {
             System.err.println("Error in getProfile: " + e.getMessage());
             e.printStackTrace();
@@ -99,22 +113,36 @@ public class UserController {
     }
 
     @PutMapping("/profile")
-    public ResponseEntity<?> updateProfile(@RequestHeader("X-User-ID") String userId, @RequestBody User updatedUser) {
+    public ResponseEntity<?> updateProfile(@RequestAttribute(name = AuthTokenFilter.PRINCIPAL_ATTRIBUTE, required = false) AuthenticatedPrincipal principal,
+                                           @RequestHeader(value = "X-User-ID", required = false) String userIdHeader,
+                                           @RequestBody User updatedUser) {
         try {
-            Optional<User> existingUser = userRepository.findById(Long.parseLong(userId));
-            if (existingUser.isPresent()) {
-                User user = existingUser.get();
-                user.setName(updatedUser.getName());
-                user.setPhoneNumber(updatedUser.getPhoneNumber());
-                user.setAddress(updatedUser.getAddress());
-                User savedUser = userRepository.save(user);
-                return ResponseEntity.ok(savedUser);
+            Long userId = callerUserId(principal, userIdHeader);
+            if (userId == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Authentication required");
+            }
+            Optional<User> savedUser = userService.updateProfile(userId, updatedUser);
+            if (savedUser.isPresent()) {
+                return ResponseEntity.ok(savedUser.get());
             } else {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body("User not found");
             }
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().body("X-User-ID must be a numeric user id");
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error updating profile");
         }
     }
 
+    // The calling user's id from a verified session token, or from the legacy header while it is
+    // accepted; null when the caller is not an authenticated user
+    private Long callerUserId(AuthenticatedPrincipal principal, String userIdHeader) {
+        if (principal != null) {
+            return principal.getAccountType() == Principal.AccountType.USER ? principal.getAccountId() : null;
+        }
+        if (legacyUserIdHeader && userIdHeader != null) {
+            return Long.parseLong(userIdHeader);
+        }
+        return null;
+    }
 }
@@ -5,17 +5,48 @@ import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.ecommerce.com.ecommerce.flash.entity.Admin;
+import com.ecommerce.com.ecommerce.flash.entity.Principal;
 import com.ecommerce.com.ecommerce.flash.repository.AdminRepository;
+import com.ecommerce.com.ecommerce.flash.security.PrincipalService;
+
+import jakarta.annotation.PostConstruct;
+
 @Service
 public class AdminDao {
 	
 	@Autowired
     private AdminRepository adminRepository;
+
+    @Autowired
+    private PrincipalService principalService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
     
+    // Admin writes also keep the login index in step, in the same transaction. The password is
+    // hashed before it opens and only the hash is stored; throws RejectedExecutionException when the
+    // hashing pool is saturated.
     public Admin createAdmin(Admin admin) {
-        return adminRepository.save(admin);
+        String passwordHash = principalService.hashPassword(admin.getAdminPassword());
+        admin.setAdminPassword(passwordHash);
+        return transactionTemplate.execute(status -> {
+            Admin saved = adminRepository.save(admin);
+            principalService.register(Principal.AccountType.ADMIN, saved.getAdminId(), saved.getAdminEmail(),
+                                      passwordHash);
+            return saved;
+        });
     }
 
     public List<Admin> getAllAdmins() {
@@ -27,19 +58,27 @@ public class AdminDao {
     }
 
     public Admin updateAdmin(Long id, Admin adminDetails) {
-        Optional<Admin> optionalAdmin = adminRepository.findById(id);
-        if(optionalAdmin.isPresent()){
-            Admin admin = optionalAdmin.get();
-            admin.setAdminName(adminDetails.getAdminName());
-            admin.setAdminEmail(adminDetails.getAdminEmail());
-            admin.setAdminPassword(adminDetails.getAdminPassword());
-            return adminRepository.save(admin);
-        }
-        return null;
+        String passwordHash = principalService.hashPassword(adminDetails.getAdminPassword());
+        return transactionTemplate.execute(status -> {
+            Optional<Admin> optionalAdmin = adminRepository.findById(id);
+            if(optionalAdmin.isPresent()){
+                Admin admin = optionalAdmin.get();
+                admin.setAdminName(adminDetails.getAdminName());
+                admin.setAdminEmail(adminDetails.getAdminEmail());
+                admin.setAdminPassword(passwordHash);
+                Admin saved = adminRepository.save(admin);
+                principalService.register(Principal.AccountType.ADMIN, saved.getAdminId(), saved.getAdminEmail(),
+                                          passwordHash);
+                return saved;
+            }
+            return null;
+        });
     }
 
+    @Transactional
     public void deleteAdmin(Long id) {
         adminRepository.deleteById(id);
+        principalService.remove(Principal.AccountType.ADMIN, id);
     }
     public Admin findByEmailAdmin(String email) {
         return adminRepository.findByAdminEmail(email);
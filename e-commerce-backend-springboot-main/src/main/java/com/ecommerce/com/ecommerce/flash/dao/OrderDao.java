@@ -1,11 +1,32 @@
 package com.ecommerce.com.ecommerce.flash.dao;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import com.ecommerce.com.ecommerce.flash.archive.OrderArchiver;
+import com.ecommerce.com.ecommerce.flash.dto.OrderDetailDTO;
+import com.ecommerce.com.ecommerce.flash.dto.OrderSnapshot;
+import com.ecommerce.com.ecommerce.flash.dto.OrderSummaryDTO;
 import com.ecommerce.com.ecommerce.flash.entity.Order;
+import com.ecommerce.com.ecommerce.flash.event.OrderChangedEvent;
+import com.ecommerce.com.ecommerce.flash.repository.ArchivedOrderRepository;
 import com.ecommerce.com.ecommerce.flash.repository.OrderRepository;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class OrderDao {
@@ -13,8 +34,41 @@ public class OrderDao {
     @Autowired
     private OrderRepository orderRepository;
 
+    @Autowired
+    private ArchivedOrderRepository archivedOrderRepository;
+
+    @Autowired
+    private OrderArchiver orderArchiver;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ShippingAddressDao shippingAddressDao;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     public Order placeOrder(Order order) {
-        return orderRepository.save(order);
+        order.setAddress(shippingAddressDao.resolve(order));
+        snapshotPrices(List.of(order));
+        Order saved = orderRepository.save(order);
+        eventPublisher.publishEvent(new OrderChangedEvent(null, OrderSnapshot.of(saved)));
+        return saved;
+    }
+
+    // Save a batch of orders in a single transaction (one commit for the whole batch)
+    @Transactional
+    public List<Order> placeOrders(List<Order> orders) {
+        for (Order order : orders) {
+            order.setAddress(shippingAddressDao.resolve(order));
+        }
+        snapshotPrices(orders);
+        List<Order> saved = orderRepository.saveAll(orders);
+        for (Order order : saved) {
+            eventPublisher.publishEvent(new OrderChangedEvent(null, OrderSnapshot.of(order)));
+        }
+        return saved;
     }
     
     public List<Order> getAllOrders() {
@@ -33,11 +87,145 @@ public class OrderDao {
         return orderRepository.findByProductProductOwnerProductOwnerId(productOwnerId);
     }
     
-    public Order updateOrder(Order order) {
-        return orderRepository.save(order);
+    // Lean read paths used by the API: no full product or user entities are loaded.
+    // Old orders may have been moved to orders_archive, so lists combine both tables;
+    // both queries run in one read-only transaction on the same connection.
+    @Transactional(readOnly = true)
+    public List<OrderSummaryDTO> getAllOrderSummaries() {
+        return merge(orderRepository.findAllSummaries(), archivedOrderRepository.findAllSummaries());
+    }
+
+    @Transactional(readOnly = true)
+    public List<OrderSummaryDTO> getOrderSummariesByUserId(Long userId) {
+        return merge(orderRepository.findSummariesByUserId(userId), archivedOrderRepository.findSummariesByUserId(userId));
+    }
+
+    @Transactional(readOnly = true)
+    public List<OrderSummaryDTO> getOrderSummariesByUserIdAndStatus(Long userId, String status) {
+        List<OrderSummaryDTO> hot = orderRepository.findSummariesByUserIdAndStatus(userId, status);
+        if (!orderArchiver.isArchivable(status)) {
+            return hot;
+        }
+        return merge(hot, archivedOrderRepository.findSummariesByUserIdAndStatus(userId, status));
+    }
+
+    @Transactional(readOnly = true)
+    public List<OrderSummaryDTO> getOrderSummariesByProductOwnerId(Long productOwnerId) {
+        return merge(orderRepository.findSummariesByProductOwnerId(productOwnerId),
+                     archivedOrderRepository.findSummariesByProductOwnerId(productOwnerId));
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<OrderDetailDTO> getOrderDetail(Long id) {
+        Optional<OrderDetailDTO> detail = orderRepository.findDetailById(id);
+        return detail.isPresent() ? detail : archivedOrderRepository.findDetailById(id);
     }
- // Delete an order by its ID
-    public void deleteOrder(Long id) {
+
+    // A seller's orders newest first, at most limit rows after the (cursorDate, cursorId) cursor.
+    // Each table is asked for its own first page and the two are merged on the same ordering.
+    @Transactional(readOnly = true)
+    public List<OrderSummaryDTO> getSellerOrderPage(Long ownerId, String status, LocalDateTime from, LocalDateTime to,
+                                                    LocalDateTime cursorDate, Long cursorId, int limit) {
+        PageRequest page = PageRequest.of(0, limit);
+        List<OrderSummaryDTO> rows = new ArrayList<>(orderRepository.findSellerPage(ownerId, status, from, to,
+                cursorDate, cursorId, page));
+        if (orderArchiver.isArchivable(status)) {
+            rows.addAll(archivedOrderRepository.findSellerPage(ownerId, status, from, to, cursorDate, cursorId, page));
+            rows.sort(Comparator.comparing(OrderSummaryDTO::getOrderDate)
+                                .thenComparing(OrderSummaryDTO::getId)
+                                .reversed());
+        }
+        return rows.size() > limit ? rows.subList(0, limit) : rows;
+    }
+
+    // Archived orders are final and read-only
+    public boolean isArchived(Long id) {
+        return archivedOrderRepository.existsById(id);
+    }
+
+    public boolean orderExists(Long id) {
+        return orderRepository.existsById(id);
+    }
+    
+    // Change an order's status with one small UPDATE; returns false if the order does not exist.
+    @Transactional
+    public boolean updateOrderStatus(Long id, String status) {
+        return changeOrderStatus(id, status).isPresent();
+    }
+
+    // As updateOrderStatus, returning the order as it was before the change (empty if it does not
+    // exist). The row is read FOR UPDATE in the caller's transaction (or a new one), so nobody can
+    // change it until commit and the published before/after pair is exactly what changed. A retry
+    // loop would not help inside the caller's transaction: under REPEATABLE READ every re-read
+    // returns the same stale row.
+    @Transactional
+    public Optional<OrderSnapshot> changeOrderStatus(Long id, String status) {
+        Optional<OrderSnapshot> before = orderRepository.findSnapshotForUpdateById(id);
+        if (before.isEmpty()) {
+            return before;
+        }
+        OrderSnapshot old = before.get();
+        if (orderRepository.updateStatus(id, status, old.getVersion()) != 1) {
+            throw new OptimisticLockingFailureException("Order " + id + " is being changed concurrently");
+        }
+        eventPublisher.publishEvent(new OrderChangedEvent(old, new OrderSnapshot(id, old.getProductId(),
+                old.getQuantity(), status, old.getOrderDate(), old.getVersion() + 1, old.getUnitPrice())));
+        return before;
+    }
+
+    // The order as it is now, locked until the caller's transaction ends (empty if it does not exist)
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Optional<OrderSnapshot> lockOrder(Long id) {
+        return orderRepository.findSnapshotForUpdateById(id);
+    }
+
+    // Change the quantity of an order read with lockOrder. Only applies while the order still has the
+    // version and status read, so the caller's stock adjustment matches the row it changes.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void changeOrderQuantity(OrderSnapshot old, int quantity) {
+        if (orderRepository.updateQuantity(old.getId(), quantity, old.getVersion(), old.getStatus()) != 1) {
+            throw new OptimisticLockingFailureException("Order " + old.getId() + " is being changed concurrently");
+        }
+        eventPublisher.publishEvent(new OrderChangedEvent(old, new OrderSnapshot(old.getId(), old.getProductId(),
+                quantity, old.getStatus(), old.getOrderDate(), old.getVersion() + 1, old.getUnitPrice())));
+    }
+
+    // Delete an order by its ID; returns the order as it was (empty if it did not exist)
+    public Optional<OrderSnapshot> deleteOrder(Long id) {
+        Optional<OrderSnapshot> before = orderRepository.findSnapshotById(id);
         orderRepository.deleteById(id);
+        before.ifPresent(snapshot -> eventPublisher.publishEvent(new OrderChangedEvent(snapshot, null)));
+        return before;
+    }
+
+    // Record each product's current price on its orders, with one query for the whole batch
+    private void snapshotPrices(List<Order> orders) {
+        Set<Long> productIds = new LinkedHashSet<>();
+        for (Order order : orders) {
+            if (order.getProduct() != null && order.getProduct().getId() != null) {
+                productIds.add(order.getProduct().getId());
+            }
+        }
+        if (productIds.isEmpty()) {
+            return;
+        }
+        Map<Long, BigDecimal> prices = new HashMap<>();
+        jdbcTemplate.query("SELECT id, price FROM products WHERE id IN ("
+                        + String.join(", ", Collections.nCopies(productIds.size(), "?")) + ")",
+                rs -> { prices.put(rs.getLong(1), rs.getBigDecimal(2)); }, productIds.toArray());
+        for (Order order : orders) {
+            order.setUnitPrice(order.getProduct() != null ? prices.get(order.getProduct().getId()) : null);
+        }
+    }
+
+    private static List<OrderSummaryDTO> merge(List<OrderSummaryDTO> hot, List<OrderSummaryDTO> archived) {
+        if (archived.isEmpty()) {
+            return hot;
+        }
+        List<OrderSummaryDTO> all = new ArrayList<>(archived.size() + hot.size());
+        all.addAll(archived);
+        all.addAll(hot);
+        all.sort(Comparator.comparing(OrderSummaryDTO::getId));
+        return all;
     }
 }
@@ -1,24 +1,167 @@
 package com.ecommerce.com.ecommerce.flash.dao;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import com.ecommerce.com.ecommerce.flash.dto.OrderSummaryDTO;
+import com.ecommerce.com.ecommerce.flash.dto.ProductSnapshot;
 import com.ecommerce.com.ecommerce.flash.entity.Product;
+import com.ecommerce.com.ecommerce.flash.entity.ProductStatus;
+import com.ecommerce.com.ecommerce.flash.event.ProductChangedEvent;
 import com.ecommerce.com.ecommerce.flash.repository.ProductRepository;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class ProductDao {
+
+    // Version-checked updates retried this often before giving up with a conflict
+    private static final int MAX_UPDATE_ATTEMPTS = 3;
+
+    // Properties the sparse reads can return, and the column each one is read from.
+    // productSizes and productColors come from their collection tables instead.
+    private static final Map<String, String> FIELD_COLUMNS = new LinkedHashMap<>();
+    static {
+        FIELD_COLUMNS.put("id", "p.id");
+        FIELD_COLUMNS.put("name", "p.name");
+        FIELD_COLUMNS.put("description", "p.description");
+        FIELD_COLUMNS.put("price", "p.price");
+        FIELD_COLUMNS.put("stock", "p.stock");
+        FIELD_COLUMNS.put("category", "p.category");
+        FIELD_COLUMNS.put("available", "p.available");
+        FIELD_COLUMNS.put("approved", "p.approved");
+        FIELD_COLUMNS.put("productImageBase64", "p.product_image");
+        // Only a prefix of the image column; enough for a URL, never a whole inline image
+        FIELD_COLUMNS.put("thumbnail", "SUBSTRING(p.product_image, 1, " + OrderSummaryDTO.THUMBNAIL_MAX_LENGTH + ")");
+        FIELD_COLUMNS.put("productOwner", "p.product_owner_id");
+    }
+    public static final Set<String> SPARSE_FIELDS;
+    static {
+        Set<String> fields = new LinkedHashSet<>(FIELD_COLUMNS.keySet());
+        fields.add("productSizes");
+        fields.add("productColors");
+        SPARSE_FIELDS = Collections.unmodifiableSet(fields);
+    }
+
+    // Everything ProductDTO shows, in its order; what a sparse read returns when no fields are given
+    public static final Set<String> DTO_FIELDS = Collections.unmodifiableSet(new LinkedHashSet<>(List.of("id", "name",
+            "description", "price", "stock", "category", "available", "productSizes", "productColors",
+            "productImageBase64", "productOwner", "approved")));
+
+    // Ids per IN (...) when loading sizes and colors
+    private static final int COLLECTION_CHUNK = 500;
+
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     public List<Product> getAllProducts() {
         List<Product> products = productRepository.findAll();
         System.out.println("DAO: Retrieved " + products.size() + " products from repository");
         return products;
     }
 
+    // Only the requested properties (SPARSE_FIELDS) of the products matched by condition, which is
+    // appended to "FROM products p". Unrequested columns are never selected and the size/color
+    // tables are only read when asked for. Values are raw: productImageBase64 and thumbnail hold
+    // the stored image (or its prefix) and productOwner the owner id.
+    public List<Map<String, Object>> findFields(Set<String> fields, String condition, Object... args) {
+        return new ArrayList<>(queryFields(fields, condition, args).values());
+    }
+
+    // findFields for a list of ids with one IN (...) query, keyed by id; unknown ids are absent
+    public Map<Long, Map<String, Object>> findFieldsByIds(Set<String> fields, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return new LinkedHashMap<>();
+        }
+        return queryFields(fields, "WHERE p.id IN (" + String.join(", ", Collections.nCopies(ids.size(), "?")) + ")",
+                ids.toArray());
+    }
+
+    private Map<Long, Map<String, Object>> queryFields(Set<String> fields, String condition, Object... args) {
+        List<String> selected = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT p.id");
+        for (String field : fields) {
+            String column = FIELD_COLUMNS.get(field);
+            if (column != null && !field.equals("id")) {
+                selected.add(field);
+                sql.append(", ").append(column);
+            }
+        }
+        sql.append(" FROM products p ").append(condition);
+        Map<Long, Map<String, Object>> rows = new LinkedHashMap<>();
+        jdbcTemplate.query(sql.toString(), rs -> {
+            Long id = rs.getLong(1);
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (String field : fields) {
+                row.put(field, null);
+            }
+            if (fields.contains("id")) {
+                row.put("id", id);
+            }
+            for (int i = 0; i < selected.size(); i++) {
+                String field = selected.get(i);
+                switch (field) {
+                    case "price":
+                        row.put(field, rs.getDouble(i + 2));
+                        break;
+                    case "stock":
+                        row.put(field, rs.getInt(i + 2));
+                        break;
+                    case "available":
+                    case "approved":
+                        row.put(field, rs.getBoolean(i + 2));
+                        break;
+                    case "productOwner":
+                        long ownerId = rs.getLong(i + 2);
+                        row.put(field, rs.wasNull() ? null : ownerId);
+                        break;
+                    default:
+                        row.put(field, rs.getString(i + 2));
+                }
+            }
+            rows.put(id, row);
+        }, args);
+        if (fields.contains("productSizes")) {
+            fillCollection(rows, "productSizes", "SELECT product_id, size FROM product_sizes");
+        }
+        if (fields.contains("productColors")) {
+            fillCollection(rows, "productColors", "SELECT product_id, color FROM product_colors");
+        }
+        return rows;
+    }
+
+    private void fillCollection(Map<Long, Map<String, Object>> rows, String field, String select) {
+        for (Map<String, Object> row : rows.values()) {
+            row.put(field, new ArrayList<String>());
+        }
+        List<Long> ids = new ArrayList<>(rows.keySet());
+        for (int from = 0; from < ids.size(); from += COLLECTION_CHUNK) {
+            List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + COLLECTION_CHUNK));
+            String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+            jdbcTemplate.query(select + " WHERE product_id IN (" + placeholders + ")", rs -> {
+                @SuppressWarnings("unchecked")
+                List<String> values = (List<String>) rows.get(rs.getLong(1)).get(field);
+                values.add(rs.getString(2));
+            }, chunk.toArray());
+        }
+    }
+
     public Optional<Product> getProductById(Long id) {
         return productRepository.findById(id);
     }
@@ -28,13 +171,65 @@ public class ProductDao {
     }
 
     public Product saveProduct(Product product) {
-        return productRepository.save(product);
+        ProductSnapshot before = product.getId() != null
+                ? productRepository.findSnapshotById(product.getId()).orElse(null) : null;
+        Product saved = productRepository.save(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(before, ProductSnapshot.of(saved)));
+        return saved;
+    }
+
+    // Approve with a single UPDATE; returns false if the product does not exist
+    public boolean approveProduct(Long id) {
+        for (int attempt = 0; attempt < MAX_UPDATE_ATTEMPTS; attempt++) {
+            Optional<ProductSnapshot> before = productRepository.findSnapshotById(id);
+            if (before.isEmpty()) {
+                return false;
+            }
+            ProductSnapshot old = before.get();
+            if (productRepository.approve(id, ProductStatus.APPROVED, old.getVersion()) == 1) {
+                eventPublisher.publishEvent(new ProductChangedEvent(old, new ProductSnapshot(id, old.getProductOwnerId(),
+                        old.getCategory(), ProductStatus.APPROVED, old.getCreatedAt(), old.getVersion() + 1)));
+                return true;
+            }
+        }
+        throw new OptimisticLockingFailureException("Product " + id + " is being changed concurrently");
+    }
+
+    // Set the stock level; returns false if the product does not exist
+    public boolean updateStock(Long id, int stock) {
+        Optional<ProductSnapshot> before = productRepository.findSnapshotById(id);
+        if (productRepository.updateStock(id, stock) != 1) {
+            return false;
+        }
+        publishUnchanged(id, before);
+        return true;
+    }
+
+    // Flag or unflag for flash-sale inventory; returns false if the product does not exist
+    public boolean updateFlashSale(Long id, boolean flashSale) {
+        Optional<ProductSnapshot> before = productRepository.findSnapshotById(id);
+        if (productRepository.updateFlashSale(id, flashSale) != 1) {
+            return false;
+        }
+        publishUnchanged(id, before);
+        return true;
     }
 
     public void deleteProduct(Long id) {
+        Optional<ProductSnapshot> before = productRepository.findSnapshotById(id);
         productRepository.deleteById(id);
+        before.ifPresent(snapshot -> eventPublisher.publishEvent(new ProductChangedEvent(snapshot, null)));
     }
     public List<Product> getProductsByOwnerId(Long ownerId) {
         return productRepository.findProductsByProductOwnerId(ownerId);
     }
+
+    // A change outside the snapshot columns (stock, flash sale): listeners such as the catalog
+    // response cache still need to hear about it; rollups see no difference
+    private void publishUnchanged(Long id, Optional<ProductSnapshot> before) {
+        Optional<ProductSnapshot> after = productRepository.findSnapshotById(id);
+        if (before.isPresent() && after.isPresent()) {
+            eventPublisher.publishEvent(new ProductChangedEvent(before.get(), after.get()));
+        }
+    }
 }
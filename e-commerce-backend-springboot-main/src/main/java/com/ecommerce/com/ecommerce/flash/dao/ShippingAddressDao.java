@@ -0,0 +1,119 @@
+package com.ecommerce.com.ecommerce.flash.dao;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ecommerce.com.ecommerce.flash.entity.Order;
+import com.ecommerce.com.ecommerce.flash.entity.ShippingAddress;
+import com.ecommerce.com.ecommerce.flash.repository.ShippingAddressRepository;
+import com.ecommerce.com.ecommerce.flash.util.TtlCache;
+
+import jakarta.annotation.PostConstruct;
+
+@Service
+public class ShippingAddressDao {
+
+    // Separator between fields when hashing; must match the V8 migration (CHAR(31))
+    private static final String SEPARATOR = "\u001F";
+
+    @Autowired
+    private ShippingAddressRepository shippingAddressRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Addresses never change once stored, so hash -> row can be cached for a long time
+    private final TtlCache<String, ShippingAddress> byHash = new TtlCache<>(10000, 3600000);
+    private TransactionTemplate newTransaction;
+
+    @PostConstruct
+    public void init() {
+        newTransaction = new TransactionTemplate(transactionManager);
+        newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // The stored address matching the order's shipping fields, created on first use.
+    // Returns null when the order carries no address at all (e.g. cart items).
+    public ShippingAddress resolve(Order order) {
+        String[] fields = normalize(order);
+        boolean empty = true;
+        for (String field : fields) {
+            empty &= field.isEmpty();
+        }
+        if (empty) {
+            return null;
+        }
+        String hash = contentHash(fields);
+        ShippingAddress cached = byHash.get(hash);
+        if (cached != null) {
+            return cached;
+        }
+        ShippingAddress address;
+        try {
+            address = findOrInsert(hash, fields);
+        } catch (DataIntegrityViolationException e) {
+            // Inserted concurrently by another request; it is committed now
+            address = findOrInsert(hash, fields);
+        }
+        byHash.put(hash, address);
+        return address;
+    }
+
+    // Runs in its own transaction so a duplicate-key race never marks the caller's
+    // transaction (e.g. a batch of orders) for rollback
+    private ShippingAddress findOrInsert(String hash, String[] fields) {
+        return newTransaction.execute(tx -> {
+            Optional<ShippingAddress> existing = shippingAddressRepository.findByContentHash(hash);
+            if (existing.isPresent()) {
+                return existing.get();
+            }
+            ShippingAddress address = new ShippingAddress();
+            address.setContentHash(hash);
+            address.setFirstName(emptyToNull(fields[0]));
+            address.setLastName(emptyToNull(fields[1]));
+            address.setAddress(emptyToNull(fields[2]));
+            address.setCity(emptyToNull(fields[3]));
+            address.setState(emptyToNull(fields[4]));
+            address.setZipCode(emptyToNull(fields[5]));
+            address.setCountry(emptyToNull(fields[6]));
+            address.setPhone(emptyToNull(fields[7]));
+            return shippingAddressRepository.saveAndFlush(address);
+        });
+    }
+
+    private static String[] normalize(Order order) {
+        return new String[] {
+                trim(order.getShippingFirstName()), trim(order.getShippingLastName()), trim(order.getShippingAddress()),
+                trim(order.getShippingCity()), trim(order.getShippingState()), trim(order.getShippingZipCode()),
+                trim(order.getShippingCountry()), trim(order.getShippingPhone())
+        };
+    }
+
+    static String contentHash(String[] fields) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                                         .digest(String.join(SEPARATOR, fields).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String trim(String value) {
+        return value == null ? "" : value.trim();
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+}
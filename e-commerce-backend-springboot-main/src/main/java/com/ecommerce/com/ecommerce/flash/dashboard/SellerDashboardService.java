@@ -0,0 +1,253 @@
+package com.ecommerce.com.ecommerce.flash.dashboard;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.ecommerce.com.ecommerce.flash.dao.OrderDao;
+import com.ecommerce.com.ecommerce.flash.dto.OrderPageDTO;
+import com.ecommerce.com.ecommerce.flash.dto.OrderSnapshot;
+import com.ecommerce.com.ecommerce.flash.dto.OrderSummaryDTO;
+import com.ecommerce.com.ecommerce.flash.dto.SellerDashboardDTO;
+import com.ecommerce.com.ecommerce.flash.entity.SellerDailySales;
+import com.ecommerce.com.ecommerce.flash.entity.SellerOrderCounter;
+import com.ecommerce.com.ecommerce.flash.event.OrderChangedEvent;
+import com.ecommerce.com.ecommerce.flash.event.ProductChangedEvent;
+import com.ecommerce.com.ecommerce.flash.repository.OrderRepository;
+import com.ecommerce.com.ecommerce.flash.repository.SellerDailySalesRepository;
+import com.ecommerce.com.ecommerce.flash.repository.SellerOrderCounterRepository;
+import com.ecommerce.com.ecommerce.flash.util.TtlCache;
+
+// Seller dashboard. Counters per status and daily units/revenue are adjusted on every order
+// change, so loading the dashboard reads a handful of rows instead of every order ever placed.
+@Service
+public class SellerDashboardService {
+
+    public static final String IN_CART = "In Cart";
+    // Statuses that do not count as a sale
+    private static final Set<String> NOT_SOLD = Set.of(IN_CART, "REJECTED", "CANCELLED");
+    private static final int MAX_PAGE_SIZE = 100;
+    // Hot and archived orders together, for rebuilding from scratch
+    private static final String ALL_ORDERS = "(SELECT product_id, status, quantity, unit_price, order_date FROM orders "
+            + "UNION ALL SELECT product_id, status, quantity, unit_price, order_date FROM orders_archive)";
+
+    private static class ProductSale {
+        final Long ownerId;
+        final BigDecimal price;
+
+        ProductSale(Long ownerId, BigDecimal price) {
+            this.ownerId = ownerId;
+            this.price = price;
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private OrderDao orderDao;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private SellerOrderCounterRepository sellerOrderCounterRepository;
+
+    @Autowired
+    private SellerDailySalesRepository sellerDailySalesRepository;
+
+    // Owner and price per product, so counter updates do not re-read the product every time; the price
+    // only counts for orders placed before unit prices were recorded on the order
+    private final TtlCache<Long, ProductSale> productSales = new TtlCache<>(10000, 300000);
+
+    public static boolean isSale(String status) {
+        return status != null && !NOT_SOLD.contains(status);
+    }
+
+    @EventListener
+    public void onOrderChanged(OrderChangedEvent event) {
+        try {
+            apply(event.getBefore(), -1);
+            apply(event.getAfter(), 1);
+        } catch (Exception e) {
+            // Counters are derived data; a rebuild restores them, the order itself must not fail
+            System.err.println("Could not update seller counters: " + e.getMessage());
+        }
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        // Owner or price may have changed
+        productSales.remove(event.getProductId());
+    }
+
+    public SellerDashboardDTO getDashboard(Long ownerId) {
+        SellerDashboardDTO dashboard = new SellerDashboardDTO();
+        dashboard.setProductOwnerId(ownerId);
+
+        TreeMap<String, Long> byStatus = new TreeMap<>();
+        long total = 0;
+        for (SellerOrderCounter counter : sellerOrderCounterRepository.findByProductOwnerId(ownerId)) {
+            if (counter.getOrderCount() != 0) {
+                byStatus.put(counter.getStatus(), counter.getOrderCount());
+                total += counter.getOrderCount();
+            }
+        }
+        dashboard.setOrdersByStatus(byStatus);
+        dashboard.setTotalOrders(total);
+
+        LocalDate today = LocalDate.now();
+        long unitsToday = 0, units7d = 0, units30d = 0;
+        BigDecimal revenueToday = BigDecimal.ZERO, revenue7d = BigDecimal.ZERO, revenue30d = BigDecimal.ZERO;
+        for (SellerDailySales day : sellerDailySalesRepository
+                .findByProductOwnerIdAndSalesDateGreaterThanEqual(ownerId, today.minusDays(29))) {
+            units30d += day.getUnits();
+            revenue30d = revenue30d.add(day.getRevenue());
+            if (!day.getSalesDate().isBefore(today.minusDays(6))) {
+                units7d += day.getUnits();
+                revenue7d = revenue7d.add(day.getRevenue());
+            }
+            if (day.getSalesDate().equals(today)) {
+                unitsToday += day.getUnits();
+                revenueToday = revenueToday.add(day.getRevenue());
+            }
+        }
+        dashboard.setUnitsToday(unitsToday);
+        dashboard.setUnits7d(units7d);
+        dashboard.setUnits30d(units30d);
+        dashboard.setRevenueToday(revenueToday);
+        dashboard.setRevenue7d(revenue7d);
+        dashboard.setRevenue30d(revenue30d);
+
+        Object[] allTime = sellerDailySalesRepository.sumByProductOwnerId(ownerId).get(0);
+        dashboard.setUnitsSold(((Number) allTime[0]).longValue());
+        dashboard.setRevenue(new BigDecimal(allTime[1].toString()));
+        return dashboard;
+    }
+
+    // One page of a seller's orders, newest first
+    public OrderPageDTO getOrderPage(Long ownerId, String status, LocalDateTime from, LocalDateTime to,
+                                     String cursor, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        LocalDateTime cursorDate = null;
+        Long cursorId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            // Cursors come back from clients; anything that is not one we issued is rejected
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", -1);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            try {
+                cursorDate = LocalDateTime.parse(parts[0]);
+                cursorId = Long.parseLong(parts[1]);
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid cursor", e);
+            }
+        }
+        // Fetch one extra row to know whether there is a next page
+        List<OrderSummaryDTO> rows = orderDao.getSellerOrderPage(ownerId, status, from, to, cursorDate, cursorId, size + 1);
+        String nextCursor = null;
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            OrderSummaryDTO last = rows.get(size - 1);
+            String raw = last.getOrderDate() + "|" + last.getId();
+            nextCursor = Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+        return new OrderPageDTO(rows, nextCursor);
+    }
+
+    // Recompute every counter from the orders and orders_archive tables
+    @Transactional
+    public void rebuild() {
+        jdbcTemplate.update("DELETE FROM seller_order_counters");
+        jdbcTemplate.update("DELETE FROM seller_daily_sales");
+        jdbcTemplate.update("INSERT INTO seller_order_counters (product_owner_id, status, order_count) "
+                + "SELECT p.product_owner_id, o.status, COUNT(*) FROM " + ALL_ORDERS + " o JOIN products p ON p.id = o.product_id "
+                + "WHERE p.product_owner_id IS NOT NULL AND o.status <> ? "
+                + "GROUP BY p.product_owner_id, o.status", IN_CART);
+        jdbcTemplate.update("INSERT INTO seller_daily_sales (product_owner_id, sales_date, units, revenue) "
+                + "SELECT p.product_owner_id, CAST(o.order_date AS DATE), SUM(o.quantity), SUM(o.quantity * COALESCE(o.unit_price, p.price)) "
+                + "FROM " + ALL_ORDERS + " o JOIN products p ON p.id = o.product_id "
+                + "WHERE p.product_owner_id IS NOT NULL AND o.status NOT IN (?, ?, ?) "
+                + "GROUP BY p.product_owner_id, CAST(o.order_date AS DATE)", NOT_SOLD.toArray());
+    }
+
+    // Fill the counters the first time the application runs against existing orders
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (sellerOrderCounterRepository.count() == 0 && orderRepository.count() > 0) {
+            System.out.println("Building seller dashboard counters from existing orders");
+            rebuild();
+        }
+    }
+
+    private void apply(OrderSnapshot order, int sign) {
+        if (order == null || order.getProductId() == null || order.getStatus() == null) {
+            return;
+        }
+        ProductSale sale = productSale(order.getProductId());
+        if (sale == null || sale.ownerId == null) {
+            return;
+        }
+        if (!IN_CART.equals(order.getStatus())) {
+            upsert("UPDATE seller_order_counters SET order_count = order_count + ? "
+                            + "WHERE product_owner_id = ? AND status = ?",
+                    new Object[] { sign, sale.ownerId, order.getStatus() },
+                    "INSERT INTO seller_order_counters (product_owner_id, status, order_count) VALUES (?, ?, ?)",
+                    new Object[] { sale.ownerId, order.getStatus(), sign });
+        }
+        if (isSale(order.getStatus())) {
+            int quantity = order.getQuantity() != null ? order.getQuantity() : 0;
+            long units = (long) sign * quantity;
+            // Priced as sold, so later price changes do not skew the delta taken back on cancel
+            BigDecimal price = order.getUnitPrice() != null ? order.getUnitPrice() : sale.price;
+            BigDecimal revenue = price != null ? price.multiply(BigDecimal.valueOf(units)) : BigDecimal.ZERO;
+            Date day = Date.valueOf(order.getOrderDate() != null ? order.getOrderDate().toLocalDate() : LocalDate.now());
+            upsert("UPDATE seller_daily_sales SET units = units + ?, revenue = revenue + ? "
+                            + "WHERE product_owner_id = ? AND sales_date = ?",
+                    new Object[] { units, revenue, sale.ownerId, day },
+                    "INSERT INTO seller_daily_sales (product_owner_id, sales_date, units, revenue) VALUES (?, ?, ?, ?)",
+                    new Object[] { sale.ownerId, day, units, revenue });
+        }
+    }
+
+    private void upsert(String updateSql, Object[] updateArgs, String insertSql, Object[] insertArgs) {
+        if (jdbcTemplate.update(updateSql, updateArgs) > 0) {
+            return;
+        }
+        try {
+            jdbcTemplate.update(insertSql, insertArgs);
+        } catch (DuplicateKeyException e) {
+            // Inserted concurrently; add to the row that now exists
+            jdbcTemplate.update(updateSql, updateArgs);
+        }
+    }
+
+    private ProductSale productSale(Long productId) {
+        ProductSale sale = productSales.get(productId);
+        if (sale == null) {
+            sale = jdbcTemplate.query("SELECT product_owner_id, price FROM products WHERE id = ?",
+                    rs -> rs.next() ? new ProductSale((Long) rs.getObject("product_owner_id", Long.class),
+                            rs.getBigDecimal("price")) : null, productId);
+            if (sale != null) {
+                productSales.put(productId, sale);
+            }
+        }
+        return sale;
+    }
+}
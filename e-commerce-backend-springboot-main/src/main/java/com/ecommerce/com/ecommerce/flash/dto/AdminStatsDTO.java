@@ -0,0 +1,49 @@
+package com.ecommerce.com.ecommerce.flash.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import com.ecommerce.com.ecommerce.flash.entity.StatsRollup;
+
+// Admin analytics for a time range: totals per dimension and key, plus the individual buckets
+public class AdminStatsDTO {
+
+    public static class Totals {
+        private long count;
+        private long units;
+        private BigDecimal revenue = BigDecimal.ZERO;
+
+        public void add(StatsRollup bucket) {
+            count += bucket.getItemCount();
+            units += bucket.getUnits();
+            revenue = revenue.add(bucket.getRevenue());
+        }
+
+        public long getCount() { return count; }
+        public long getUnits() { return units; }
+        public BigDecimal getRevenue() { return revenue; }
+    }
+
+    private StatsRollup.Granularity granularity;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private Map<StatsRollup.Dimension, Map<String, Totals>> totals;
+    private List<StatsRollup> buckets;
+
+    public StatsRollup.Granularity getGranularity() { return granularity; }
+    public void setGranularity(StatsRollup.Granularity granularity) { this.granularity = granularity; }
+
+    public LocalDateTime getFrom() { return from; }
+    public void setFrom(LocalDateTime from) { this.from = from; }
+
+    public LocalDateTime getTo() { return to; }
+    public void setTo(LocalDateTime to) { this.to = to; }
+
+    public Map<StatsRollup.Dimension, Map<String, Totals>> getTotals() { return totals; }
+    public void setTotals(Map<StatsRollup.Dimension, Map<String, Totals>> totals) { this.totals = totals; }
+
+    public List<StatsRollup> getBuckets() { return buckets; }
+    public void setBuckets(List<StatsRollup> buckets) { this.buckets = buckets; }
+}
@@ -0,0 +1,20 @@
+package com.ecommerce.com.ecommerce.flash.dto;
+
+import java.util.List;
+import java.util.Map;
+
+// Product list in the normalized shape (?shape=normalized): each product names its seller by
+// ownerId and every seller appears once in owners, keyed by that id
+public class NormalizedProductsDTO {
+
+    private final List<Map<String, Object>> products;
+    private final Map<Long, ProductOwnerDTO> owners;
+
+    public NormalizedProductsDTO(List<Map<String, Object>> products, Map<Long, ProductOwnerDTO> owners) {
+        this.products = products;
+        this.owners = owners;
+    }
+
+    public List<Map<String, Object>> getProducts() { return products; }
+    public Map<Long, ProductOwnerDTO> getOwners() { return owners; }
+}
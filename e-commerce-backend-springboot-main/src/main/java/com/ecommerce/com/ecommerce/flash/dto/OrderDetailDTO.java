@@ -0,0 +1,62 @@
+package com.ecommerce.com.ecommerce.flash.dto;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+// Single order with its shipping and payment details
+public class OrderDetailDTO extends OrderSummaryDTO {
+
+    // OrderSummaryDTO.FIELDS plus the shipping and payment properties
+    public static final Set<String> FIELDS;
+
+    static {
+        Set<String> fields = new LinkedHashSet<>(OrderSummaryDTO.FIELDS);
+        fields.addAll(List.of("shippingFirstName", "shippingLastName", "shippingAddress", "shippingCity",
+                "shippingState", "shippingZipCode", "shippingCountry", "shippingPhone", "paymentMethod", "cardLastFour"));
+        FIELDS = Collections.unmodifiableSet(fields);
+    }
+
+    private final String shippingFirstName;
+    private final String shippingLastName;
+    private final String shippingAddress;
+    private final String shippingCity;
+    private final String shippingState;
+    private final String shippingZipCode;
+    private final String shippingCountry;
+    private final String shippingPhone;
+    private final String paymentMethod;
+    private final String cardLastFour;
+
+    public OrderDetailDTO(Long id, String status, LocalDateTime orderDate, Integer quantity,
+                          Long productId, String productName, double productPrice, String productImagePrefix,
+                          Long userId, String userName,
+                          String shippingFirstName, String shippingLastName, String shippingAddress,
+                          String shippingCity, String shippingState, String shippingZipCode,
+                          String shippingCountry, String shippingPhone, String paymentMethod, String cardLastFour) {
+        super(id, status, orderDate, quantity, productId, productName, productPrice, productImagePrefix, userId, userName);
+        this.shippingFirstName = shippingFirstName;
+        this.shippingLastName = shippingLastName;
+        this.shippingAddress = shippingAddress;
+        this.shippingCity = shippingCity;
+        this.shippingState = shippingState;
+        this.shippingZipCode = shippingZipCode;
+        this.shippingCountry = shippingCountry;
+        this.shippingPhone = shippingPhone;
+        this.paymentMethod = paymentMethod;
+        this.cardLastFour = cardLastFour;
+    }
+
+    public String getShippingFirstName() { return shippingFirstName; }
+    public String getShippingLastName() { return shippingLastName; }
+    public String getShippingAddress() { return shippingAddress; }
+    public String getShippingCity() { return shippingCity; }
+    public String getShippingState() { return shippingState; }
+    public String getShippingZipCode() { return shippingZipCode; }
+    public String getShippingCountry() { return shippingCountry; }
+    public String getShippingPhone() { return shippingPhone; }
+    public String getPaymentMethod() { return paymentMethod; }
+    public String getCardLastFour() { return cardLastFour; }
+}
@@ -0,0 +1,18 @@
+package com.ecommerce.com.ecommerce.flash.dto;
+
+import java.util.List;
+
+// One page of a keyset-paginated order list; nextCursor is null on the last page
+public class OrderPageDTO {
+
+    private final List<OrderSummaryDTO> orders;
+    private final String nextCursor;
+
+    public OrderPageDTO(List<OrderSummaryDTO> orders, String nextCursor) {
+        this.orders = orders;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<OrderSummaryDTO> getOrders() { return orders; }
+    public String getNextCursor() { return nextCursor; }
+}
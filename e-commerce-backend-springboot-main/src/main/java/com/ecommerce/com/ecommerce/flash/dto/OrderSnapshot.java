@@ -0,0 +1,43 @@
+package com.ecommerce.com.ecommerce.flash.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import com.ecommerce.com.ecommerce.flash.entity.Order;
+
+// The few order columns that derived data (counters, rollups) depends on
+public class OrderSnapshot {
+
+    private final Long id;
+    private final Long productId;
+    private final Integer quantity;
+    private final String status;
+    private final LocalDateTime orderDate;
+    private final long version;
+    // Price the order was placed at; null for orders older than the column
+    private final BigDecimal unitPrice;
+
+    public OrderSnapshot(Long id, Long productId, Integer quantity, String status, LocalDateTime orderDate, long version,
+                         BigDecimal unitPrice) {
+        this.id = id;
+        this.productId = productId;
+        this.quantity = quantity;
+        this.status = status;
+        this.orderDate = orderDate;
+        this.version = version;
+        this.unitPrice = unitPrice;
+    }
+
+    public static OrderSnapshot of(Order order) {
+        return new OrderSnapshot(order.getId(), order.getProduct() != null ? order.getProduct().getId() : null,
+                order.getQuantity(), order.getStatus(), order.getOrderDate(), order.getVersion(), order.getUnitPrice());
+    }
+
+    public Long getId() { return id; }
+    public Long getProductId() { return productId; }
+    public Integer getQuantity() { return quantity; }
+    public String getStatus() { return status; }
+    public LocalDateTime getOrderDate() { return orderDate; }
+    public long getVersion() { return version; }
+    public BigDecimal getUnitPrice() { return unitPrice; }
+}
@@ -0,0 +1,85 @@
+package com.ecommerce.com.ecommerce.flash.dto;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+// Order as shown in lists: the order columns plus just enough of the product and buyer
+// to render a row. Filled directly by projection queries in OrderRepository.
+public class OrderSummaryDTO {
+
+    // Longest image value that is still treated as a thumbnail URL
+    public static final int THUMBNAIL_MAX_LENGTH = 1024;
+
+    // What ?fields= may name: the JSON properties, and those of product and user as product.name etc.
+    public static final Set<String> FIELDS = Collections.unmodifiableSet(new LinkedHashSet<>(List.of("id", "status",
+            "orderDate", "quantity", "product", "product.id", "product.name", "product.price", "product.thumbnail",
+            "user", "user.id", "user.name")));
+
+    public static class ProductRef {
+        private final Long id;
+        private final String name;
+        private final double price;
+        private final String thumbnail;
+
+        public ProductRef(Long id, String name, double price, String thumbnail) {
+            this.id = id;
+            this.name = name;
+            this.price = price;
+            this.thumbnail = thumbnail;
+        }
+
+        public Long getId() { return id; }
+        public String getName() { return name; }
+        public double getPrice() { return price; }
+        public String getThumbnail() { return thumbnail; }
+    }
+
+    public static class BuyerRef {
+        private final Long id;
+        private final String name;
+
+        public BuyerRef(Long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        public Long getId() { return id; }
+        public String getName() { return name; }
+    }
+
+    private final Long id;
+    private final String status;
+    private final LocalDateTime orderDate;
+    private final Integer quantity;
+    private final ProductRef product;
+    private final BuyerRef user;
+
+    public OrderSummaryDTO(Long id, String status, LocalDateTime orderDate, Integer quantity,
+                           Long productId, String productName, double productPrice, String productImagePrefix,
+                           Long userId, String userName) {
+        this.id = id;
+        this.status = status;
+        this.orderDate = orderDate;
+        this.quantity = quantity;
+        this.product = new ProductRef(productId, productName, productPrice, thumbnail(productImagePrefix));
+        this.user = new BuyerRef(userId, userName);
+    }
+
+    // Only image URLs make a usable thumbnail; inline base64 images are left to the product endpoint
+    public static String thumbnail(String imagePrefix) {
+        if (imagePrefix == null || !imagePrefix.startsWith("http") || imagePrefix.length() >= THUMBNAIL_MAX_LENGTH) {
+            return null;
+        }
+        return imagePrefix;
+    }
+
+    public Long getId() { return id; }
+    public String getStatus() { return status; }
+    public LocalDateTime getOrderDate() { return orderDate; }
+    public Integer getQuantity() { return quantity; }
+    public ProductRef getProduct() { return product; }
+    public BuyerRef getUser() { return user; }
+}
@@ -0,0 +1,19 @@
+package com.ecommerce.com.ecommerce.flash.dto;
+
+import java.util.List;
+
+// Result of a batch product read: one entry per requested id, in request order, null where the
+// id is unknown; missing lists those ids once each
+public class ProductBatchDTO {
+
+    private final List<Object> products;
+    private final List<Long> missing;
+
+    public ProductBatchDTO(List<Object> products, List<Long> missing) {
+        this.products = products;
+        this.missing = missing;
+    }
+
+    public List<Object> getProducts() { return products; }
+    public List<Long> getMissing() { return missing; }
+}
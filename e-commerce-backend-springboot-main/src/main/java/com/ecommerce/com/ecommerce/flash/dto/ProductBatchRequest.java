@@ -0,0 +1,14 @@
+package com.ecommerce.com.ecommerce.flash.dto;
+
+import java.util.List;
+
+// Body of POST /api/products/batch, for id lists too long for a query string
+public class ProductBatchRequest {
+    private List<Long> ids;
+    private String fields;
+
+    public List<Long> getIds() { return ids; }
+    public void setIds(List<Long> ids) { this.ids = ids; }
+    public String getFields() { return fields; }
+    public void setFields(String fields) { this.fields = fields; }
+}
@@ -0,0 +1,45 @@
+package com.ecommerce.com.ecommerce.flash.dto;
+
+import java.util.List;
+
+// Product as returned by the catalog endpoints, with the image as a URL or data URL
+public class ProductDTO {
+    private Long id;
+    private String name;
+    private String description;
+    private double price;
+    private int stock;
+    private String category;
+    private boolean available;
+    private List<String> productSizes;
+    private List<String> productColors;
+    private String productImageBase64;
+    private ProductOwnerDTO productOwner;
+    private boolean approved;
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+    public double getPrice() { return price; }
+    public void setPrice(double price) { this.price = price; }
+    public int getStock() { return stock; }
+    public void setStock(int stock) { this.stock = stock; }
+    public String getCategory() { return category; }
+    public void setCategory(String category) { this.category = category; }
+    public boolean isAvailable() { return available; }
+    public void setAvailable(boolean available) { this.available = available; }
+    public List<String> getProductSizes() { return productSizes; }
+    public void setProductSizes(List<String> productSizes) { this.productSizes = productSizes; }
+    public List<String> getProductColors() { return productColors; }
+    public void setProductColors(List<String> productColors) { this.productColors = productColors; }
+    public String getProductImageBase64() { return productImageBase64; }
+    public void setProductImageBase64(String productImageBase64) { this.productImageBase64 = productImageBase64; }
+    public ProductOwnerDTO getProductOwner() { return productOwner; }
+    public void setProductOwner(ProductOwnerDTO productOwner) { this.productOwner = productOwner; }
+    public boolean isApproved() { return approved; }
+    public void setApproved(boolean approved) { this.approved = approved; }
+}
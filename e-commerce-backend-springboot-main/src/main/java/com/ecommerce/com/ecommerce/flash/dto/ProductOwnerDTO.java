@@ -0,0 +1,29 @@
+package com.ecommerce.com.ecommerce.flash.dto;
+
+import com.ecommerce.com.ecommerce.flash.entity.ProductOwner;
+
+// Public view of a seller: what a catalog page shows, never the password
+public class ProductOwnerDTO {
+
+    private final Long productOwnerId;
+    private final String productOwnerName;
+    private final String productOwnerEmail;
+    private final long productOwnerNumber;
+
+    public ProductOwnerDTO(Long productOwnerId, String productOwnerName, String productOwnerEmail, long productOwnerNumber) {
+        this.productOwnerId = productOwnerId;
+        this.productOwnerName = productOwnerName;
+        this.productOwnerEmail = productOwnerEmail;
+        this.productOwnerNumber = productOwnerNumber;
+    }
+
+    public static ProductOwnerDTO of(ProductOwner owner) {
+        return new ProductOwnerDTO(owner.getProductOwnerId(), owner.getProductOwnerName(), owner.getProductOwnerEmail(),
+                owner.getProductOwnerNumber());
+    }
+
+    public Long getProductOwnerId() { return productOwnerId; }
+    public String getProductOwnerName() { return productOwnerName; }
+    public String getProductOwnerEmail() { return productOwnerEmail; }
+    public long getProductOwnerNumber() { return productOwnerNumber; }
+}
@@ -0,0 +1,30 @@
+package com.ecommerce.com.ecommerce.flash.dto;
+
+import java.util.List;
+import java.util.Map;
+
+// Everything the product detail page shows. sellerProducts and cart are null when they could not be
+// loaded in time (their names are then in unavailable); cart is also null for anonymous callers.
+public class ProductPageDTO {
+
+    private final ProductDTO product;
+    private final ProductOwnerDTO owner;
+    private final List<Map<String, Object>> sellerProducts;
+    private final List<OrderSummaryDTO> cart;
+    private final List<String> unavailable;
+
+    public ProductPageDTO(ProductDTO product, ProductOwnerDTO owner, List<Map<String, Object>> sellerProducts,
+                          List<OrderSummaryDTO> cart, List<String> unavailable) {
+        this.product = product;
+        this.owner = owner;
+        this.sellerProducts = sellerProducts;
+        this.cart = cart;
+        this.unavailable = unavailable;
+    }
+
+    public ProductDTO getProduct() { return product; }
+    public ProductOwnerDTO getOwner() { return owner; }
+    public List<Map<String, Object>> getSellerProducts() { return sellerProducts; }
+    public List<OrderSummaryDTO> getCart() { return cart; }
+    public List<String> getUnavailable() { return unavailable; }
+}
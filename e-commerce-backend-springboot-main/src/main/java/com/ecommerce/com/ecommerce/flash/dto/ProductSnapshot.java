@@ -0,0 +1,40 @@
+package com.ecommerce.com.ecommerce.flash.dto;
+
+import java.time.LocalDateTime;
+
+import com.ecommerce.com.ecommerce.flash.entity.Product;
+import com.ecommerce.com.ecommerce.flash.entity.ProductStatus;
+
+// The few product columns that derived data (rollups, caches) depends on
+public class ProductSnapshot {
+
+    private final Long id;
+    private final Long productOwnerId;
+    private final String category;
+    private final ProductStatus status;
+    private final LocalDateTime createdAt;
+    private final long version;
+
+    public ProductSnapshot(Long id, Long productOwnerId, String category, ProductStatus status, LocalDateTime createdAt,
+                           long version) {
+        this.id = id;
+        this.productOwnerId = productOwnerId;
+        this.category = category;
+        this.status = status;
+        this.createdAt = createdAt;
+        this.version = version;
+    }
+
+    public static ProductSnapshot of(Product product) {
+        return new ProductSnapshot(product.getId(),
+                product.getProductOwner() != null ? product.getProductOwner().getProductOwnerId() : null,
+                product.getCategory(), product.getStatus(), product.getCreatedAt(), product.getVersion());
+    }
+
+    public Long getId() { return id; }
+    public Long getProductOwnerId() { return productOwnerId; }
+    public String getCategory() { return category; }
+    public ProductStatus getStatus() { return status; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public long getVersion() { return version; }
+}
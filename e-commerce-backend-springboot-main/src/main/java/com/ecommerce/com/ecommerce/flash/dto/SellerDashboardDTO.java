@@ -0,0 +1,43 @@
+package com.ecommerce.com.ecommerce.flash.dto;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+// Pre-aggregated seller counters for the dashboard header
+public class SellerDashboardDTO {
+
+    private Long productOwnerId;
+    private Map<String, Long> ordersByStatus;
+    private long totalOrders;
+    private long unitsSold;
+    private BigDecimal revenue;
+    private long unitsToday;
+    private long units7d;
+    private long units30d;
+    private BigDecimal revenueToday;
+    private BigDecimal revenue7d;
+    private BigDecimal revenue30d;
+
+    public Long getProductOwnerId() { return productOwnerId; }
+    public void setProductOwnerId(Long productOwnerId) { this.productOwnerId = productOwnerId; }
+    public Map<String, Long> getOrdersByStatus() { return ordersByStatus; }
+    public void setOrdersByStatus(Map<String, Long> ordersByStatus) { this.ordersByStatus = ordersByStatus; }
+    public long getTotalOrders() { return totalOrders; }
+    public void setTotalOrders(long totalOrders) { this.totalOrders = totalOrders; }
+    public long getUnitsSold() { return unitsSold; }
+    public void setUnitsSold(long unitsSold) { this.unitsSold = unitsSold; }
+    public BigDecimal getRevenue() { return revenue; }
+    public void setRevenue(BigDecimal revenue) { this.revenue = revenue; }
+    public long getUnitsToday() { return unitsToday; }
+    public void setUnitsToday(long unitsToday) { this.unitsToday = unitsToday; }
+    public long getUnits7d() { return units7d; }
+    public void setUnits7d(long units7d) { this.units7d = units7d; }
+    public long getUnits30d() { return units30d; }
+    public void setUnits30d(long units30d) { this.units30d = units30d; }
+    public BigDecimal getRevenueToday() { return revenueToday; }
+    public void setRevenueToday(BigDecimal revenueToday) { this.revenueToday = revenueToday; }
+    public BigDecimal getRevenue7d() { return revenue7d; }
+    public void setRevenue7d(BigDecimal revenue7d) { this.revenue7d = revenue7d; }
+    public BigDecimal getRevenue30d() { return revenue30d; }
+    public void setRevenue30d(BigDecimal revenue30d) { this.revenue30d = revenue30d; }
+}
@@ -0,0 +1,22 @@
+package com.ecommerce.com.ecommerce.flash.dto;
+
+// One type-ahead completion: a product (with its id) or a category (productId is null)
+public class SuggestionDTO {
+
+    public static final String PRODUCT = "product";
+    public static final String CATEGORY = "category";
+
+    private final String type;
+    private final String text;
+    private final Long productId;
+
+    public SuggestionDTO(String type, String text, Long productId) {
+        this.type = type;
+        this.text = text;
+        this.productId = productId;
+    }
+
+    public String getType() { return type; }
+    public String getText() { return text; }
+    public Long getProductId() { return productId; }
+}
@@ -1,5 +1,7 @@
 package com.ecommerce.com.ecommerce.flash.entity;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
@@ -29,6 +31,8 @@ public class Admin {
     @Column(nullable = false, unique = true)
     private String adminEmail;
 
+    // The PBKDF2 hash (see PrincipalService); accepted on create and update, never written out
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     @Column(nullable = false)
     private String adminPassword;
 
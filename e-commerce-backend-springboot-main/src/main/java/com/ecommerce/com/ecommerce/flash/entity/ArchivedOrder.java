@@ -0,0 +1,77 @@
+package com.ecommerce.com.ecommerce.flash.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// An order moved out of the orders table by OrderArchiver. Same columns as Order plus
+// archivedAt; rows are written with INSERT ... SELECT and only ever read afterwards.
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "orders_archive", indexes = {
+    @Index(name = "idx_orders_archive_product_date", columnList = "product_id, orderDate"),
+    @Index(name = "idx_orders_archive_user", columnList = "user_id")
+})
+public class ArchivedOrder {
+
+    // Keeps the id it had in the orders table
+    @Id
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "product_id", nullable = false)
+    private Product product;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(nullable = false)
+    private String status;
+
+    @Column(nullable = false)
+    private LocalDateTime orderDate;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Column(precision = 10, scale = 2)
+    private BigDecimal unitPrice;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "shipping_address_id")
+    private ShippingAddress address;
+
+    @Column
+    private String paymentMethod;
+
+    @Column
+    private String cardLastFour;
+
+    @Column(nullable = false)
+    private LocalDateTime archivedAt;
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getOrderDate() {
+        return orderDate;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+}
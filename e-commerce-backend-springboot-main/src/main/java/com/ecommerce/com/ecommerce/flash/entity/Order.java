@@ -1,17 +1,27 @@
 package com.ecommerce.com.ecommerce.flash.entity;
 
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import org.hibernate.annotations.DynamicUpdate;
+
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
+@DynamicUpdate
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+    @Index(name = "idx_orders_product_date", columnList = "product_id, orderDate"),
+    @Index(name = "idx_orders_user", columnList = "user_id"),
+    @Index(name = "idx_orders_status_date", columnList = "status, orderDate")
+})
 public class Order {
 
     @Id
@@ -39,32 +49,43 @@ public class Order {
     // Quantity of items in the order
     @Column(nullable = false)
     private Integer quantity = 1;
+
+    // Product price when the order was placed (set by OrderDao, never taken from the client)
+    @JsonIgnore
+    @Column(precision = 10, scale = 2)
+    private BigDecimal unitPrice;
     
-    // Shipping details
-    @Column
+    // Shipping details as sent by the client; stored once per distinct address in
+    // shipping_addresses and referenced through address (resolved by OrderDao)
+    @Transient
     private String shippingFirstName;
     
-    @Column
+    @Transient
     private String shippingLastName;
     
-    @Column
+    @Transient
     private String shippingAddress;
     
-    @Column
+    @Transient
     private String shippingCity;
     
-    @Column
+    @Transient
     private String shippingState;
     
-    @Column
+    @Transient
     private String shippingZipCode;
     
-    @Column
+    @Transient
     private String shippingCountry;
     
-    @Column
+    @Transient
     private String shippingPhone;
     
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "shipping_address_id")
+    private ShippingAddress address;
+
     @Column
     private String paymentMethod;
     
@@ -75,6 +96,12 @@ public class Order {
     @Transient
     private ShippingDetails shippingDetails;
 
+    // Optimistic lock; bumped by every update, including the targeted ones in OrderRepository
+    @JsonIgnore
+    @Version
+    @Column(nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private long version;
+
     public Long getId() {
         return id;
     }
@@ -123,6 +150,14 @@ public class Order {
         this.quantity = quantity;
     }
 
+    public BigDecimal getUnitPrice() {
+        return unitPrice;
+    }
+
+    public void setUnitPrice(BigDecimal unitPrice) {
+        this.unitPrice = unitPrice;
+    }
+
     public ShippingDetails getShippingDetails() {
         return shippingDetails;
     }
@@ -131,7 +166,23 @@ public class Order {
         this.shippingDetails = shippingDetails;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     // Getters and setters for shipping fields
+    public ShippingAddress getAddress() {
+        return address;
+    }
+
+    public void setAddress(ShippingAddress address) {
+        this.address = address;
+    }
+
     public String getShippingFirstName() {
         return shippingFirstName;
     }
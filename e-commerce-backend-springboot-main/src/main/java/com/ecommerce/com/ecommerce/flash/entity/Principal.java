@@ -0,0 +1,83 @@
+package com.ecommerce.com.ecommerce.flash.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Login credentials of a user, product owner or admin, keyed by normalized email so a
+// login is one indexed read regardless of the account type
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "principals",
+       uniqueConstraints = {
+           @UniqueConstraint(name = "uk_principals_email_type", columnNames = {"email", "account_type"}),
+           @UniqueConstraint(name = "uk_principals_account", columnNames = {"account_type", "account_id"})
+       })
+public class Principal {
+
+    // Declared in login precedence order: an email registered as several types logs in as the first
+    public enum AccountType { USER, PRODUCT_OWNER, ADMIN }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Trimmed and lower-cased
+    @Column(nullable = false)
+    private String email;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "account_type", nullable = false, length = 20)
+    private AccountType accountType;
+
+    // Id in the users, product_owners or admins table
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+
+    // pbkdf2$<iterations>$<salt>$<hash>, see PasswordHasher
+    @Column(name = "password_hash", nullable = false, length = 200)
+    private String passwordHash;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public AccountType getAccountType() {
+        return accountType;
+    }
+
+    public void setAccountType(AccountType accountType) {
+        this.accountType = accountType;
+    }
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public void setAccountId(Long accountId) {
+        this.accountId = accountId;
+    }
+
+    public String getPasswordHash() {
+        return passwordHash;
+    }
+
+    public void setPasswordHash(String passwordHash) {
+        this.passwordHash = passwordHash;
+    }
+}
@@ -1,13 +1,19 @@
 package com.ecommerce.com.ecommerce.flash.entity;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
+import org.hibernate.annotations.DynamicUpdate;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
+@DynamicUpdate
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -59,6 +65,21 @@ public class Product {
     @Enumerated(EnumType.STRING)
     private ProductStatus status = ProductStatus.PENDING;
 
+    // Flash-sale products have their stock served from the in-memory inventory engine
+    @Column(name = "flash_sale", nullable = false, columnDefinition = "BOOLEAN DEFAULT FALSE")
+    private boolean flashSale = false;
+
+    // When the product was listed
+    @Column(name = "created_at", updatable = false, columnDefinition = "DATETIME DEFAULT CURRENT_TIMESTAMP")
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    // Optimistic lock; bumped by every update, including the targeted ones in ProductRepository.
+    // Stock reservations (InventoryEngine) adjust stock atomically in SQL and leave it alone.
+    @JsonIgnore
+    @Version
+    @Column(nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private long version;
+
     public Long getId() {
         return id;
     }
@@ -162,4 +183,28 @@ public class Product {
     public void setStatus(ProductStatus status) {
         this.status = status;
     }
+
+    public boolean isFlashSale() {
+        return flashSale;
+    }
+
+    public void setFlashSale(boolean flashSale) {
+        this.flashSale = flashSale;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
 }
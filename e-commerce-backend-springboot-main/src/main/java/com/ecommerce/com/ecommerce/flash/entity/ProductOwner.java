@@ -41,7 +41,8 @@ public class ProductOwner {
     private String productOwnerEmail;
     
     @NotBlank(message = "Product owner password is required")
-    @JsonProperty("productOwnerPassword")
+    // The PBKDF2 hash (see PrincipalService); accepted on registration, never written out
+    @JsonProperty(value = "productOwnerPassword", access = JsonProperty.Access.WRITE_ONLY)
     @Column(name = "product_owner_password", nullable = false)
     private String productOwnerPassword;
     
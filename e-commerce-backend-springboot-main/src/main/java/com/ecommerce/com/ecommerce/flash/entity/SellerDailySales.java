@@ -0,0 +1,93 @@
+package com.ecommerce.com.ecommerce.flash.entity;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Objects;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Units and revenue a seller made per day, kept up to date as orders change
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@IdClass(SellerDailySales.Key.class)
+@Table(name = "seller_daily_sales")
+public class SellerDailySales {
+
+    @Id
+    @Column(name = "product_owner_id")
+    private Long productOwnerId;
+
+    @Id
+    @Column(name = "sales_date")
+    private LocalDate salesDate;
+
+    @Column(nullable = false)
+    private long units;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    public static class Key implements Serializable {
+        private Long productOwnerId;
+        private LocalDate salesDate;
+
+        public Key() {
+        }
+
+        public Key(Long productOwnerId, LocalDate salesDate) {
+            this.productOwnerId = productOwnerId;
+            this.salesDate = salesDate;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return Objects.equals(productOwnerId, other.productOwnerId) && Objects.equals(salesDate, other.salesDate);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(productOwnerId, salesDate);
+        }
+    }
+
+    public Long getProductOwnerId() {
+        return productOwnerId;
+    }
+
+    public void setProductOwnerId(Long productOwnerId) {
+        this.productOwnerId = productOwnerId;
+    }
+
+    public LocalDate getSalesDate() {
+        return salesDate;
+    }
+
+    public void setSalesDate(LocalDate salesDate) {
+        this.salesDate = salesDate;
+    }
+
+    public long getUnits() {
+        return units;
+    }
+
+    public void setUnits(long units) {
+        this.units = units;
+    }
+
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(BigDecimal revenue) {
+        this.revenue = revenue;
+    }
+}
@@ -0,0 +1,80 @@
+package com.ecommerce.com.ecommerce.flash.entity;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Number of a seller's orders in each status, kept up to date as orders change
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@IdClass(SellerOrderCounter.Key.class)
+@Table(name = "seller_order_counters")
+public class SellerOrderCounter {
+
+    @Id
+    @Column(name = "product_owner_id")
+    private Long productOwnerId;
+
+    @Id
+    @Column(name = "status", length = 50)
+    private String status;
+
+    @Column(name = "order_count", nullable = false)
+    private long orderCount;
+
+    public static class Key implements Serializable {
+        private Long productOwnerId;
+        private String status;
+
+        public Key() {
+        }
+
+        public Key(Long productOwnerId, String status) {
+            this.productOwnerId = productOwnerId;
+            this.status = status;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return Objects.equals(productOwnerId, other.productOwnerId) && Objects.equals(status, other.status);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(productOwnerId, status);
+        }
+    }
+
+    public Long getProductOwnerId() {
+        return productOwnerId;
+    }
+
+    public void setProductOwnerId(Long productOwnerId) {
+        this.productOwnerId = productOwnerId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    public void setOrderCount(long orderCount) {
+        this.orderCount = orderCount;
+    }
+}
@@ -0,0 +1,157 @@
+package com.ecommerce.com.ecommerce.flash.entity;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One hourly or daily bucket of admin analytics, e.g. (DAY, 2025-03-01, CATEGORY, "Electronics")
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@IdClass(StatsRollup.Key.class)
+@Table(name = "stats_rollup")
+public class StatsRollup {
+
+    public enum Granularity { HOUR, DAY }
+
+    // ORDER_STATUS counts orders per status, CATEGORY and OWNER count sales,
+    // PRODUCT_STATUS counts new products per ProductStatus
+    public enum Dimension { ORDER_STATUS, CATEGORY, OWNER, PRODUCT_STATUS }
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 8)
+    private Granularity granularity;
+
+    @Id
+    @Column(name = "bucket_start")
+    private LocalDateTime bucketStart;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private Dimension dimension;
+
+    @Id
+    @Column(name = "dimension_key", length = 100)
+    private String dimensionKey;
+
+    @Column(name = "item_count", nullable = false)
+    private long itemCount;
+
+    @Column(nullable = false)
+    private long units;
+
+    @Column(nullable = false, precision = 16, scale = 2)
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    public static class Key implements Serializable {
+        private Granularity granularity;
+        private LocalDateTime bucketStart;
+        private Dimension dimension;
+        private String dimensionKey;
+
+        public Key() {
+        }
+
+        public Key(Granularity granularity, LocalDateTime bucketStart, Dimension dimension, String dimensionKey) {
+            this.granularity = granularity;
+            this.bucketStart = bucketStart;
+            this.dimension = dimension;
+            this.dimensionKey = dimensionKey;
+        }
+
+        public Granularity getGranularity() {
+            return granularity;
+        }
+
+        public LocalDateTime getBucketStart() {
+            return bucketStart;
+        }
+
+        public Dimension getDimension() {
+            return dimension;
+        }
+
+        public String getDimensionKey() {
+            return dimensionKey;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return granularity == other.granularity && Objects.equals(bucketStart, other.bucketStart)
+                    && dimension == other.dimension && Objects.equals(dimensionKey, other.dimensionKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(granularity, bucketStart, dimension, dimensionKey);
+        }
+    }
+
+    public Granularity getGranularity() {
+        return granularity;
+    }
+
+    public void setGranularity(Granularity granularity) {
+        this.granularity = granularity;
+    }
+
+    public LocalDateTime getBucketStart() {
+        return bucketStart;
+    }
+
+    public void setBucketStart(LocalDateTime bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+
+    public Dimension getDimension() {
+        return dimension;
+    }
+
+    public void setDimension(Dimension dimension) {
+        this.dimension = dimension;
+    }
+
+    public String getDimensionKey() {
+        return dimensionKey;
+    }
+
+    public void setDimensionKey(String dimensionKey) {
+        this.dimensionKey = dimensionKey;
+    }
+
+    public long getItemCount() {
+        return itemCount;
+    }
+
+    public void setItemCount(long itemCount) {
+        this.itemCount = itemCount;
+    }
+
+    public long getUnits() {
+        return units;
+    }
+
+    public void setUnits(long units) {
+        this.units = units;
+    }
+
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(BigDecimal revenue) {
+        this.revenue = revenue;
+    }
+}
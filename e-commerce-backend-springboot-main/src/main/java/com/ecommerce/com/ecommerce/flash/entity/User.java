@@ -27,6 +27,8 @@ public class User {
 	@Column(nullable = false, unique = true)
 	private String email;
 
+	// The PBKDF2 hash (see PrincipalService); accepted on registration, never written out
+	@JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
 	@Column(nullable = false)
 	private String password;
 	
@@ -0,0 +1,15 @@
+package com.ecommerce.com.ecommerce.flash.event;
+
+// Published by CatalogSnapshotService after a new catalog snapshot replaced the previous one
+public class CatalogSnapshotEvent {
+
+    private final int products;
+
+    public CatalogSnapshotEvent(int products) {
+        this.products = products;
+    }
+
+    public int getProducts() {
+        return products;
+    }
+}
@@ -0,0 +1,24 @@
+package com.ecommerce.com.ecommerce.flash.event;
+
+import com.ecommerce.com.ecommerce.flash.dto.OrderSnapshot;
+
+// Published by OrderDao after an order is created, changed or deleted.
+// before is null for new orders and after is null for deleted ones.
+public class OrderChangedEvent {
+
+    private final OrderSnapshot before;
+    private final OrderSnapshot after;
+
+    public OrderChangedEvent(OrderSnapshot before, OrderSnapshot after) {
+        this.before = before;
+        this.after = after;
+    }
+
+    public OrderSnapshot getBefore() {
+        return before;
+    }
+
+    public OrderSnapshot getAfter() {
+        return after;
+    }
+}
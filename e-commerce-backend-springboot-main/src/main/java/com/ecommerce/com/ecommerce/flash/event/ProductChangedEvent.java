@@ -0,0 +1,28 @@
+package com.ecommerce.com.ecommerce.flash.event;
+
+import com.ecommerce.com.ecommerce.flash.dto.ProductSnapshot;
+
+// Published by ProductDao after a product is created, changed or deleted.
+// before is null for new products and after is null for deleted ones.
+public class ProductChangedEvent {
+
+    private final ProductSnapshot before;
+    private final ProductSnapshot after;
+
+    public ProductChangedEvent(ProductSnapshot before, ProductSnapshot after) {
+        this.before = before;
+        this.after = after;
+    }
+
+    public ProductSnapshot getBefore() {
+        return before;
+    }
+
+    public ProductSnapshot getAfter() {
+        return after;
+    }
+
+    public Long getProductId() {
+        return after != null ? after.getId() : before.getId();
+    }
+}
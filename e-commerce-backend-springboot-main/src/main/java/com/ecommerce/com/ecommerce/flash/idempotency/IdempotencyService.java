@@ -0,0 +1,196 @@
+package com.ecommerce.com.ecommerce.flash.idempotency;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.ecommerce.com.ecommerce.flash.entity.IdempotencyRecord;
+import com.ecommerce.com.ecommerce.flash.repository.IdempotencyRecordRepository;
+import com.ecommerce.com.ecommerce.flash.util.TtlCache;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PostConstruct;
+
+// Makes POST endpoints safe to retry. The first request carrying an Idempotency-Key runs
+// normally and its response is stored (in memory and in the idempotency_keys table);
+// retries with the same key get the stored response instead of running again.
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${flash.idempotency.ttl-ms:86400000}")
+    private long ttlMs;
+
+    @Value("${flash.idempotency.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${flash.idempotency.in-progress-wait-ms:10000}")
+    private long inProgressWaitMs;
+
+    private TtlCache<String, IdempotencyRecord> recent;
+    // Requests currently executing, so a concurrent retry waits for the first one instead of running too
+    private final ConcurrentHashMap<String, CompletableFuture<IdempotencyRecord>> inProgress = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        recent = new TtlCache<>(maxEntries, ttlMs);
+    }
+
+    // Run the action once per (scope, key); without a key the action simply runs.
+    // The fingerprint identifies the request so a key reused for another request is rejected.
+    public ResponseEntity<?> execute(String scope, String key, Object fingerprint, Supplier<ResponseEntity<?>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > 255) {
+            return ResponseEntity.badRequest().body(HEADER + " must be at most 255 characters");
+        }
+        String cacheKey = scope + "\n" + key;
+        String requestHash = hash(fingerprint);
+
+        IdempotencyRecord stored = lookup(scope, key, cacheKey);
+        if (stored != null) {
+            return replay(stored, requestHash);
+        }
+
+        CompletableFuture<IdempotencyRecord> mine = new CompletableFuture<>();
+        CompletableFuture<IdempotencyRecord> running = inProgress.putIfAbsent(cacheKey, mine);
+        if (running != null) {
+            return awaitOther(running, requestHash);
+        }
+
+        IdempotencyRecord record = null;
+        try {
+            // Another node may have finished it between the lookup and the claim
+            stored = lookup(scope, key, cacheKey);
+            if (stored != null) {
+                record = stored;
+                return replay(stored, requestHash);
+            }
+            ResponseEntity<?> response = action.get();
+            record = store(scope, key, cacheKey, requestHash, response);
+            return response;
+        } finally {
+            inProgress.remove(cacheKey, mine);
+            mine.complete(record);
+        }
+    }
+
+    private IdempotencyRecord lookup(String scope, String key, String cacheKey) {
+        IdempotencyRecord record = recent.get(cacheKey);
+        if (record != null) {
+            return record;
+        }
+        Optional<IdempotencyRecord> persisted = idempotencyRecordRepository.findByScopeAndIdempotencyKey(scope, key);
+        if (persisted.isPresent()
+                && persisted.get().getCreatedAt().isAfter(LocalDateTime.now().minus(Duration.ofMillis(ttlMs)))) {
+            recent.put(cacheKey, persisted.get());
+            return persisted.get();
+        }
+        return null;
+    }
+
+    private ResponseEntity<?> awaitOther(CompletableFuture<IdempotencyRecord> running, String requestHash) {
+        try {
+            IdempotencyRecord record = running.get(inProgressWaitMs, TimeUnit.MILLISECONDS);
+            if (record != null) {
+                return replay(record, requestHash);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // fall through to the conflict response
+        }
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                             .body("A request with this " + HEADER + " is still being processed");
+    }
+
+    // Server errors are not stored so that a retry gets a fresh attempt
+    private IdempotencyRecord store(String scope, String key, String cacheKey, String requestHash, ResponseEntity<?> response) {
+        if (response.getStatusCode().is5xxServerError()) {
+            return null;
+        }
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setScope(scope);
+        record.setIdempotencyKey(key);
+        record.setRequestHash(requestHash);
+        record.setStatusCode(response.getStatusCode().value());
+        Object body = response.getBody();
+        try {
+            if (body instanceof String) {
+                record.setContentType(MediaType.TEXT_PLAIN_VALUE);
+                record.setResponseBody((String) body);
+            } else if (body != null) {
+                record.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                record.setResponseBody(objectMapper.writeValueAsString(body));
+            }
+        } catch (JsonProcessingException e) {
+            System.err.println("Could not store idempotent response: " + e.getMessage());
+            return null;
+        }
+        recent.put(cacheKey, record);
+        try {
+            idempotencyRecordRepository.save(record);
+        } catch (DataIntegrityViolationException e) {
+            // Stored concurrently by another node; its copy is equivalent
+        }
+        return record;
+    }
+
+    private ResponseEntity<?> replay(IdempotencyRecord record, String requestHash) {
+        if (record.getRequestHash() != null && !record.getRequestHash().equals(requestHash)) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                                 .body(HEADER + " was already used for a different request");
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(record.getStatusCode())
+                                                           .header(REPLAYED_HEADER, "true");
+        if (record.getResponseBody() == null) {
+            return builder.build();
+        }
+        return builder.contentType(MediaType.parseMediaType(record.getContentType()))
+                      .body(record.getResponseBody());
+    }
+
+    private String hash(Object fingerprint) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(fingerprint);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            return null;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${flash.idempotency.cleanup-interval-ms:3600000}")
+    public void evictExpired() {
+        recent.evictExpired();
+        int removed = idempotencyRecordRepository.deleteCreatedBefore(LocalDateTime.now().minus(Duration.ofMillis(ttlMs)));
+        if (removed > 0) {
+            System.out.println("Removed " + removed + " expired idempotency keys");
+        }
+    }
+}
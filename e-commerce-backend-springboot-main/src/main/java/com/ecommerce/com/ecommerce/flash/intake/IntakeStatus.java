@@ -0,0 +1,67 @@
+package com.ecommerce.com.ecommerce.flash.intake;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+// Progress of an order accepted by the asynchronous intake, looked up by its token
+public class IntakeStatus {
+
+    public enum State {
+        QUEUED,
+        COMMITTED,
+        FAILED
+    }
+
+    private final String token;
+    private volatile State state = State.QUEUED;
+    private volatile Long orderId;
+    private volatile String message;
+    private volatile long completedAt;
+    private final CompletableFuture<IntakeStatus> completion = new CompletableFuture<>();
+
+    public IntakeStatus(String token) {
+        this.token = token;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @JsonIgnore
+    public long getCompletedAt() {
+        return completedAt;
+    }
+
+    // Completes when the order has been committed or has failed
+    @JsonIgnore
+    public CompletableFuture<IntakeStatus> getCompletion() {
+        return completion;
+    }
+
+    void committed(Long orderId) {
+        this.orderId = orderId;
+        this.state = State.COMMITTED;
+        this.completedAt = System.currentTimeMillis();
+        completion.complete(this);
+    }
+
+    void failed(String message) {
+        this.message = message;
+        this.state = State.FAILED;
+        this.completedAt = System.currentTimeMillis();
+        completion.complete(this);
+    }
+}
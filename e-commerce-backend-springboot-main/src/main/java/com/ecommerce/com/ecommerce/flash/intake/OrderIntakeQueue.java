@@ -0,0 +1,301 @@
+package com.ecommerce.com.ecommerce.flash.intake;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.ecommerce.com.ecommerce.flash.dao.OrderDao;
+import com.ecommerce.com.ecommerce.flash.entity.Order;
+import com.ecommerce.com.ecommerce.flash.inventory.InventoryEngine;
+import com.ecommerce.com.ecommerce.flash.inventory.Reservation;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PreDestroy;
+
+// Optional asynchronous order intake. Validated orders are queued in memory (and optionally
+// journaled to local disk) and a single writer thread saves them in batches, one transaction
+// per batch, so commit cost is shared by many orders during peaks.
+@Service
+public class OrderIntakeQueue {
+
+    @Autowired
+    private OrderDao orderDao;
+
+    @Autowired
+    private InventoryEngine inventoryEngine;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${flash.orders.intake.enabled:false}")
+    private boolean enabled;
+
+    @Value("${flash.orders.intake.capacity:10000}")
+    private int capacity;
+
+    @Value("${flash.orders.intake.batch-size:100}")
+    private int batchSize;
+
+    @Value("${flash.orders.intake.linger-ms:5}")
+    private long lingerMs;
+
+    @Value("${flash.orders.intake.journal-path:}")
+    private String journalPath;
+
+    @Value("${flash.orders.intake.journal-fsync:true}")
+    private boolean journalFsync;
+
+    @Value("${flash.orders.intake.status-retention-ms:600000}")
+    private long statusRetentionMs;
+
+    private BlockingQueue<PendingOrder> queue;
+    private OrderJournal journal;
+    private Thread writer;
+    private volatile boolean running;
+    // Set while journaled orders are being requeued, which the journal must keep until they settle
+    private volatile boolean replaying;
+    // Orders taken off the queue but not yet settled, used to know when the journal can be reset
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<String, IntakeStatus> statuses = new ConcurrentHashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @org.springframework.core.annotation.Order(10)
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(capacity);
+        running = true;
+
+        List<OrderJournal.Entry> unsettled = List.of();
+        if (!journalPath.isBlank()) {
+            journal = new OrderJournal(Paths.get(journalPath), journalFsync);
+            unsettled = journal.open();
+            replaying = !unsettled.isEmpty();
+        }
+
+        // Started first so replay can wait for room in the queue instead of dropping orders
+        writer = new Thread(this::writeLoop, "order-intake-writer");
+        writer.setDaemon(true);
+        writer.start();
+
+        try {
+            for (OrderJournal.Entry entry : unsettled) {
+                replay(entry);
+            }
+        } finally {
+            replaying = false;
+        }
+        if (!unsettled.isEmpty()) {
+            System.out.println("Order intake replayed " + unsettled.size() + " journaled orders");
+        }
+    }
+
+    // Queue a validated order whose stock is already reserved; returns null when the queue is full
+    public IntakeStatus submit(Order order, Reservation reservation) {
+        IntakeStatus status = new IntakeStatus(UUID.randomUUID().toString());
+        return enqueue(new PendingOrder(order, reservation, status)) ? status : null;
+    }
+
+    public IntakeStatus getStatus(String token) {
+        return statuses.get(token);
+    }
+
+    private boolean enqueue(PendingOrder pending) {
+        if (!running) {
+            return false;
+        }
+        statuses.put(pending.status.getToken(), pending.status);
+        if (journal == null) {
+            if (!queue.offer(pending)) {
+                statuses.remove(pending.status.getToken());
+                return false;
+            }
+            return true;
+        }
+        // Journal and queue together so an idle-journal reset cannot drop the new line
+        synchronized (this) {
+            try {
+                journal.appendQueued(pending.status.getToken(), pending.reservation.isTracked(),
+                        objectMapper.writeValueAsString(pending.order));
+            } catch (IOException e) {
+                System.err.println("Order intake journal write failed: " + e.getMessage());
+                statuses.remove(pending.status.getToken());
+                return false;
+            }
+            if (!queue.offer(pending)) {
+                statuses.remove(pending.status.getToken());
+                settleJournal(pending.status.getToken());
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Requeue an order from the compacted journal, where it already is; it stays there until settled
+    private void replay(OrderJournal.Entry entry) {
+        IntakeStatus status = new IntakeStatus(entry.token);
+        Order order;
+        try {
+            order = objectMapper.readValue(entry.orderJson, Order.class);
+        } catch (IOException e) {
+            System.err.println("Moving unreadable journaled order " + entry.token + " aside: " + e.getMessage());
+            try {
+                journal.quarantine(entry);
+                settleJournal(entry.token);
+            } catch (IOException quarantineError) {
+                System.err.println("Order intake could not quarantine " + entry.token + ": " + quarantineError.getMessage());
+            }
+            return;
+        }
+        Reservation reservation = inventoryEngine.restore(order.getProduct().getId(), order.getQuantity(), entry.tracked);
+        if (reservation == null) {
+            statuses.put(entry.token, status);
+            status.failed("Insufficient stock for product: " + order.getProduct().getId());
+            settleJournal(entry.token);
+            return;
+        }
+        statuses.put(entry.token, status);
+        try {
+            queue.put(new PendingOrder(order, reservation, status));
+        } catch (InterruptedException e) {
+            // Shutting down: the entry is still journaled and is replayed on the next start
+            Thread.currentThread().interrupt();
+            inventoryEngine.release(reservation);
+            statuses.remove(entry.token);
+        }
+    }
+
+    private void writeLoop() {
+        List<PendingOrder> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingOrder first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    resetJournalIfIdle();
+                    continue;
+                }
+                batch.add(first);
+                inFlight.incrementAndGet();
+                // Give concurrent requests a moment to join the same commit
+                if (lingerMs > 0 && queue.size() < batchSize - 1) {
+                    Thread.sleep(lingerMs);
+                }
+                inFlight.addAndGet(queue.drainTo(batch, batchSize - 1));
+                persist(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                System.err.println("Order intake writer error: " + e.getMessage());
+                e.printStackTrace();
+            } finally {
+                inFlight.addAndGet(-batch.size());
+                batch.clear();
+            }
+        }
+    }
+
+    private void persist(List<PendingOrder> batch) {
+        List<Order> orders = new ArrayList<>(batch.size());
+        for (PendingOrder pending : batch) {
+            orders.add(pending.order);
+        }
+        List<Order> saved;
+        try {
+            saved = orderDao.placeOrders(orders);
+        } catch (Exception batchError) {
+            // One bad order must not fail its neighbours: retry them one at a time
+            for (PendingOrder pending : batch) {
+                try {
+                    // Ids handed out by the rolled back batch are not valid any more
+                    pending.order.setId(null);
+                    settle(pending, orderDao.placeOrder(pending.order));
+                } catch (Exception e) {
+                    inventoryEngine.release(pending.reservation);
+                    pending.status.failed("Error placing order: " + e.getMessage());
+                    settleJournal(pending.status.getToken());
+                }
+            }
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            settle(batch.get(i), saved.get(i));
+        }
+    }
+
+    private void settle(PendingOrder pending, Order saved) {
+        if (inventoryEngine.confirm(pending.reservation)) {
+            pending.status.committed(saved.getId());
+        } else {
+            orderDao.deleteOrder(saved.getId());
+            pending.status.failed("Insufficient stock for product: " + pending.order.getProduct().getId());
+        }
+        settleJournal(pending.status.getToken());
+    }
+
+    private void settleJournal(String token) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.appendSettled(token);
+        } catch (IOException e) {
+            System.err.println("Order intake journal write failed: " + e.getMessage());
+        }
+    }
+
+    private void resetJournalIfIdle() {
+        if (journal == null || replaying || !queue.isEmpty() || inFlight.get() > 0) {
+            return;
+        }
+        try {
+            synchronized (this) {
+                if (!replaying && queue.isEmpty() && inFlight.get() == 0) {
+                    journal.reset();
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Order intake journal reset failed: " + e.getMessage());
+        }
+    }
+
+    // Forget settled orders once clients have had time to collect their result
+    @Scheduled(fixedDelayString = "${flash.orders.intake.status-sweep-ms:60000}")
+    public void evictSettledStatuses() {
+        long cutoff = System.currentTimeMillis() - statusRetentionMs;
+        statuses.values().removeIf(status ->
+                status.getState() != IntakeStatus.State.QUEUED && status.getCompletedAt() < cutoff);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException, IOException {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+        if (journal != null) {
+            journal.close();
+        }
+    }
+}
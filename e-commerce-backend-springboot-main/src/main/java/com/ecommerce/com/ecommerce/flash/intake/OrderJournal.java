@@ -0,0 +1,131 @@
+package com.ecommerce.com.ecommerce.flash.intake;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Local append-only log of accepted orders so queued orders survive a restart.
+// Lines are "Q<tab>token<tab>tracked<tab>orderJson" when accepted and "C<tab>token" once settled.
+class OrderJournal {
+
+    static class Entry {
+        final String token;
+        final boolean tracked;
+        final String orderJson;
+
+        Entry(String token, boolean tracked, String orderJson) {
+            this.token = token;
+            this.tracked = tracked;
+            this.orderJson = orderJson;
+        }
+    }
+
+    private final Path path;
+    private final boolean fsync;
+    private FileChannel channel;
+
+    OrderJournal(Path path, boolean fsync) {
+        this.path = path;
+        this.fsync = fsync;
+    }
+
+    // Entries that were accepted but never settled before the last shutdown. The file is first
+    // compacted to just those entries (written to a temp file, forced to disk and renamed over the
+    // journal), so they stay journaled until they settle even if the replay is interrupted.
+    synchronized List<Entry> open() throws IOException {
+        Map<String, Entry> unsettled = new LinkedHashMap<>();
+        if (Files.exists(path)) {
+            for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                String[] parts = line.split("\t", 4);
+                if (parts.length == 4 && "Q".equals(parts[0])) {
+                    unsettled.put(parts[1], new Entry(parts[1], Boolean.parseBoolean(parts[2]), parts[3]));
+                } else if (parts.length >= 2 && "C".equals(parts[0])) {
+                    unsettled.remove(parts[1]);
+                }
+            }
+        } else if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        Path compacted = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Entry entry : unsettled.values()) {
+                write(out, queuedLine(entry.token, entry.tracked, entry.orderJson));
+            }
+            out.force(true);
+        }
+        Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory();
+        channel = FileChannel.open(path, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        return new ArrayList<>(unsettled.values());
+    }
+
+    synchronized void appendQueued(String token, boolean tracked, String orderJson) throws IOException {
+        write(queuedLine(token, tracked, orderJson));
+    }
+
+    synchronized void appendSettled(String token) throws IOException {
+        write("C\t" + token + "\n");
+    }
+
+    // Keep an entry that cannot be replayed in a side file (journal path + ".unreadable") for manual
+    // recovery, so settling it in the journal does not lose it
+    synchronized void quarantine(Entry entry) throws IOException {
+        Path unreadable = path.resolveSibling(path.getFileName() + ".unreadable");
+        try (FileChannel out = FileChannel.open(unreadable, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND)) {
+            write(out, queuedLine(entry.token, entry.tracked, entry.orderJson));
+            out.force(false);
+        }
+    }
+
+    // Start a fresh file once nothing in it is still pending
+    synchronized void reset() throws IOException {
+        channel.truncate(0);
+        channel.position(0);
+    }
+
+    synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    private void write(String line) throws IOException {
+        write(channel, line);
+        if (fsync) {
+            channel.force(false);
+        }
+    }
+
+    private static void write(FileChannel target, String line) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+        }
+    }
+
+    private static String queuedLine(String token, boolean tracked, String orderJson) {
+        return "Q\t" + token + "\t" + tracked + "\t" + orderJson + "\n";
+    }
+
+    // Make the rename itself durable; not every platform can open a directory, which is fine
+    private void forceDirectory() {
+        Path directory = path.toAbsolutePath().getParent();
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            // Best effort
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.ecommerce.com.ecommerce.flash.intake;
+
+import com.ecommerce.com.ecommerce.flash.entity.Order;
+import com.ecommerce.com.ecommerce.flash.inventory.Reservation;
+
+// An accepted order waiting for the intake writer
+class PendingOrder {
+
+    final Order order;
+    final Reservation reservation;
+    final IntakeStatus status;
+
+    PendingOrder(Order order, Reservation reservation, IntakeStatus status) {
+        this.order = order;
+        this.reservation = reservation;
+        this.status = status;
+    }
+}
@@ -0,0 +1,329 @@
+package com.ecommerce.com.ecommerce.flash.inventory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.annotation.PreDestroy;
+
+// Reserves stock for checkouts. Flash-sale products are served from in-memory striped
+// counters and written back to the products table in batches; all other products are
+// decremented with a single conditional UPDATE so they can no longer be oversold either.
+@Service
+public class InventoryEngine {
+
+    private static final String DECREMENT_SQL =
+            "UPDATE products SET stock = stock - ? WHERE id = ? AND stock >= ?";
+    private static final String INCREMENT_SQL =
+            "UPDATE products SET stock = stock + ? WHERE id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${flash.inventory.stripes:0}")
+    private int configuredStripes;
+
+    @Value("${flash.inventory.reservation-ttl-ms:120000}")
+    private long reservationTtlMs;
+
+    private final Map<Long, StripedStockCounter> counters = new ConcurrentHashMap<>();
+    private final Map<String, Reservation> reservations = new ConcurrentHashMap<>();
+    // Confirmed units per product that still have to be written to the products table
+    private final Map<Long, AtomicInteger> pendingDecrements = new ConcurrentHashMap<>();
+    // Per tracked product: anything that moves units between its counter, its reservations and
+    // pendingDecrements holds the read lock (shared, so checkouts still run in parallel); resync
+    // holds the write lock, so it sees those three consistent with each other
+    private final Map<Long, ReadWriteLock> locks = new ConcurrentHashMap<>();
+
+    // Load stock for every flagged product once the schema and seed data are in place
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(0)
+    public void preload() {
+        jdbcTemplate.query("SELECT id, stock FROM products WHERE flash_sale = TRUE", rs -> {
+            counters.put(rs.getLong("id"), new StripedStockCounter(rs.getInt("stock"), stripeCount()));
+        });
+        System.out.println("Inventory engine tracking " + counters.size() + " flash-sale products");
+    }
+
+    public boolean isTracked(Long productId) {
+        return counters.containsKey(productId);
+    }
+
+    // Units currently available for a tracked product, or null if the product is not tracked
+    public Integer available(Long productId) {
+        StripedStockCounter counter = counters.get(productId);
+        return counter != null ? counter.available() : null;
+    }
+
+    // Hold units for a checkout; returns null when the product does not have enough stock
+    public Reservation reserve(Long productId, int quantity) {
+        StripedStockCounter counter = counters.get(productId);
+        if (counter == null) {
+            int updated = jdbcTemplate.update(DECREMENT_SQL, quantity, productId, quantity);
+            if (updated == 0) {
+                return null;
+            }
+            return new Reservation(UUID.randomUUID().toString(), productId, quantity, Long.MAX_VALUE, false);
+        }
+        Lock lock = readLock(productId);
+        try {
+            if (!counter.tryAcquire(quantity)) {
+                return null;
+            }
+            Reservation reservation = new Reservation(UUID.randomUUID().toString(), productId, quantity,
+                    System.currentTimeMillis() + reservationTtlMs, true);
+            reservations.put(reservation.getId(), reservation);
+            return reservation;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Rebuild a reservation after a restart. Untracked units were already taken from the
+    // products table, so only tracked ones have to be reserved again.
+    public Reservation restore(Long productId, int quantity, boolean tracked) {
+        if (!tracked) {
+            return new Reservation(UUID.randomUUID().toString(), productId, quantity, Long.MAX_VALUE, false);
+        }
+        return reserve(productId, quantity);
+    }
+
+    // Turn a reservation into a sale. Returns false if it had expired and the units are gone.
+    public boolean confirm(Reservation reservation) {
+        if (!reservation.isTracked()) {
+            return true;
+        }
+        Lock lock = readLock(reservation.getProductId());
+        try {
+            if (reservations.remove(reservation.getId()) == null) {
+                // Expired before confirmation; try to take the units again
+                StripedStockCounter counter = counters.get(reservation.getProductId());
+                if (counter == null || !counter.tryAcquire(reservation.getQuantity())) {
+                    return false;
+                }
+            }
+            pendingDecrements.computeIfAbsent(reservation.getProductId(), id -> new AtomicInteger())
+                             .addAndGet(reservation.getQuantity());
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Give the units back, e.g. when saving the order failed
+    public void release(Reservation reservation) {
+        if (!reservation.isTracked()) {
+            jdbcTemplate.update(INCREMENT_SQL, reservation.getQuantity(), reservation.getProductId());
+            return;
+        }
+        Lock lock = readLock(reservation.getProductId());
+        try {
+            if (reservations.remove(reservation.getId()) != null) {
+                StripedStockCounter counter = counters.get(reservation.getProductId());
+                if (counter != null) {
+                    counter.release(reservation.getQuantity());
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Return the units of a sold order to stock (order cancelled, rejected or deleted). The table is
+    // updated in the caller's transaction; a tracked counter follows once that transaction commits.
+    public void restock(Long productId, int quantity) {
+        jdbcTemplate.update(INCREMENT_SQL, quantity, productId);
+        afterCommit(() -> {
+            Lock lock = readLock(productId);
+            try {
+                StripedStockCounter counter = counters.get(productId);
+                if (counter != null) {
+                    counter.release(quantity);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }, () -> { });
+    }
+
+    // Take units for an order that did not hold any (e.g. a rejected order accepted after all) in the
+    // caller's transaction; returns false when the product does not have enough stock
+    public boolean take(Long productId, int quantity) {
+        Reservation reservation = reserve(productId, quantity);
+        if (reservation == null) {
+            return false;
+        }
+        if (reservation.isTracked()) {
+            afterCommit(() -> {
+                if (!confirm(reservation)) {
+                    System.err.println("Reservation for product " + productId + " expired before commit");
+                }
+            }, () -> release(reservation));
+        }
+        return true;
+    }
+
+    // Run onCommit after the caller's transaction commits (onRollback if it does not), or now without one
+    private static void afterCommit(Runnable onCommit, Runnable onRollback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            onCommit.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    onCommit.run();
+                } else {
+                    onRollback.run();
+                }
+            }
+        });
+    }
+
+    // Start serving a product from memory
+    public void track(Long productId) {
+        Integer stock = jdbcTemplate.query("SELECT stock FROM products WHERE id = ?",
+                rs -> rs.next() ? rs.getInt(1) : null, productId);
+        if (stock != null) {
+            counters.computeIfAbsent(productId, id -> new StripedStockCounter(stock, stripeCount()));
+        }
+    }
+
+    // Stop serving a product from memory after writing back what it sold
+    public void untrack(Long productId) {
+        flushConfirmed();
+        counters.remove(productId);
+    }
+
+    @Scheduled(fixedDelayString = "${flash.inventory.expiry-sweep-ms:1000}")
+    public void expireReservations() {
+        long now = System.currentTimeMillis();
+        Iterator<Reservation> it = reservations.values().iterator();
+        while (it.hasNext()) {
+            Reservation reservation = it.next();
+            if (!reservation.isExpired(now)) {
+                continue;
+            }
+            Lock lock = readLock(reservation.getProductId());
+            try {
+                if (reservations.remove(reservation.getId(), reservation)) {
+                    StripedStockCounter counter = counters.get(reservation.getProductId());
+                    if (counter != null) {
+                        counter.release(reservation.getQuantity());
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Write confirmed sales back to the products table in one batch
+    @Scheduled(fixedDelayString = "${flash.inventory.flush-interval-ms:500}")
+    public synchronized void flushConfirmed() {
+        List<Long> productIds = new ArrayList<>();
+        List<Object[]> batch = new ArrayList<>();
+        for (Map.Entry<Long, AtomicInteger> entry : pendingDecrements.entrySet()) {
+            int units = entry.getValue().getAndSet(0);
+            if (units > 0) {
+                productIds.add(entry.getKey());
+                batch.add(new Object[] { units, entry.getKey(), units });
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        int[] results;
+        try {
+            results = jdbcTemplate.batchUpdate(DECREMENT_SQL, batch);
+        } catch (DataAccessException e) {
+            // Keep the units queued and retry on the next flush
+            System.err.println("Inventory flush failed, will retry: " + e.getMessage());
+            for (int i = 0; i < batch.size(); i++) {
+                pendingDecrements.get(productIds.get(i)).addAndGet((Integer) batch.get(i)[0]);
+            }
+            return;
+        }
+
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] == 0) {
+                // The table holds less stock than memory assumed (e.g. edited by hand); trust the table.
+                // These units were sold all the same, so say how many the table never lost.
+                System.err.println("Stock for product " + productIds.get(i) + " was lower than expected; "
+                        + batch.get(i)[0] + " sold units were not written back, resyncing");
+                resync(productIds.get(i));
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushConfirmed();
+    }
+
+    // Reload a counter from the table, minus the units still held by open reservations and the ones
+    // sold but not yet written back. Synchronized with flushConfirmed, so no flush is halfway between
+    // taking units out of pendingDecrements and writing them to the table; the product's write lock
+    // keeps reservations, confirmations and releases out until the counter is reset.
+    public synchronized void resync(Long productId) {
+        StripedStockCounter counter = counters.get(productId);
+        if (counter == null) {
+            return;
+        }
+        Lock lock = locks.computeIfAbsent(productId, id -> new ReentrantReadWriteLock()).writeLock();
+        lock.lock();
+        try {
+            Integer stock = jdbcTemplate.query("SELECT stock FROM products WHERE id = ?",
+                    rs -> rs.next() ? rs.getInt(1) : null, productId);
+            if (stock == null) {
+                counters.remove(productId);
+                return;
+            }
+            int held = 0;
+            for (Reservation reservation : reservations.values()) {
+                if (reservation.getProductId().equals(productId)) {
+                    held += reservation.getQuantity();
+                }
+            }
+            AtomicInteger pending = pendingDecrements.get(productId);
+            counter.reset(stock - held - (pending != null ? pending.get() : 0));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // The product's read lock, already acquired
+    private Lock readLock(Long productId) {
+        Lock lock = locks.computeIfAbsent(productId, id -> new ReentrantReadWriteLock()).readLock();
+        lock.lock();
+        return lock;
+    }
+
+    private int stripeCount() {
+        if (configuredStripes > 0) {
+            return configuredStripes;
+        }
+        return Math.min(64, Runtime.getRuntime().availableProcessors() * 2);
+    }
+}
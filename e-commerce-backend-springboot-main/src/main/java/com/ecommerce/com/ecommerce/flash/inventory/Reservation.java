@@ -0,0 +1,44 @@
+package com.ecommerce.com.ecommerce.flash.inventory;
+
+// Units of a product held for one checkout until it is confirmed, released or expires
+public class Reservation {
+
+    private final String id;
+    private final Long productId;
+    private final int quantity;
+    private final long expiresAt;
+    // Tracked reservations are held in memory; untracked ones were already taken from the products table
+    private final boolean tracked;
+
+    public Reservation(String id, Long productId, int quantity, long expiresAt, boolean tracked) {
+        this.id = id;
+        this.productId = productId;
+        this.quantity = quantity;
+        this.expiresAt = expiresAt;
+        this.tracked = tracked;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public boolean isTracked() {
+        return tracked;
+    }
+
+    public boolean isExpired(long now) {
+        return now >= expiresAt;
+    }
+}
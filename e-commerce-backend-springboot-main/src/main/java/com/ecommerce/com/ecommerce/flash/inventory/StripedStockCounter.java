@@ -0,0 +1,119 @@
+package com.ecommerce.com.ecommerce.flash.inventory;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// Stock counter split over several CAS-updated stripes so that concurrent buyers
+// of the same product rarely contend on the same memory location.
+public class StripedStockCounter {
+
+    // Each stripe sits on its own 64-byte cache line to avoid false sharing
+    private static final int PAD = 16;
+
+    private final AtomicIntegerArray cells;
+    private final int stripes;
+    private final int mask;
+
+    public StripedStockCounter(int initialStock, int stripeCount) {
+        this.stripes = nextPowerOfTwo(Math.max(1, stripeCount));
+        this.mask = stripes - 1;
+        this.cells = new AtomicIntegerArray(stripes * PAD);
+        reset(initialStock);
+    }
+
+    // Take units atomically; returns false without blocking when there is not enough stock
+    public boolean tryAcquire(int units) {
+        if (units <= 0) {
+            throw new IllegalArgumentException("units must be positive");
+        }
+        int home = ThreadLocalRandom.current().nextInt() & mask;
+
+        // Fast path: the whole amount from one stripe
+        if (takeExactly(home, units)) {
+            return true;
+        }
+
+        // Slow path: gather the remainder from the other stripes
+        int[] taken = new int[stripes];
+        int remaining = units;
+        for (int i = 0; i < stripes && remaining > 0; i++) {
+            int stripe = (home + i) & mask;
+            int got = takeUpTo(stripe, remaining);
+            taken[stripe] = got;
+            remaining -= got;
+        }
+        if (remaining == 0) {
+            return true;
+        }
+
+        // Not enough stock overall: hand back what was gathered
+        for (int stripe = 0; stripe < stripes; stripe++) {
+            if (taken[stripe] > 0) {
+                cells.addAndGet(stripe * PAD, taken[stripe]);
+            }
+        }
+        return false;
+    }
+
+    // Return units, e.g. when a reservation expires or an order fails to save
+    public void release(int units) {
+        if (units > 0) {
+            cells.addAndGet((ThreadLocalRandom.current().nextInt() & mask) * PAD, units);
+        }
+    }
+
+    // Snapshot of the total units left; may be stale under concurrent updates
+    public int available() {
+        int sum = 0;
+        for (int stripe = 0; stripe < stripes; stripe++) {
+            sum += cells.get(stripe * PAD);
+        }
+        return sum;
+    }
+
+    // Spread a new stock level evenly over the stripes
+    public void reset(int stock) {
+        int value = Math.max(0, stock);
+        int base = value / stripes;
+        int extra = value % stripes;
+        for (int stripe = 0; stripe < stripes; stripe++) {
+            cells.set(stripe * PAD, base + (stripe < extra ? 1 : 0));
+        }
+    }
+
+    public int stripes() {
+        return stripes;
+    }
+
+    private boolean takeExactly(int stripe, int units) {
+        int index = stripe * PAD;
+        for (;;) {
+            int current = cells.get(index);
+            if (current < units) {
+                return false;
+            }
+            if (cells.compareAndSet(index, current, current - units)) {
+                return true;
+            }
+        }
+    }
+
+    private int takeUpTo(int stripe, int max) {
+        int index = stripe * PAD;
+        for (;;) {
+            int current = cells.get(index);
+            if (current <= 0) {
+                return 0;
+            }
+            int take = Math.min(current, max);
+            if (cells.compareAndSet(index, current, current - take)) {
+                return take;
+            }
+        }
+    }
+
+    private static int nextPowerOfTwo(int value) {
+        int highest = Integer.highestOneBit(value);
+        return highest == value ? value : highest << 1;
+    }
+}
@@ -0,0 +1,98 @@
+package com.ecommerce.com.ecommerce.flash.ratelimit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Concurrency limit that follows measured latency (gradient style): every window of samples the
+// recent average latency is compared with a slow long-term average. When requests get slower the
+// limit shrinks in proportion; while latency holds it grows by about sqrt(limit) per window, but
+// only if traffic actually used the current limit. The long-term average only rises from windows
+// that were neither saturated nor slow, so latency caused by queueing (or by a slowdown that lasts)
+// never becomes the baseline and the limit stays down for as long as the slowdown does.
+class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    // How much slower than the long-term average requests may get before the limit shrinks
+    private final double tolerance;
+    private final double smoothing;
+    private final int windowSize;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+
+    // Window state, guarded by this
+    private long windowSum;
+    private int windowCount;
+    private int windowMaxInFlight;
+    private double longRtt;
+
+    AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance, double smoothing,
+                               int windowSize) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.windowSize = windowSize;
+    }
+
+    // Admit a request if fewer than share * limit requests are running
+    boolean tryAcquire(double share) {
+        int allowed = Math.max(1, (int) (limit * share));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    // Finish an admitted request; a negative latency means "do not sample" (e.g. long polls)
+    void release(long latencyNanos) {
+        int running = inFlight.getAndDecrement();
+        if (latencyNanos >= 0) {
+            sample(latencyNanos, running);
+        }
+    }
+
+    int limit() {
+        return (int) limit;
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void sample(long latencyNanos, int running) {
+        windowSum += latencyNanos;
+        windowCount++;
+        windowMaxInFlight = Math.max(windowMaxInFlight, running);
+        if (windowCount < windowSize) {
+            return;
+        }
+        double shortRtt = Math.max(1, (double) windowSum / windowCount);
+        boolean saturated = windowMaxInFlight * 2 >= limit;
+        windowSum = 0;
+        windowCount = 0;
+        windowMaxInFlight = 0;
+
+        if (longRtt == 0) {
+            longRtt = shortRtt;
+        } else if (shortRtt < longRtt) {
+            longRtt = longRtt > shortRtt * 2
+                    // Load has dropped well below what the long-term average remembers; catch up faster
+                    ? longRtt * 0.8 + shortRtt * 0.2
+                    : longRtt * 0.95 + shortRtt * 0.05;
+        } else if (!saturated && shortRtt <= longRtt * tolerance) {
+            longRtt = longRtt * 0.95 + shortRtt * 0.05;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRtt / shortRtt));
+        // gradient <= 1, so only a saturated window can raise the limit
+        double target = limit * gradient + (saturated ? Math.sqrt(limit) : 0);
+        double next = limit * (1 - smoothing) + target * smoothing;
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+}
@@ -0,0 +1,169 @@
+package com.ecommerce.com.ecommerce.flash.ratelimit;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.ecommerce.com.ecommerce.flash.config.CorsConfig;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// Load shedding in front of the controllers. All requests share one adaptive concurrency limit;
+// each priority class may only use a share of it, so as the limit shrinks under a slow database
+// admin exports are turned away first, then browsing, then the cart, and checkout last.
+// Turned-away requests get an immediate 503 instead of queueing behind slow ones.
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 30)
+public class LoadShedFilter extends OncePerRequestFilter {
+
+    // Highest priority first
+    enum Priority { CHECKOUT, CART, BROWSE, ADMIN }
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${flash.loadshed.enabled:true}")
+    private boolean enabled;
+
+    @Value("${flash.loadshed.initial-limit:100}")
+    private int initialLimit;
+
+    @Value("${flash.loadshed.min-limit:10}")
+    private int minLimit;
+
+    @Value("${flash.loadshed.max-limit:1000}")
+    private int maxLimit;
+
+    @Value("${flash.loadshed.tolerance:2.0}")
+    private double tolerance;
+
+    @Value("${flash.loadshed.smoothing:0.2}")
+    private double smoothing;
+
+    @Value("${flash.loadshed.window-size:100}")
+    private int windowSize;
+
+    // Share of the limit each class may fill
+    @Value("${flash.loadshed.share.cart:0.9}")
+    private double cartShare;
+
+    @Value("${flash.loadshed.share.browse:0.75}")
+    private double browseShare;
+
+    @Value("${flash.loadshed.share.admin:0.5}")
+    private double adminShare;
+
+    private AdaptiveConcurrencyLimiter limiter;
+    private final Map<Priority, Double> shares = new EnumMap<>(Priority.class);
+
+    @PostConstruct
+    public void init() {
+        limiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, tolerance, smoothing, windowSize);
+        shares.put(Priority.CHECKOUT, 1.0);
+        shares.put(Priority.CART, cartShare);
+        shares.put(Priority.BROWSE, browseShare);
+        shares.put(Priority.ADMIN, adminShare);
+        Gauge.builder("flash.loadshed.limit", limiter, AdaptiveConcurrencyLimiter::limit).register(meterRegistry);
+        Gauge.builder("flash.loadshed.inflight", limiter, AdaptiveConcurrencyLimiter::inFlight).register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // Preflights and health checks are cheap and must keep working under overload. Intake status
+        // polls only read memory but may wait up to 30 s for their order to settle: holding a slot
+        // that long would let a flash sale's pollers fill the limit and shed checkout itself.
+        return !enabled || "OPTIONS".equals(request.getMethod()) || request.getRequestURI().startsWith("/actuator")
+                || ("GET".equals(request.getMethod()) && request.getRequestURI().startsWith("/api/orders/intake/"));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Priority priority = priorityOf(request.getMethod(), request.getRequestURI());
+        if (!limiter.tryAcquire(shares.get(priority))) {
+            meterRegistry.counter("flash.loadshed.shed", "priority", priority.name().toLowerCase()).increment();
+            CorsConfig.allowRejectionResponse(request, response);
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.setContentType("text/plain;charset=UTF-8");
+            response.getWriter().write("Service is busy, please retry shortly");
+            return;
+        }
+        long start = System.nanoTime();
+        boolean async = false;
+        try {
+            chain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                // Login hashing and the product page fan-out finish on other threads, shortly; hold
+                // the slot until they complete but leave them out of the latency samples
+                async = true;
+                AtomicBoolean released = new AtomicBoolean();
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        release();
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                        release();
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                        release();
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+
+                    private void release() {
+                        if (released.compareAndSet(false, true)) {
+                            limiter.release(-1);
+                        }
+                    }
+                });
+            }
+        } finally {
+            if (!async) {
+                limiter.release(System.nanoTime() - start);
+            }
+        }
+    }
+
+    static Priority priorityOf(String method, String path) {
+        if (path.startsWith("/api/orders")) {
+            if (!"GET".equals(method)) {
+                return Priority.CHECKOUT;
+            }
+            // The full order list is an admin export
+            return path.equals("/api/orders") ? Priority.ADMIN : Priority.CART;
+        }
+        if (path.startsWith("/api/cart") || path.startsWith("/api/auth") || path.startsWith("/api/users")) {
+            return Priority.CART;
+        }
+        if (path.startsWith("/api/admin")) {
+            return Priority.ADMIN;
+        }
+        return Priority.BROWSE;
+    }
+}
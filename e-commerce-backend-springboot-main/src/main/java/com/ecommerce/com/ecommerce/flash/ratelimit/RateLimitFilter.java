@@ -0,0 +1,171 @@
+package com.ecommerce.com.ecommerce.flash.ratelimit;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.ecommerce.com.ecommerce.flash.config.CorsConfig;
+import com.ecommerce.com.ecommerce.flash.security.AuthTokenFilter;
+import com.ecommerce.com.ecommerce.flash.security.AuthenticatedPrincipal;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// Admission control: every request takes a token from the bucket of its client in its route group
+// (catalog, cart, orders, auth, other) and is answered 429 with Retry-After when the bucket is
+// empty. Clients are identified by their session token, or by IP address when they have none;
+// auth routes are always keyed by IP so a password guesser cannot rotate identities.
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 20)
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    enum Group { CATALOG, CART, ORDERS, AUTH, OTHER }
+
+    private static class Limit {
+        final long intervalNanos;
+        final long burstNanos;
+
+        Limit(double ratePerSecond, int burst) {
+            intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+            burstNanos = intervalNanos * Math.max(1, burst);
+        }
+    }
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${flash.ratelimit.enabled:true}")
+    private boolean enabled;
+
+    // Beyond this many tracked clients, new clients of a group share one overflow bucket
+    @Value("${flash.ratelimit.max-keys:100000}")
+    private int maxKeys;
+
+    @Value("${flash.ratelimit.catalog.rate-per-second:50}")
+    private double catalogRate;
+
+    @Value("${flash.ratelimit.catalog.burst:100}")
+    private int catalogBurst;
+
+    @Value("${flash.ratelimit.cart.rate-per-second:10}")
+    private double cartRate;
+
+    @Value("${flash.ratelimit.cart.burst:20}")
+    private int cartBurst;
+
+    @Value("${flash.ratelimit.orders.rate-per-second:10}")
+    private double ordersRate;
+
+    @Value("${flash.ratelimit.orders.burst:20}")
+    private int ordersBurst;
+
+    @Value("${flash.ratelimit.auth.rate-per-second:1}")
+    private double authRate;
+
+    @Value("${flash.ratelimit.auth.burst:5}")
+    private int authBurst;
+
+    @Value("${flash.ratelimit.other.rate-per-second:20}")
+    private double otherRate;
+
+    @Value("${flash.ratelimit.other.burst:40}")
+    private int otherBurst;
+
+    private final Map<Group, Limit> limits = new EnumMap<>(Group.class);
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        limits.put(Group.CATALOG, new Limit(catalogRate, catalogBurst));
+        limits.put(Group.CART, new Limit(cartRate, cartBurst));
+        limits.put(Group.ORDERS, new Limit(ordersRate, ordersBurst));
+        limits.put(Group.AUTH, new Limit(authRate, authBurst));
+        limits.put(Group.OTHER, new Limit(otherRate, otherBurst));
+        meterRegistry.gauge("flash.ratelimit.keys", buckets, Map::size);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || "OPTIONS".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Group group = groupOf(request.getRequestURI());
+        Limit limit = limits.get(group);
+        long now = System.nanoTime();
+        long wait = bucketFor(group.name() + "|" + clientOf(request, group), now)
+                .tryAcquire(now, limit.intervalNanos, limit.burstNanos);
+        if (wait == 0) {
+            chain.doFilter(request, response);
+            return;
+        }
+        meterRegistry.counter("flash.ratelimit.rejected", "group", group.name().toLowerCase()).increment();
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + TimeUnit.SECONDS.toNanos(1) - 1));
+        CorsConfig.allowRejectionResponse(request, response);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType("text/plain;charset=UTF-8");
+        response.getWriter().write("Too many requests, please retry in " + retryAfterSeconds + " s");
+    }
+
+    // Drop buckets that have refilled completely; they carry no state a new bucket would not
+    @Scheduled(fixedDelayString = "${flash.ratelimit.sweep-interval-ms:30000}")
+    public void sweep() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    private TokenBucket bucketFor(String key, long now) {
+        TokenBucket bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxKeys) {
+            key = key.substring(0, key.indexOf('|')) + "|overflow";
+        }
+        return buckets.computeIfAbsent(key, k -> new TokenBucket(now));
+    }
+
+    static Group groupOf(String path) {
+        if (path.startsWith("/api/products")) {
+            return Group.CATALOG;
+        }
+        if (path.startsWith("/api/cart")) {
+            return Group.CART;
+        }
+        if (path.startsWith("/api/orders")) {
+            return Group.ORDERS;
+        }
+        if (path.startsWith("/api/auth") || path.equals("/api/users/register") || path.equals("/product-owners/register")) {
+            return Group.AUTH;
+        }
+        return Group.OTHER;
+    }
+
+    private static String clientOf(HttpServletRequest request, Group group) {
+        Object principal = request.getAttribute(AuthTokenFilter.PRINCIPAL_ATTRIBUTE);
+        if (group != Group.AUTH && principal instanceof AuthenticatedPrincipal) {
+            AuthenticatedPrincipal caller = (AuthenticatedPrincipal) principal;
+            return caller.getAccountType() + ":" + caller.getAccountId();
+        }
+        return request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,36 @@
+package com.ecommerce.com.ecommerce.flash.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Lock-free token bucket in its GCRA form: the whole state is one timestamp, the time at which
+// the bucket would be full again, advanced with a CAS. Equivalent to refilling `rate` tokens per
+// second up to `burst`.
+class TokenBucket {
+
+    // Nanos on the System.nanoTime() clock
+    private final AtomicLong fullAt;
+
+    TokenBucket(long now) {
+        this.fullAt = new AtomicLong(now);
+    }
+
+    // Take one token; returns 0 if allowed, otherwise the nanos until a token is available
+    long tryAcquire(long now, long intervalNanos, long burstNanos) {
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, now) + intervalNanos;
+            long wait = next - burstNanos - now;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    // A full bucket behaves exactly like a new one, so it can be dropped
+    boolean isFull(long now) {
+        return fullAt.get() - now <= 0;
+    }
+}
@@ -0,0 +1,54 @@
+package com.ecommerce.com.ecommerce.flash.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.ecommerce.com.ecommerce.flash.dto.OrderDetailDTO;
+import com.ecommerce.com.ecommerce.flash.dto.OrderSnapshot;
+import com.ecommerce.com.ecommerce.flash.dto.OrderSummaryDTO;
+import com.ecommerce.com.ecommerce.flash.entity.ArchivedOrder;
+
+// Read side of the order archive; the queries mirror OrderRepository's projections
+@Repository
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrder, Long> {
+
+    String SUMMARY_SELECT = OrderRepository.SUMMARY_COLUMNS + "FROM ArchivedOrder o JOIN o.product p JOIN o.user u ";
+
+    String DETAIL_SELECT = OrderRepository.DETAIL_COLUMNS
+            + "FROM ArchivedOrder o JOIN o.product p JOIN o.user u LEFT JOIN o.address a ";
+
+    @Query(SUMMARY_SELECT + "ORDER BY o.id")
+    List<OrderSummaryDTO> findAllSummaries();
+
+    @Query(SUMMARY_SELECT + "WHERE u.id = :userId ORDER BY o.id")
+    List<OrderSummaryDTO> findSummariesByUserId(@Param("userId") Long userId);
+
+    @Query(SUMMARY_SELECT + "WHERE u.id = :userId AND o.status = :status ORDER BY o.id")
+    List<OrderSummaryDTO> findSummariesByUserIdAndStatus(@Param("userId") Long userId, @Param("status") String status);
+
+    @Query(SUMMARY_SELECT + "WHERE p.productOwner.productOwnerId = :ownerId ORDER BY o.id")
+    List<OrderSummaryDTO> findSummariesByProductOwnerId(@Param("ownerId") Long ownerId);
+
+    @Query(DETAIL_SELECT + "WHERE o.id = :id")
+    Optional<OrderDetailDTO> findDetailById(@Param("id") Long id);
+
+    @Query("SELECT new com.ecommerce.com.ecommerce.flash.dto.OrderSnapshot(o.id, o.product.id, o.quantity, o.status, o.orderDate, 0L, o.unitPrice) "
+            + "FROM ArchivedOrder o WHERE o.id = :id")
+    Optional<OrderSnapshot> findSnapshotById(@Param("id") Long id);
+
+    @Query(SUMMARY_SELECT + OrderRepository.SELLER_PAGE_WHERE)
+    List<OrderSummaryDTO> findSellerPage(@Param("ownerId") Long ownerId,
+                                         @Param("status") String status,
+                                         @Param("fromDate") LocalDateTime fromDate,
+                                         @Param("toDate") LocalDateTime toDate,
+                                         @Param("cursorDate") LocalDateTime cursorDate,
+                                         @Param("cursorId") Long cursorId,
+                                         Pageable page);
+}
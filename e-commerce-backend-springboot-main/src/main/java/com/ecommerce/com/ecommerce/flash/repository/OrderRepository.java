@@ -1,16 +1,105 @@
 package com.ecommerce.com.ecommerce.flash.repository;
 
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import com.ecommerce.com.ecommerce.flash.dto.OrderDetailDTO;
+import com.ecommerce.com.ecommerce.flash.dto.OrderSnapshot;
+import com.ecommerce.com.ecommerce.flash.dto.OrderSummaryDTO;
 import com.ecommerce.com.ecommerce.flash.entity.Order;
+import jakarta.persistence.LockModeType;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
+
+    // Projections that read only the order columns, product name/price/image prefix and buyer name.
+    // The column lists are shared with ArchivedOrderRepository, which selects the same shape;
+    // DETAIL_COLUMNS expects the shipping address joined as "a".
+    String SUMMARY_COLUMNS = "SELECT new com.ecommerce.com.ecommerce.flash.dto.OrderSummaryDTO("
+            + "o.id, o.status, o.orderDate, o.quantity, p.id, p.name, p.price, SUBSTRING(CAST(p.productImage AS String), 1, "
+            + OrderSummaryDTO.THUMBNAIL_MAX_LENGTH + "), u.id, u.name) ";
+
+    String DETAIL_COLUMNS = "SELECT new com.ecommerce.com.ecommerce.flash.dto.OrderDetailDTO("
+            + "o.id, o.status, o.orderDate, o.quantity, p.id, p.name, p.price, SUBSTRING(CAST(p.productImage AS String), 1, "
+            + OrderSummaryDTO.THUMBNAIL_MAX_LENGTH + "), u.id, u.name, "
+            + "a.firstName, a.lastName, a.address, a.city, a.state, "
+            + "a.zipCode, a.country, a.phone, o.paymentMethod, o.cardLastFour) ";
+
+    // Seller page filters, shared with ArchivedOrderRepository. Keyset pagination: pass the date
+    // and id of the last row seen as the cursor. Carts are left out unless asked for explicitly.
+    String SELLER_PAGE_WHERE = "WHERE p.productOwner.productOwnerId = :ownerId "
+            + "AND ((:status IS NULL AND o.status <> 'In Cart') OR o.status = :status) "
+            + "AND (:fromDate IS NULL OR o.orderDate >= :fromDate) "
+            + "AND (:toDate IS NULL OR o.orderDate < :toDate) "
+            + "AND (:cursorDate IS NULL OR o.orderDate < :cursorDate "
+            + "     OR (o.orderDate = :cursorDate AND o.id < :cursorId)) "
+            + "ORDER BY o.orderDate DESC, o.id DESC";
+
+    String SUMMARY_SELECT = SUMMARY_COLUMNS + "FROM Order o JOIN o.product p JOIN o.user u ";
+
+    String DETAIL_SELECT = DETAIL_COLUMNS + "FROM Order o JOIN o.product p JOIN o.user u LEFT JOIN o.address a ";
+
     // Retrieve orders by user
     List<Order> findByUserId(Long userId);
     
     // Retrieve orders for products owned by a specific product owner
     List<Order> findByProductProductOwnerProductOwnerId(Long productOwnerId);
+
+    @Query(SUMMARY_SELECT + "ORDER BY o.id")
+    List<OrderSummaryDTO> findAllSummaries();
+
+    @Query(SUMMARY_SELECT + "WHERE u.id = :userId ORDER BY o.id")
+    List<OrderSummaryDTO> findSummariesByUserId(@Param("userId") Long userId);
+
+    @Query(SUMMARY_SELECT + "WHERE u.id = :userId AND o.status = :status ORDER BY o.id")
+    List<OrderSummaryDTO> findSummariesByUserIdAndStatus(@Param("userId") Long userId, @Param("status") String status);
+
+    @Query(SUMMARY_SELECT + "WHERE p.productOwner.productOwnerId = :ownerId ORDER BY o.id")
+    List<OrderSummaryDTO> findSummariesByProductOwnerId(@Param("ownerId") Long ownerId);
+
+    @Query(DETAIL_SELECT + "WHERE o.id = :id")
+    Optional<OrderDetailDTO> findDetailById(@Param("id") Long id);
+
+    @Query("SELECT new com.ecommerce.com.ecommerce.flash.dto.OrderSnapshot(o.id, o.product.id, o.quantity, o.status, o.orderDate, o.version, o.unitPrice) "
+            + "FROM Order o WHERE o.id = :id")
+    Optional<OrderSnapshot> findSnapshotById(@Param("id") Long id);
+
+    // The same, reading the row FOR UPDATE: it stays locked until the caller's transaction ends
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT new com.ecommerce.com.ecommerce.flash.dto.OrderSnapshot(o.id, o.product.id, o.quantity, o.status, o.orderDate, o.version, o.unitPrice) "
+            + "FROM Order o WHERE o.id = :id")
+    Optional<OrderSnapshot> findSnapshotForUpdateById(@Param("id") Long id);
+
+    // Seller order page, newest first
+    @Query(SUMMARY_SELECT + SELLER_PAGE_WHERE)
+    List<OrderSummaryDTO> findSellerPage(@Param("ownerId") Long ownerId,
+                                         @Param("status") String status,
+                                         @Param("fromDate") LocalDateTime fromDate,
+                                         @Param("toDate") LocalDateTime toDate,
+                                         @Param("cursorDate") LocalDateTime cursorDate,
+                                         @Param("cursorId") Long cursorId,
+                                         Pageable page);
+
+    // Single-column updates guarded by the version the caller read; 0 rows means the order
+    // is gone or was changed since (see OrderDao)
+    @Modifying
+    @Transactional
+    @Query("UPDATE Order o SET o.status = :status, o.version = o.version + 1 WHERE o.id = :id AND o.version = :version")
+    int updateStatus(@Param("id") Long id, @Param("status") String status, @Param("version") long version);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Order o SET o.quantity = :quantity, o.version = o.version + 1 "
+            + "WHERE o.id = :id AND o.version = :version AND o.status = :status")
+    int updateQuantity(@Param("id") Long id, @Param("quantity") int quantity, @Param("version") long version,
+                       @Param("status") String status);
 }
@@ -0,0 +1,65 @@
+package com.ecommerce.com.ecommerce.flash.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.ecommerce.com.ecommerce.flash.entity.Admin;
+import com.ecommerce.com.ecommerce.flash.entity.Principal;
+import com.ecommerce.com.ecommerce.flash.entity.ProductOwner;
+import com.ecommerce.com.ecommerce.flash.entity.User;
+
+@Repository
+public interface PrincipalRepository extends JpaRepository<Principal, Long> {
+    // Every account registered under this email (at most one per type)
+    List<Principal> findByEmail(String email);
+
+    @Modifying
+    @Query("DELETE FROM Principal p WHERE p.accountType = :type AND p.accountId = :accountId")
+    int deleteByAccount(@Param("type") Principal.AccountType type, @Param("accountId") Long accountId);
+
+    // Accounts without credentials in the index yet, e.g. rows inserted by data.sql
+    @Query("SELECT u FROM User u WHERE NOT EXISTS (SELECT p.id FROM Principal p "
+         + "WHERE p.accountType = com.ecommerce.com.ecommerce.flash.entity.Principal.AccountType.USER AND p.accountId = u.id)")
+    List<User> findUsersWithoutPrincipal();
+
+    @Query("SELECT o FROM ProductOwner o WHERE NOT EXISTS (SELECT p.id FROM Principal p "
+         + "WHERE p.accountType = com.ecommerce.com.ecommerce.flash.entity.Principal.AccountType.PRODUCT_OWNER "
+         + "AND p.accountId = o.productOwnerId)")
+    List<ProductOwner> findProductOwnersWithoutPrincipal();
+
+    @Query("SELECT a FROM Admin a WHERE NOT EXISTS (SELECT p.id FROM Principal p "
+         + "WHERE p.accountType = com.ecommerce.com.ecommerce.flash.entity.Principal.AccountType.ADMIN AND p.accountId = a.adminId)")
+    List<Admin> findAdminsWithoutPrincipal();
+
+    // Overwrite the accounts' own password columns with their indexed hash wherever they still differ
+    // (plaintext from before indexing); returns the number of accounts changed
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.password = (SELECT p.passwordHash FROM Principal p "
+         + "WHERE p.accountType = com.ecommerce.com.ecommerce.flash.entity.Principal.AccountType.USER AND p.accountId = u.id) "
+         + "WHERE EXISTS (SELECT p.id FROM Principal p WHERE p.accountType = com.ecommerce.com.ecommerce.flash.entity.Principal.AccountType.USER "
+         + "AND p.accountId = u.id AND p.passwordHash <> u.password)")
+    int replaceUserPasswords();
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ProductOwner o SET o.productOwnerPassword = (SELECT p.passwordHash FROM Principal p "
+         + "WHERE p.accountType = com.ecommerce.com.ecommerce.flash.entity.Principal.AccountType.PRODUCT_OWNER AND p.accountId = o.productOwnerId) "
+         + "WHERE EXISTS (SELECT p.id FROM Principal p WHERE p.accountType = com.ecommerce.com.ecommerce.flash.entity.Principal.AccountType.PRODUCT_OWNER "
+         + "AND p.accountId = o.productOwnerId AND p.passwordHash <> o.productOwnerPassword)")
+    int replaceProductOwnerPasswords();
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Admin a SET a.adminPassword = (SELECT p.passwordHash FROM Principal p "
+         + "WHERE p.accountType = com.ecommerce.com.ecommerce.flash.entity.Principal.AccountType.ADMIN AND p.accountId = a.adminId) "
+         + "WHERE EXISTS (SELECT p.id FROM Principal p WHERE p.accountType = com.ecommerce.com.ecommerce.flash.entity.Principal.AccountType.ADMIN "
+         + "AND p.accountId = a.adminId AND p.passwordHash <> a.adminPassword)")
+    int replaceAdminPasswords();
+}
@@ -1,10 +1,18 @@
 package com.ecommerce.com.ecommerce.flash.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.ecommerce.com.ecommerce.flash.dto.ProductSnapshot;
 import com.ecommerce.com.ecommerce.flash.entity.Product;
+import com.ecommerce.com.ecommerce.flash.entity.ProductStatus;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
@@ -14,5 +22,28 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     List<Product> findProductsByProductOwnerId(Long ownerId);
     List<Product> findByProductOwner_ProductOwnerId(Long ownerId);
     List<Product> findByApproved(boolean approved);
+    List<Product> findByApproved(boolean approved, Pageable pageable);
+
+    // Flag or unflag a product for flash-sale inventory without loading it
+    @Modifying
+    @Transactional
+    @Query("UPDATE Product p SET p.flashSale = :flashSale WHERE p.id = :id")
+    int updateFlashSale(@Param("id") Long id, @Param("flashSale") boolean flashSale);
+
+    // Current column values straight from the table, regardless of any modified entity in the session
+    @Query("SELECT new com.ecommerce.com.ecommerce.flash.dto.ProductSnapshot(p.id, o.productOwnerId, "
+            + "p.category, p.status, p.createdAt, p.version) FROM Product p LEFT JOIN p.productOwner o WHERE p.id = :id")
+    Optional<ProductSnapshot> findSnapshotById(@Param("id") Long id);
+
+    // Approve without loading the product (image, sizes, colors); guarded by the version the caller read
+    @Modifying
+    @Transactional
+    @Query("UPDATE Product p SET p.approved = true, p.status = :status, p.version = p.version + 1 "
+            + "WHERE p.id = :id AND p.version = :version")
+    int approve(@Param("id") Long id, @Param("status") ProductStatus status, @Param("version") long version);
 
+    @Modifying
+    @Transactional
+    @Query("UPDATE Product p SET p.stock = :stock, p.version = p.version + 1 WHERE p.id = :id")
+    int updateStock(@Param("id") Long id, @Param("stock") int stock);
 }
@@ -0,0 +1,21 @@
+package com.ecommerce.com.ecommerce.flash.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.ecommerce.com.ecommerce.flash.entity.SellerDailySales;
+
+@Repository
+public interface SellerDailySalesRepository extends JpaRepository<SellerDailySales, SellerDailySales.Key> {
+    List<SellerDailySales> findByProductOwnerIdAndSalesDateGreaterThanEqual(Long productOwnerId, LocalDate since);
+
+    // All-time units and revenue as {units, revenue}
+    @Query("SELECT COALESCE(SUM(s.units), 0), COALESCE(SUM(s.revenue), 0) FROM SellerDailySales s "
+            + "WHERE s.productOwnerId = :ownerId")
+    List<Object[]> sumByProductOwnerId(@Param("ownerId") Long productOwnerId);
+}
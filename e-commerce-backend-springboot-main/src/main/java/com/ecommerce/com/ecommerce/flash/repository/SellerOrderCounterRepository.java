@@ -0,0 +1,13 @@
+package com.ecommerce.com.ecommerce.flash.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.ecommerce.com.ecommerce.flash.entity.SellerOrderCounter;
+
+@Repository
+public interface SellerOrderCounterRepository extends JpaRepository<SellerOrderCounter, SellerOrderCounter.Key> {
+    List<SellerOrderCounter> findByProductOwnerId(Long productOwnerId);
+}
@@ -0,0 +1,13 @@
+package com.ecommerce.com.ecommerce.flash.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.ecommerce.com.ecommerce.flash.entity.ShippingAddress;
+
+@Repository
+public interface ShippingAddressRepository extends JpaRepository<ShippingAddress, Long> {
+    Optional<ShippingAddress> findByContentHash(String contentHash);
+}
@@ -0,0 +1,25 @@
+package com.ecommerce.com.ecommerce.flash.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.ecommerce.com.ecommerce.flash.entity.StatsRollup;
+
+@Repository
+public interface StatsRollupRepository extends JpaRepository<StatsRollup, StatsRollup.Key> {
+
+    // Buckets in [from, to), optionally for a single dimension
+    @Query("SELECT s FROM StatsRollup s WHERE s.granularity = :granularity "
+            + "AND s.bucketStart >= :fromDate AND s.bucketStart < :toDate "
+            + "AND (:dimension IS NULL OR s.dimension = :dimension) "
+            + "ORDER BY s.bucketStart, s.dimension, s.dimensionKey")
+    List<StatsRollup> findBuckets(@Param("granularity") StatsRollup.Granularity granularity,
+                                  @Param("fromDate") LocalDateTime fromDate,
+                                  @Param("toDate") LocalDateTime toDate,
+                                  @Param("dimension") StatsRollup.Dimension dimension);
+}
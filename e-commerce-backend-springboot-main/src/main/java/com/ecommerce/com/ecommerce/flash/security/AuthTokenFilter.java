@@ -0,0 +1,43 @@
+package com.ecommerce.com.ecommerce.flash.security;
+
+import java.io.IOException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// Verifies an "Authorization: Bearer <token>" header and exposes the caller as the
+// PRINCIPAL_ATTRIBUTE request attribute. Requests without a valid token pass through
+// unauthenticated; endpoints that need a caller decide how to answer (after CORS is applied).
+// Runs before RateLimitFilter so authenticated callers are limited per account
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class AuthTokenFilter extends OncePerRequestFilter {
+
+    public static final String PRINCIPAL_ATTRIBUTE = "flash.principal";
+    private static final String BEARER = "Bearer ";
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+            AuthenticatedPrincipal principal = tokenService.verify(header.substring(BEARER.length()).trim());
+            if (principal != null) {
+                request.setAttribute(PRINCIPAL_ATTRIBUTE, principal);
+            }
+        }
+        chain.doFilter(request, response);
+    }
+}
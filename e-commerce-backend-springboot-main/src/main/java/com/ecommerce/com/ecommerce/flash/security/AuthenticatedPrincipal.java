@@ -0,0 +1,34 @@
+package com.ecommerce.com.ecommerce.flash.security;
+
+import com.ecommerce.com.ecommerce.flash.entity.Principal;
+
+// Caller identity carried by a verified session token
+public class AuthenticatedPrincipal {
+
+    private final Principal.AccountType accountType;
+    private final long accountId;
+    // Epoch seconds
+    private final long expiresAt;
+
+    public AuthenticatedPrincipal(Principal.AccountType accountType, long accountId, long expiresAt) {
+        this.accountType = accountType;
+        this.accountId = accountId;
+        this.expiresAt = expiresAt;
+    }
+
+    public Principal.AccountType getAccountType() {
+        return accountType;
+    }
+
+    public long getAccountId() {
+        return accountId;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public boolean isUser(long userId) {
+        return accountType == Principal.AccountType.USER && accountId == userId;
+    }
+}
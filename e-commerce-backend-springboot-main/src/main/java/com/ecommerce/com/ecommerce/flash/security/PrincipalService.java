@@ -0,0 +1,138 @@
+package com.ecommerce.com.ecommerce.flash.security;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.ecommerce.com.ecommerce.flash.entity.Admin;
+import com.ecommerce.com.ecommerce.flash.entity.Principal;
+import com.ecommerce.com.ecommerce.flash.entity.ProductOwner;
+import com.ecommerce.com.ecommerce.flash.entity.User;
+import com.ecommerce.com.ecommerce.flash.repository.PrincipalRepository;
+
+import jakarta.annotation.PostConstruct;
+
+// Unified credential index over users, product owners and admins. Kept up to date by the
+// services that create or change accounts; rows missing at startup (e.g. seeded by data.sql)
+// are added before the application starts serving. The accounts' own password columns hold the
+// same hash: plaintext is only read once, by syncMissing, and replaced right after indexing.
+@Service
+public class PrincipalService {
+
+    // Accounts hashed together while catching up at startup (kept below the hashing queue size)
+    private static final int SYNC_CHUNK = 64;
+
+    @Autowired
+    private PrincipalRepository principalRepository;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    @Autowired
+    private RegisteredEmailFilter registeredEmailFilter;
+
+    // Checked when an email has no account, so an unknown email costs as much as a wrong password
+    private String dummyHash;
+
+    @PostConstruct
+    public void init() {
+        dummyHash = passwordHasher.hash(UUID.randomUUID().toString()).join();
+    }
+
+    public static String normalizeEmail(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Hash a password for register(), waiting for the hashing pool. Call it before opening the
+    // transaction, so no connection is held while the hash runs.
+    // Throws RejectedExecutionException when the hashing pool is saturated.
+    public String hashPassword(String password) {
+        return passwordHasher.hash(password).join();
+    }
+
+    // Store (or replace) the credentials of an account, given hashPassword()'s result; runs in the
+    // caller's transaction
+    @Transactional
+    public void register(Principal.AccountType type, Long accountId, String email, String passwordHash) {
+        principalRepository.deleteByAccount(type, accountId);
+        principalRepository.flush();
+        principalRepository.save(new Principal(null, normalizeEmail(email), type, accountId, passwordHash));
+        registeredEmailFilter.add(email);
+    }
+
+    @Transactional
+    public void remove(Principal.AccountType type, Long accountId) {
+        principalRepository.deleteByAccount(type, accountId);
+    }
+
+    // One indexed read, then the hash checks on the hashing pool. Completes with the first
+    // account (in USER, PRODUCT_OWNER, ADMIN order) whose password matches.
+    // Throws RejectedExecutionException when the hashing pool is saturated.
+    public CompletableFuture<Optional<Principal>> authenticate(String email, String password) {
+        String normalized = normalizeEmail(email);
+        if (normalized == null || password == null) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        List<Principal> candidates = new ArrayList<>(principalRepository.findByEmail(normalized));
+        if (candidates.isEmpty()) {
+            return passwordHasher.submit(() -> {
+                passwordHasher.matches(password, dummyHash);
+                return Optional.<Principal>empty();
+            });
+        }
+        candidates.sort(Comparator.comparing(Principal::getAccountType));
+        return passwordHasher.submit(() -> candidates.stream()
+                                                     .filter(p -> passwordHasher.matches(password, p.getPasswordHash()))
+                                                     .findFirst());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @org.springframework.core.annotation.Order(0)
+    public void syncMissing() {
+        List<Principal> missing = new ArrayList<>();
+        List<String> passwords = new ArrayList<>();
+        for (User user : principalRepository.findUsersWithoutPrincipal()) {
+            missing.add(new Principal(null, normalizeEmail(user.getEmail()), Principal.AccountType.USER, user.getId(), null));
+            passwords.add(user.getPassword());
+        }
+        for (ProductOwner owner : principalRepository.findProductOwnersWithoutPrincipal()) {
+            missing.add(new Principal(null, normalizeEmail(owner.getProductOwnerEmail()),
+                    Principal.AccountType.PRODUCT_OWNER, owner.getProductOwnerId(), null));
+            passwords.add(owner.getProductOwnerPassword());
+        }
+        for (Admin admin : principalRepository.findAdminsWithoutPrincipal()) {
+            missing.add(new Principal(null, normalizeEmail(admin.getAdminEmail()), Principal.AccountType.ADMIN,
+                    admin.getAdminId(), null));
+            passwords.add(admin.getAdminPassword());
+        }
+        for (int start = 0; start < missing.size(); start += SYNC_CHUNK) {
+            int end = Math.min(start + SYNC_CHUNK, missing.size());
+            List<CompletableFuture<String>> hashes = new ArrayList<>();
+            for (int i = start; i < end; i++) {
+                hashes.add(passwordHasher.hash(passwords.get(i)));
+            }
+            for (int i = start; i < end; i++) {
+                missing.get(i).setPasswordHash(hashes.get(i - start).join());
+            }
+            principalRepository.saveAll(missing.subList(start, end));
+        }
+        if (!missing.isEmpty()) {
+            System.out.println("Added " + missing.size() + " accounts to the login index");
+        }
+        int replaced = principalRepository.replaceUserPasswords() + principalRepository.replaceProductOwnerPasswords()
+                + principalRepository.replaceAdminPasswords();
+        if (replaced > 0) {
+            System.out.println("Replaced " + replaced + " plaintext passwords with their hashes");
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.ecommerce.com.ecommerce.flash.security;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.ecommerce.com.ecommerce.flash.util.BloomFilter;
+
+import jakarta.annotation.PostConstruct;
+
+// In-memory Bloom filter of every email in the login index (users, product owners and admins).
+// A "no" lets registration skip the existence query; a "maybe" still asks the database, and the
+// unique constraints stay the final arbiter. Until the startup scan finishes every answer is "maybe".
+@Service
+public class RegisteredEmailFilter {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${flash.auth.email-filter.expected-insertions:1000000}")
+    private long expectedInsertions;
+
+    @Value("${flash.auth.email-filter.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    private BloomFilter filter;
+    private volatile boolean ready;
+
+    @PostConstruct
+    public void init() {
+        filter = new BloomFilter(expectedInsertions, falsePositiveRate);
+    }
+
+    // Runs after PrincipalService has indexed any accounts missing at startup
+    @EventListener(ApplicationReadyEvent.class)
+    @org.springframework.core.annotation.Order(1)
+    public void load() {
+        long[] count = new long[1];
+        JdbcTemplate streaming = new JdbcTemplate(jdbcTemplate.getDataSource());
+        streaming.setFetchSize(1000);
+        streaming.query("SELECT email FROM principals", rs -> {
+            filter.add(rs.getString(1));
+            count[0]++;
+        });
+        ready = true;
+        System.out.println("Loaded " + count[0] + " registered emails into the email filter ("
+                + filter.bitCount() / 8 / 1024 + " KB, " + filter.hashCount() + " hashes)");
+    }
+
+    // Called for every account written to the login index
+    public void add(String email) {
+        filter.add(PrincipalService.normalizeEmail(email));
+    }
+
+    // False only if no account uses this email
+    public boolean mightBeRegistered(String email) {
+        return !ready || email == null || filter.mightContain(PrincipalService.normalizeEmail(email));
+    }
+}
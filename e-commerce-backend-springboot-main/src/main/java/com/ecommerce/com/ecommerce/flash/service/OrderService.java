@@ -0,0 +1,100 @@
+package com.ecommerce.com.ecommerce.flash.service;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.ecommerce.com.ecommerce.flash.dao.OrderDao;
+import com.ecommerce.com.ecommerce.flash.dashboard.SellerDashboardService;
+import com.ecommerce.com.ecommerce.flash.dto.OrderSnapshot;
+import com.ecommerce.com.ecommerce.flash.dto.OrderSummaryDTO;
+import com.ecommerce.com.ecommerce.flash.inventory.InventoryEngine;
+
+// Order use cases that span several DAO calls, each in a single transaction
+@Service
+public class OrderService {
+
+    @Autowired
+    private OrderDao orderDao;
+
+    @Autowired
+    private InventoryEngine inventoryEngine;
+
+    // Remove every cart item of a user with one commit; returns the number removed
+    @Transactional
+    public int clearCart(Long userId) {
+        List<OrderSummaryDTO> cartItems = orderDao.getOrderSummariesByUserIdAndStatus(userId, "In Cart");
+        for (OrderSummaryDTO item : cartItems) {
+            orderDao.deleteOrder(item.getId());
+        }
+        return cartItems.size();
+    }
+
+    // Remove one order if it is still in the hot table; returns false otherwise.
+    // A placed order gives its units back to stock.
+    @Transactional
+    public boolean deleteOrder(Long id) {
+        if (!orderDao.orderExists(id)) {
+            return false;
+        }
+        orderDao.deleteOrder(id).ifPresent(order -> {
+            if (holdsStock(order.getStatus())) {
+                inventoryEngine.restock(order.getProductId(), order.getQuantity());
+            }
+        });
+        return true;
+    }
+
+    // Change an order's status; returns false if the order does not exist. Rejecting or cancelling a
+    // placed order returns its units to stock, and reviving one takes them again. Throws
+    // IllegalStateException (and changes nothing) when there is not enough stock for that.
+    @Transactional
+    public boolean updateOrderStatus(Long id, String status) {
+        Optional<OrderSnapshot> before = orderDao.changeOrderStatus(id, status);
+        if (before.isEmpty()) {
+            return false;
+        }
+        OrderSnapshot order = before.get();
+        boolean held = holdsStock(order.getStatus());
+        boolean holds = holdsStock(status);
+        if (held && !holds) {
+            inventoryEngine.restock(order.getProductId(), order.getQuantity());
+        } else if (!held && holds && !inventoryEngine.take(order.getProductId(), order.getQuantity())) {
+            throw new IllegalStateException("Insufficient stock for product: " + order.getProductId());
+        }
+        return true;
+    }
+
+    // Change an order's quantity; returns false if the order does not exist. A cart item simply
+    // changes; a placed order takes the extra units or returns the ones it no longer needs. Throws
+    // IllegalStateException (and changes nothing) for orders that were rejected, cancelled or are
+    // otherwise past changing, and when there is not enough stock for an increase.
+    @Transactional
+    public boolean updateOrderQuantity(Long id, int quantity) {
+        Optional<OrderSnapshot> locked = orderDao.lockOrder(id);
+        if (locked.isEmpty()) {
+            return false;
+        }
+        OrderSnapshot order = locked.get();
+        int difference = quantity - order.getQuantity();
+        if (holdsStock(order.getStatus())) {
+            if (difference > 0 && !inventoryEngine.take(order.getProductId(), difference)) {
+                throw new IllegalStateException("Insufficient stock for product: " + order.getProductId());
+            } else if (difference < 0) {
+                inventoryEngine.restock(order.getProductId(), -difference);
+            }
+        } else if (!SellerDashboardService.IN_CART.equals(order.getStatus())) {
+            throw new IllegalStateException("Order " + id + " is " + order.getStatus() + " and can no longer change");
+        }
+        orderDao.changeOrderQuantity(order, quantity);
+        return true;
+    }
+
+    // Cart items never took stock; rejected and cancelled orders have given theirs back
+    private static boolean holdsStock(String status) {
+        return SellerDashboardService.isSale(status);
+    }
+}
@@ -0,0 +1,89 @@
+package com.ecommerce.com.ecommerce.flash.service;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ecommerce.com.ecommerce.flash.dao.ProductOwnerDao;
+import com.ecommerce.com.ecommerce.flash.entity.Principal;
+import com.ecommerce.com.ecommerce.flash.entity.ProductOwner;
+import com.ecommerce.com.ecommerce.flash.repository.ProductOwnerRepository;
+import com.ecommerce.com.ecommerce.flash.security.PrincipalService;
+import com.ecommerce.com.ecommerce.flash.security.RegisteredEmailFilter;
+
+import jakarta.annotation.PostConstruct;
+
+// Product owner use cases, each in a single transaction (one connection checkout and one commit)
+@Service
+public class ProductOwnerService {
+
+    @Autowired
+    private ProductOwnerDao productOwnerDao;
+
+    @Autowired
+    private ProductOwnerRepository productOwnerRepository;
+
+    @Autowired
+    private PrincipalService principalService;
+
+    @Autowired
+    private RegisteredEmailFilter registeredEmailFilter;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<ProductOwner> getProductOwnerByEmail(String email) {
+        return productOwnerDao.getProductOwnerByEmail(email);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<ProductOwner> getProductOwnerById(Long id) {
+        return productOwnerRepository.findById(id);
+    }
+
+    @Transactional(readOnly = true)
+    public List<ProductOwner> getAllProductOwners() {
+        return productOwnerRepository.findAll();
+    }
+
+    // Returns null if the email is already registered; same fast path, final check and hashing
+    // outside the transaction as for users
+    public ProductOwner registerProductOwner(ProductOwner productOwner) {
+        String passwordHash = principalService.hashPassword(productOwner.getProductOwnerPassword());
+        productOwner.setProductOwnerPassword(passwordHash);
+        return transactionTemplate.execute(status -> {
+            if (registeredEmailFilter.mightBeRegistered(productOwner.getProductOwnerEmail())
+                    && productOwnerDao.getProductOwnerByEmail(productOwner.getProductOwnerEmail()).isPresent()) {
+                return null;
+            }
+            ProductOwner saved = productOwnerDao.saveProductOwner(productOwner);
+            principalService.register(Principal.AccountType.PRODUCT_OWNER, saved.getProductOwnerId(),
+                                      saved.getProductOwnerEmail(), passwordHash);
+            return saved;
+        });
+    }
+
+    // Copy the editable fields; returns false if the owner does not exist
+    @Transactional
+    public boolean updateProductOwner(Long id, ProductOwner changes) {
+        Optional<ProductOwner> existing = productOwnerRepository.findById(id);
+        existing.ifPresent(owner -> {
+            owner.setProductOwnerName(changes.getProductOwnerName());
+            owner.setProductOwnerNumber(changes.getProductOwnerNumber());
+        });
+        return existing.isPresent();
+    }
+}
@@ -0,0 +1,370 @@
+package com.ecommerce.com.ecommerce.flash.service;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ecommerce.com.ecommerce.flash.catalog.CatalogSnapshot;
+import com.ecommerce.com.ecommerce.flash.catalog.CatalogSnapshotService;
+import com.ecommerce.com.ecommerce.flash.catalog.CatalogSort;
+import com.ecommerce.com.ecommerce.flash.dao.ProductDao;
+import com.ecommerce.com.ecommerce.flash.dto.NormalizedProductsDTO;
+import com.ecommerce.com.ecommerce.flash.dto.OrderSummaryDTO;
+import com.ecommerce.com.ecommerce.flash.dto.ProductDTO;
+import com.ecommerce.com.ecommerce.flash.dto.ProductOwnerDTO;
+import com.ecommerce.com.ecommerce.flash.entity.Product;
+import com.ecommerce.com.ecommerce.flash.entity.ProductOwner;
+import com.ecommerce.com.ecommerce.flash.inventory.InventoryEngine;
+import com.ecommerce.com.ecommerce.flash.repository.ProductOwnerRepository;
+import com.ecommerce.com.ecommerce.flash.repository.ProductRepository;
+import com.ecommerce.com.ecommerce.flash.util.FieldSelection;
+import com.ecommerce.com.ecommerce.flash.util.SingleFlight;
+
+import jakarta.annotation.PostConstruct;
+
+// Product use cases, each in a single transaction (one connection checkout and one commit)
+@Service
+public class ProductService {
+
+    // Conditions for the sparse reads (appended to "FROM products p")
+    private static final String ALL = "ORDER BY p.id";
+    private static final String BY_ID = "WHERE p.id = ?";
+    private static final String APPROVED = "WHERE p.approved = TRUE";
+    private static final String BY_OWNER = "WHERE p.product_owner_id = ? ORDER BY p.id";
+
+    // Shown for products without a usable image
+    private static final String NO_IMAGE = "data:image/svg+xml,%3Csvg xmlns='http://www.w3.org/2000/svg' width='300' height='300' viewBox='0 0 300 300'%3E%3Crect width='100%25' height='100%25' fill='%23f0f0f0'/%3E%3Ctext x='50%25' y='50%25' dominant-baseline='middle' text-anchor='middle' font-family='Arial' font-size='14' fill='%23666666'%3ENo Image Available%3C/text%3E%3C/svg%3E";
+
+    @Autowired
+    private ProductDao productDao;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductOwnerRepository productOwnerRepository;
+
+    @Autowired
+    private InventoryEngine inventoryEngine;
+
+    @Autowired
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Database fallbacks of the snapshot-served reads
+    private TransactionTemplate readOnlyTransaction;
+
+    // Identical catalog reads arriving together share one load and conversion. The loads run
+    // outside any transaction so waiting requests never hold a connection.
+    private final SingleFlight<Long, Optional<ProductDTO>> productLoads = new SingleFlight<>();
+    private final SingleFlight<String, List<ProductDTO>> approvedLoads = new SingleFlight<>();
+
+    @PostConstruct
+    public void init() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Product> getAllProducts() {
+        return productDao.getAllProducts();
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<Product> getProductById(Long id) {
+        return productDao.getProductById(id);
+    }
+
+    public Optional<ProductDTO> getProductDTO(Long id) {
+        return productLoads.execute(id, () -> productDao.getProductById(id).map(this::toDTO));
+    }
+
+    // All approved products, or one page of them (ordered by id) when page and size are given
+    public List<ProductDTO> getApprovedProductDTOs(Integer page, Integer size) {
+        if (page == null || size == null) {
+            return approvedLoads.execute("all", () -> toDTOs(productRepository.findByApproved(true)));
+        }
+        return approvedLoads.execute(page + ":" + size, () -> toDTOs(
+                productRepository.findByApproved(true, PageRequest.of(page, size, Sort.by("id")))));
+    }
+
+    // Approved products for browse pages, from the catalog snapshot once it is loaded (no Hibernate,
+    // and still answered while the database is down), otherwise from the database. category and sort
+    // are optional (id order); fields null means every ProductDTO property. Not @Transactional, so
+    // the snapshot path never needs a connection.
+    public List<?> getApprovedProducts(Integer page, Integer size, String category, CatalogSort sort,
+                                       FieldSelection fields) {
+        Set<String> selected = orAll(fields);
+        CatalogSnapshot snapshot = catalogSnapshotService.current();
+        if (snapshot != null) {
+            return embedOwners(snapshot.rows(snapshot.select(category, sort), page, size, selected), selected,
+                    snapshot.owners());
+        }
+        if (fields == null && category == null && sort == null) {
+            return getApprovedProductDTOs(page, size);
+        }
+        return readOnlyTransaction.execute(status ->
+                embedOwners(findApproved(page, size, category, sort, selected), selected));
+    }
+
+    // The same in the normalized shape
+    public NormalizedProductsDTO getApprovedProductsNormalized(Integer page, Integer size, String category,
+                                                               CatalogSort sort, FieldSelection fields) {
+        Set<String> selected = orAll(fields);
+        CatalogSnapshot snapshot = catalogSnapshotService.current();
+        if (snapshot != null) {
+            return normalize(snapshot.rows(snapshot.select(category, sort), page, size, selected), selected,
+                    snapshot.owners());
+        }
+        return readOnlyTransaction.execute(status ->
+                normalize(findApproved(page, size, category, sort, selected), selected));
+    }
+
+    // Sparse reads behind ?fields=: each product is a map of just the selected properties, and
+    // only the columns behind them are read
+    @Transactional(readOnly = true)
+    public Optional<Map<String, Object>> getProductFields(Long id, FieldSelection fields) {
+        return embedOwners(productDao.findFields(fields.fields(), BY_ID, id), fields.fields()).stream().findFirst();
+    }
+
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getAllProductFields(FieldSelection fields) {
+        return embedOwners(productDao.findFields(fields.fields(), ALL), fields.fields());
+    }
+
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getProductFieldsByOwner(Long ownerId, FieldSelection fields) {
+        return embedOwners(productDao.findFields(fields.fields(), BY_OWNER, ownerId), fields.fields());
+    }
+
+    // Up to limit approved products of a seller, other than excludeId
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getSellerProductFields(Long ownerId, Long excludeId, int limit, FieldSelection fields) {
+        return embedOwners(productDao.findFields(fields.fields(), "WHERE p.product_owner_id = ? AND p.approved = TRUE"
+                + " AND p.id <> ? ORDER BY p.id LIMIT ?", ownerId, excludeId, limit), fields.fields());
+    }
+
+    // Products for a list of ids (one IN query, sizes/colors/owners batch-fetched), keyed by id;
+    // unknown ids are absent
+    @Transactional(readOnly = true)
+    public Map<Long, ProductDTO> getProductDTOs(Collection<Long> ids) {
+        Map<Long, ProductDTO> products = new LinkedHashMap<>();
+        for (Product product : productRepository.findAllById(ids)) {
+            products.put(product.getId(), toDTO(product));
+        }
+        return products;
+    }
+
+    @Transactional(readOnly = true)
+    public Map<Long, Map<String, Object>> getProductFieldsByIds(Collection<Long> ids, FieldSelection fields) {
+        Map<Long, Map<String, Object>> rows = productDao.findFieldsByIds(fields.fields(), ids);
+        embedOwners(new ArrayList<>(rows.values()), fields.fields());
+        return rows;
+    }
+
+    // The same lists in the normalized shape; fields may be null for every ProductDTO property
+    @Transactional(readOnly = true)
+    public NormalizedProductsDTO getAllProductsNormalized(FieldSelection fields) {
+        Set<String> selected = orAll(fields);
+        return normalize(productDao.findFields(selected, ALL), selected);
+    }
+
+    @Transactional(readOnly = true)
+    public NormalizedProductsDTO getProductsByOwnerNormalized(Long ownerId, FieldSelection fields) {
+        Set<String> selected = orAll(fields);
+        return normalize(productDao.findFields(selected, BY_OWNER, ownerId), selected);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Product> getProductsByOwnerId(Long ownerId) {
+        return productDao.getProductsByOwnerId(ownerId);
+    }
+
+    // Attach the owner and save; returns null if the owner does not exist
+    @Transactional
+    public Product addProduct(Product product, Long productOwnerId) {
+        Optional<ProductOwner> owner = productOwnerRepository.findById(productOwnerId);
+        if (owner.isEmpty()) {
+            return null;
+        }
+        product.setProductOwner(owner.get());
+        return productDao.saveProduct(product);
+    }
+
+    // Delete a product with its sizes and colors; returns false if it does not exist
+    @Transactional
+    public boolean deleteProduct(Long id) {
+        if (!productRepository.existsById(id)) {
+            return false;
+        }
+        inventoryEngine.untrack(id);
+        productDao.deleteProduct(id);
+        return true;
+    }
+
+    private List<Map<String, Object>> findApproved(Integer page, Integer size, String category, CatalogSort sort,
+                                                   Set<String> fields) {
+        StringBuilder condition = new StringBuilder(APPROVED);
+        List<Object> args = new ArrayList<>();
+        if (category != null) {
+            condition.append(" AND LOWER(p.category) = LOWER(?)");
+            args.add(category.trim());
+        }
+        condition.append(" ORDER BY ").append(sort == null ? "p.id" : sort.orderBy());
+        if (page != null && size != null) {
+            condition.append(" LIMIT ? OFFSET ?");
+            args.add(size);
+            args.add((long) page * size);
+        }
+        return productDao.findFields(fields, condition.toString(), args.toArray());
+    }
+
+    private static Set<String> orAll(FieldSelection fields) {
+        return fields == null ? ProductDao.DTO_FIELDS : fields.fields();
+    }
+
+    // Turn the raw column values of a sparse read into what ProductDTO would show
+    private List<Map<String, Object>> embedOwners(List<Map<String, Object>> rows, Set<String> fields) {
+        return embedOwners(rows, fields, fields.contains("productOwner") ? loadOwners(rows) : Map.of());
+    }
+
+    // owners must hold every owner the rows reference
+    private List<Map<String, Object>> embedOwners(List<Map<String, Object>> rows, Set<String> fields,
+                                                  Map<Long, ProductOwnerDTO> owners) {
+        for (Map<String, Object> row : rows) {
+            convertImages(row, fields);
+            if (fields.contains("productOwner")) {
+                row.put("productOwner", owners.get((Long) row.get("productOwner")));
+            }
+        }
+        return rows;
+    }
+
+    // As embedOwners, but productOwner becomes an ownerId reference into one shared owners map
+    private NormalizedProductsDTO normalize(List<Map<String, Object>> rows, Set<String> fields) {
+        return normalize(rows, fields, fields.contains("productOwner") ? loadOwners(rows) : Map.of());
+    }
+
+    private NormalizedProductsDTO normalize(List<Map<String, Object>> rows, Set<String> fields,
+                                            Map<Long, ProductOwnerDTO> productOwners) {
+        Map<Long, ProductOwnerDTO> owners = new LinkedHashMap<>();
+        if (fields.contains("productOwner")) {
+            for (Map<String, Object> row : rows) {
+                Long ownerId = (Long) row.get("productOwner");
+                ProductOwnerDTO owner = ownerId == null ? null : productOwners.get(ownerId);
+                if (owner != null) {
+                    owners.putIfAbsent(ownerId, owner);
+                }
+            }
+        }
+        List<Map<String, Object>> products = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            convertImages(row, fields);
+            Map<String, Object> product = new LinkedHashMap<>();
+            row.forEach((field, value) -> product.put(field.equals("productOwner") ? "ownerId" : field, value));
+            products.add(product);
+        }
+        return new NormalizedProductsDTO(products, owners);
+    }
+
+    // All owners referenced by the rows, in one query, as their public view (never the password)
+    private Map<Long, ProductOwnerDTO> loadOwners(List<Map<String, Object>> rows) {
+        Set<Long> ownerIds = rows.stream()
+                                 .map(row -> (Long) row.get("productOwner"))
+                                 .filter(Objects::nonNull)
+                                 .collect(Collectors.toCollection(LinkedHashSet::new));
+        Map<Long, ProductOwnerDTO> owners = new LinkedHashMap<>();
+        for (ProductOwner owner : productOwnerRepository.findAllById(ownerIds)) {
+            owners.put(owner.getProductOwnerId(), ProductOwnerDTO.of(owner));
+        }
+        return owners;
+    }
+
+    private static void convertImages(Map<String, Object> row, Set<String> fields) {
+        if (fields.contains("productImageBase64")) {
+            row.put("productImageBase64", displayImage((Long) row.get("id"), (String) row.get("productImageBase64")));
+        }
+        if (fields.contains("thumbnail")) {
+            row.put("thumbnail", OrderSummaryDTO.thumbnail((String) row.get("thumbnail")));
+        }
+    }
+
+    public List<ProductDTO> toDTOs(List<Product> products) {
+        return products.stream().map(this::toDTO).collect(Collectors.toList());
+    }
+
+    // Convert Product -> ProductDTO
+    public ProductDTO toDTO(Product product) {
+        ProductDTO dto = new ProductDTO();
+        dto.setId(product.getId());
+        dto.setName(product.getName());
+        dto.setDescription(product.getDescription());
+        dto.setPrice(product.getPrice());
+        dto.setStock(product.getStock());
+        dto.setCategory(product.getCategory());
+        dto.setAvailable(product.isAvailable());
+        dto.setProductSizes(product.getProductSizes());
+        dto.setProductColors(product.getProductColors());
+        dto.setProductOwner(product.getProductOwner() != null ? ProductOwnerDTO.of(product.getProductOwner()) : null);
+        dto.setApproved(product.isApproved());
+
+        dto.setProductImageBase64(displayImage(product.getId(), product.getProductImage()));
+        return dto;
+    }
+
+    // The image as sent to clients: URLs as-is (sized for Unsplash), base64 as a data URL, or a placeholder
+    static String displayImage(Long productId, String imageData) {
+        if (imageData != null) {
+            System.out.println("Product " + productId + " has image data");
+            
+            // If it's a URL (including Unsplash URLs), use it directly
+            if (imageData.startsWith("http")) {
+                System.out.println("Processing URL: " + imageData);
+                // Add optimization parameters for Unsplash URLs if needed
+                if (imageData.contains("images.unsplash.com") && !imageData.contains("?")) {
+                    imageData += "?w=800&q=80&auto=format&fit=crop";
+                    System.out.println("Added optimization parameters: " + imageData);
+                }
+                return imageData;
+            } else {
+                // For any other string, assume it's a base64 string
+                System.out.println("Processing as base64 data");
+                if (!imageData.startsWith("data:")) {
+                    try {
+                        // Verify it's valid base64
+                        Base64.getDecoder().decode(imageData);
+                        System.out.println("Successfully processed base64 data");
+                        return "data:image/jpeg;base64," + imageData;
+                    } catch (IllegalArgumentException e) {
+                        System.out.println("Invalid base64 data, using placeholder");
+                        return NO_IMAGE;
+                    }
+                } else {
+                    // Already has data URL prefix
+                    return imageData;
+                }
+            }
+        } else {
+            System.out.println("Product " + productId + " has no image data");
+            return NO_IMAGE;
+        }
+    }
+}
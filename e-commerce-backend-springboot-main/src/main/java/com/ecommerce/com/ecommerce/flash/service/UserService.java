@@ -0,0 +1,183 @@
+package com.ecommerce.com.ecommerce.flash.service;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ecommerce.com.ecommerce.flash.dao.UserDao;
+import com.ecommerce.com.ecommerce.flash.entity.Principal;
+import com.ecommerce.com.ecommerce.flash.entity.User;
+import com.ecommerce.com.ecommerce.flash.repository.UserRepository;
+import com.ecommerce.com.ecommerce.flash.security.PrincipalService;
+import com.ecommerce.com.ecommerce.flash.security.RegisteredEmailFilter;
+import com.ecommerce.com.ecommerce.flash.util.TtlCache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+// User account use cases, each in a single transaction (one connection checkout and one commit).
+// Profiles are read through a cache keyed by both id and normalized email; writes evict them.
+// Reads return detached copies without the password, so cached profiles are never shared or changed.
+@Service
+public class UserService {
+
+    @Autowired
+    private UserDao userDao;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PrincipalService principalService;
+
+    @Autowired
+    private RegisteredEmailFilter registeredEmailFilter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${flash.users.cache.max-entries:10000}")
+    private int cacheMaxEntries;
+
+    @Value("${flash.users.cache.ttl-ms:300000}")
+    private long cacheTtlMs;
+
+    // "id:<id>" and "email:<normalized email>" both map to the same profile
+    private TtlCache<String, User> profiles;
+    // Bumped by every eviction; a read only caches what it loaded if no eviction happened meanwhile
+    private final AtomicLong generation = new AtomicLong();
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        profiles = new TtlCache<>(cacheMaxEntries, cacheTtlMs);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        Gauge.builder("flash.cache.hit.ratio", profiles, TtlCache::hitRatio)
+             .tag("cache", "userProfile")
+             .register(meterRegistry);
+        Gauge.builder("flash.cache.size", profiles, TtlCache::size)
+             .tag("cache", "userProfile")
+             .register(meterRegistry);
+        FunctionCounter.builder("flash.cache.hits", profiles, TtlCache::hits)
+                       .tag("cache", "userProfile")
+                       .register(meterRegistry);
+        FunctionCounter.builder("flash.cache.misses", profiles, TtlCache::misses)
+                       .tag("cache", "userProfile")
+                       .register(meterRegistry);
+    }
+
+    public Optional<User> getUserByEmail(String email) {
+        String key = emailKey(email);
+        User cached = profiles.get(key);
+        if (cached != null) {
+            return Optional.of(profileOf(cached));
+        }
+        long readGeneration = generation.get();
+        return userDao.getUserByEmail(email).map(user -> cache(user, readGeneration));
+    }
+
+    public Optional<User> getUserById(Long id) {
+        User cached = profiles.get(idKey(id));
+        if (cached != null) {
+            return Optional.of(profileOf(cached));
+        }
+        long readGeneration = generation.get();
+        return userRepository.findById(id).map(user -> cache(user, readGeneration));
+    }
+
+    // Returns null if the email is already registered. Emails the filter has never seen skip the
+    // lookup; the unique email column still rejects a concurrent registration that gets past the check.
+    // The password is hashed before the transaction opens, and only the hash is stored.
+    // Throws RejectedExecutionException when the hashing pool is saturated.
+    public User registerUser(User user) {
+        String passwordHash = principalService.hashPassword(user.getPassword());
+        user.setPassword(passwordHash);
+        return transactionTemplate.execute(status -> {
+            if (registeredEmailFilter.mightBeRegistered(user.getEmail())
+                    && userDao.getUserByEmail(user.getEmail()).isPresent()) {
+                return null;
+            }
+            User saved = userDao.saveUser(user);
+            principalService.register(Principal.AccountType.USER, saved.getId(), saved.getEmail(), passwordHash);
+            evict(saved);
+            return saved;
+        });
+    }
+
+    // Copy the editable profile fields; the change is flushed on commit
+    @Transactional
+    public Optional<User> updateProfile(Long id, User changes) {
+        Optional<User> existing = userRepository.findById(id);
+        existing.ifPresent(user -> {
+            user.setName(changes.getName());
+            user.setPhoneNumber(changes.getPhoneNumber());
+            user.setAddress(changes.getAddress());
+            evict(user);
+        });
+        return existing;
+    }
+
+    // Evict now and again after commit. Each eviction bumps the generation, so a read that loaded
+    // the old row before the commit finds the generation changed and does not cache it.
+    private void evict(User user) {
+        String idKey = idKey(user.getId());
+        String emailKey = emailKey(user.getEmail());
+        evict(idKey, emailKey);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(idKey, emailKey);
+                }
+            });
+        }
+    }
+
+    private void evict(String idKey, String emailKey) {
+        synchronized (profiles) {
+            generation.incrementAndGet();
+            profiles.remove(idKey);
+            profiles.remove(emailKey);
+        }
+    }
+
+    // Cache a copy of a profile loaded at readGeneration (unless an eviction has happened since) and
+    // return another copy to the caller
+    private User cache(User user, long readGeneration) {
+        User profile = profileOf(user);
+        synchronized (profiles) {
+            if (generation.get() == readGeneration) {
+                profiles.put(idKey(profile.getId()), profile);
+                profiles.put(emailKey(profile.getEmail()), profile);
+            }
+        }
+        return profileOf(profile);
+    }
+
+    // Detached copy of the profile fields; the password never leaves the entity
+    private static User profileOf(User user) {
+        return new User(user.getId(), user.getName(), user.getEmail(), null, user.getPhoneNumber(),
+                        user.getAddress(), user.isAgreement());
+    }
+
+    private static String idKey(Long id) {
+        return "id:" + id;
+    }
+
+    private static String emailKey(String email) {
+        return "email:" + PrincipalService.normalizeEmail(email);
+    }
+}
@@ -0,0 +1,171 @@
+package com.ecommerce.com.ecommerce.flash.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Immutable radix trie for type-ahead. Keys share nodes by common prefix and single-child chains are
+// collapsed into one edge label. Every node stores the k heaviest values below it, so a lookup is one
+// walk down the prefix with no scan of the subtree. Several keys may carry the same value (e.g. each
+// word of a product name); a value then appears once per node.
+public class CompletionTrie<V> {
+
+    public static class Entry<V> {
+        private final String key;
+        private final V value;
+        private final long weight;
+
+        public Entry(String key, V value, long weight) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    private static class Node {
+        // Edge labels and children, sorted by the labels' first character
+        private char[] firsts;
+        private String[] labels;
+        private Node[] children;
+        private Object[] top;
+    }
+
+    private final Node root;
+    private final int size;
+
+    private CompletionTrie(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    // k is the most completions a lookup can return
+    public static <V> CompletionTrie<V> build(List<Entry<V>> entries, int k) {
+        List<Entry<V>> sorted = new ArrayList<>(entries);
+        sorted.sort(Comparator.comparing(entry -> entry.key));
+        Comparator<Entry<V>> heaviestFirst = Comparator.<Entry<V>>comparingLong(entry -> -entry.weight)
+                                                       .thenComparing(entry -> entry.key);
+        return new CompletionTrie<>(build(sorted, 0, sorted.size(), 0, k, heaviestFirst).node, sorted.size());
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Up to limit values whose key starts with prefix, heaviest first
+    @SuppressWarnings("unchecked")
+    public List<V> complete(String prefix, int limit) {
+        Node node = root;
+        int at = 0;
+        while (at < prefix.length()) {
+            int child = indexOf(node, prefix.charAt(at));
+            if (child < 0) {
+                return List.of();
+            }
+            String label = node.labels[child];
+            int remaining = prefix.length() - at;
+            if (remaining < label.length()) {
+                if (!label.startsWith(prefix.substring(at))) {
+                    return List.of();
+                }
+            } else if (!prefix.startsWith(label, at)) {
+                return List.of();
+            }
+            node = node.children[child];
+            at += label.length();
+        }
+        List<V> values = new ArrayList<>(Math.min(limit, node.top.length));
+        for (int i = 0; i < node.top.length && i < limit; i++) {
+            values.add((V) node.top[i]);
+        }
+        return values;
+    }
+
+    private static int indexOf(Node node, char first) {
+        int low = 0;
+        int high = node.firsts.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (node.firsts[mid] < first) {
+                low = mid + 1;
+            } else if (node.firsts[mid] > first) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    // A built node with its best entries, which the parent merges into its own
+    private static class Built<V> {
+        private final Node node;
+        private final List<Entry<V>> best;
+
+        private Built(Node node, List<Entry<V>> best) {
+            this.node = node;
+            this.best = best;
+        }
+    }
+
+    // Node for the sorted entries [from, to), which all share their first depth characters
+    private static <V> Built<V> build(List<Entry<V>> sorted, int from, int to, int depth, int k,
+                                      Comparator<Entry<V>> heaviestFirst) {
+        List<Entry<V>> candidates = new ArrayList<>();
+        int start = from;
+        while (start < to && sorted.get(start).key.length() == depth) {
+            candidates.add(sorted.get(start));
+            start++;
+        }
+        List<String> labels = new ArrayList<>();
+        List<Node> children = new ArrayList<>();
+        while (start < to) {
+            char first = sorted.get(start).key.charAt(depth);
+            int end = start + 1;
+            while (end < to && sorted.get(end).key.charAt(depth) == first) {
+                end++;
+            }
+            // Sorted, so the first and last keys of the group share the longest common prefix of all
+            int common = commonPrefix(sorted.get(start).key, sorted.get(end - 1).key, depth);
+            Built<V> child = build(sorted, start, end, common, k, heaviestFirst);
+            labels.add(sorted.get(start).key.substring(depth, common));
+            children.add(child.node);
+            candidates.addAll(child.best);
+            start = end;
+        }
+        candidates.sort(heaviestFirst);
+        List<Entry<V>> best = new ArrayList<>(Math.min(k, candidates.size()));
+        Map<Object, Boolean> seen = new IdentityHashMap<>();
+        for (Entry<V> candidate : candidates) {
+            if (best.size() == k) {
+                break;
+            }
+            if (seen.put(candidate.value, Boolean.TRUE) == null) {
+                best.add(candidate);
+            }
+        }
+        Node node = new Node();
+        node.firsts = new char[labels.size()];
+        for (int i = 0; i < labels.size(); i++) {
+            node.firsts[i] = labels.get(i).charAt(0);
+        }
+        node.labels = labels.toArray(new String[0]);
+        node.children = children.toArray(new Node[0]);
+        node.top = new Object[best.size()];
+        for (int i = 0; i < best.size(); i++) {
+            node.top[i] = best.get(i).value;
+        }
+        return new Built<>(node, Collections.unmodifiableList(best));
+    }
+
+    private static int commonPrefix(String a, String b, int from) {
+        int at = from;
+        int end = Math.min(a.length(), b.length());
+        while (at < end && a.charAt(at) == b.charAt(at)) {
+            at++;
+        }
+        return at;
+    }
+}
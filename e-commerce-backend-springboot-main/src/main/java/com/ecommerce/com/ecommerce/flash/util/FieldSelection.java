@@ -0,0 +1,98 @@
+package com.ecommerce.com.ecommerce.flash.util;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+// A parsed ?fields= parameter: the JSON properties a client wants back, in the order given.
+// A dotted name (product.name) keeps a single property of a nested object.
+public class FieldSelection {
+
+    private final Set<String> fields;
+
+    private FieldSelection(Set<String> fields) {
+        this.fields = Collections.unmodifiableSet(fields);
+    }
+
+    // null when the parameter is absent (everything is returned). allowed may be null to accept any name;
+    // otherwise an unknown name throws IllegalArgumentException.
+    public static FieldSelection parse(String param, Collection<String> allowed) {
+        if (param == null) {
+            return null;
+        }
+        Set<String> fields = new LinkedHashSet<>();
+        for (String part : param.split(",")) {
+            String field = part.trim();
+            if (field.isEmpty()) {
+                continue;
+            }
+            if (allowed != null && !allowed.contains(field)) {
+                throw new IllegalArgumentException("Unknown field: " + field);
+            }
+            fields.add(field);
+        }
+        if (fields.isEmpty()) {
+            throw new IllegalArgumentException("fields must name at least one field");
+        }
+        return new FieldSelection(fields);
+    }
+
+    public Set<String> fields() {
+        return fields;
+    }
+
+    public boolean includes(String field) {
+        return fields.contains(field);
+    }
+
+    // Canonical form, used in cache keys
+    public String key() {
+        return String.join(",", fields);
+    }
+
+    // Serialize value (an object or a list of objects) and keep only the selected properties
+    public JsonNode apply(ObjectMapper objectMapper, Object value) {
+        JsonNode tree = objectMapper.valueToTree(value);
+        if (tree.isArray()) {
+            ArrayNode selected = objectMapper.createArrayNode();
+            for (JsonNode element : tree) {
+                selected.add(element.isObject() ? select(objectMapper, element) : element);
+            }
+            return selected;
+        }
+        return tree.isObject() ? select(objectMapper, tree) : tree;
+    }
+
+    private ObjectNode select(ObjectMapper objectMapper, JsonNode source) {
+        ObjectNode target = objectMapper.createObjectNode();
+        for (String field : fields) {
+            copy(source, target, field);
+        }
+        return target;
+    }
+
+    private static void copy(JsonNode source, ObjectNode target, String path) {
+        int dot = path.indexOf('.');
+        if (dot < 0) {
+            JsonNode value = source.get(path);
+            if (value != null) {
+                target.set(path, value);
+            }
+            return;
+        }
+        String head = path.substring(0, dot);
+        JsonNode child = source.get(head);
+        if (child == null || !child.isObject()) {
+            return;
+        }
+        JsonNode existing = target.get(head);
+        ObjectNode nested = existing instanceof ObjectNode ? (ObjectNode) existing : target.putObject(head);
+        copy(child, nested, path.substring(dot + 1));
+    }
+}
@@ -0,0 +1,12 @@
+-- Login index over users, product owners and admins (one row per account).
+-- Password hashes are computed by the application; accounts missing here are
+-- added at startup by PrincipalService.
+CREATE TABLE IF NOT EXISTS principals (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    email VARCHAR(255) NOT NULL,
+    account_type VARCHAR(20) NOT NULL,
+    account_id BIGINT NOT NULL,
+    password_hash VARCHAR(200) NOT NULL,
+    UNIQUE KEY uk_principals_email_type (email, account_type),
+    UNIQUE KEY uk_principals_account (account_type, account_id)
+);
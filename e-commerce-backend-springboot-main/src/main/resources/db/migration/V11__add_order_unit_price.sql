@@ -0,0 +1,7 @@
+-- Product price at the time an order was placed; revenue counters and rollups add and
+-- subtract an order at this price, so later price changes cannot make them drift.
+-- Existing orders take the product's current price.
+ALTER TABLE orders ADD COLUMN unit_price DECIMAL(10,2);
+ALTER TABLE orders_archive ADD COLUMN unit_price DECIMAL(10,2);
+UPDATE orders SET unit_price = (SELECT p.price FROM products p WHERE p.id = orders.product_id);
+UPDATE orders_archive SET unit_price = (SELECT p.price FROM products p WHERE p.id = orders_archive.product_id);
@@ -0,0 +1,2 @@
+-- Flag products whose stock is served from the in-memory inventory engine
+ALTER TABLE products ADD COLUMN flash_sale BOOLEAN NOT NULL DEFAULT FALSE;
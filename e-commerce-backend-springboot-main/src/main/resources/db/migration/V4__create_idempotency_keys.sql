@@ -0,0 +1,13 @@
+-- Stored responses for requests sent with an Idempotency-Key header
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    scope VARCHAR(64) NOT NULL,
+    idempotency_key VARCHAR(255) NOT NULL,
+    request_hash VARCHAR(64),
+    status_code INT NOT NULL,
+    content_type VARCHAR(100),
+    response_body LONGTEXT,
+    created_at DATETIME(6) NOT NULL,
+    UNIQUE KEY uk_idempotency_scope_key (scope, idempotency_key),
+    INDEX idx_idempotency_created_at (created_at)
+);
@@ -0,0 +1,32 @@
+-- Pre-aggregated seller dashboard counters, adjusted as orders change
+CREATE TABLE IF NOT EXISTS seller_order_counters (
+    product_owner_id BIGINT NOT NULL,
+    status VARCHAR(50) NOT NULL,
+    order_count BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (product_owner_id, status)
+);
+
+CREATE TABLE IF NOT EXISTS seller_daily_sales (
+    product_owner_id BIGINT NOT NULL,
+    sales_date DATE NOT NULL,
+    units BIGINT NOT NULL DEFAULT 0,
+    revenue DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (product_owner_id, sales_date)
+);
+
+-- Seller order pages walk orders by product and date
+CREATE INDEX idx_orders_product_date ON orders (product_id, order_date);
+CREATE INDEX idx_orders_user ON orders (user_id);
+
+-- Build the counters from existing orders
+INSERT INTO seller_order_counters (product_owner_id, status, order_count)
+SELECT p.product_owner_id, o.status, COUNT(*)
+FROM orders o JOIN products p ON p.id = o.product_id
+WHERE p.product_owner_id IS NOT NULL AND o.status <> 'In Cart'
+GROUP BY p.product_owner_id, o.status;
+
+INSERT INTO seller_daily_sales (product_owner_id, sales_date, units, revenue)
+SELECT p.product_owner_id, DATE(o.order_date), SUM(o.quantity), SUM(o.quantity * p.price)
+FROM orders o JOIN products p ON p.id = o.product_id
+WHERE p.product_owner_id IS NOT NULL AND o.status NOT IN ('In Cart', 'REJECTED', 'CANCELLED')
+GROUP BY p.product_owner_id, DATE(o.order_date);
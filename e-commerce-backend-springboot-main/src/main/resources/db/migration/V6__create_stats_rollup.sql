@@ -0,0 +1,15 @@
+-- When each product was listed, for new-product analytics
+ALTER TABLE products ADD COLUMN created_at DATETIME DEFAULT CURRENT_TIMESTAMP;
+
+-- Hourly and daily admin analytics buckets, adjusted as orders and products change.
+-- Filled from existing data by the application on first start (or POST /api/admin/stats/backfill).
+CREATE TABLE IF NOT EXISTS stats_rollup (
+    granularity VARCHAR(8) NOT NULL,
+    bucket_start DATETIME(6) NOT NULL,
+    dimension VARCHAR(20) NOT NULL,
+    dimension_key VARCHAR(100) NOT NULL,
+    item_count BIGINT NOT NULL DEFAULT 0,
+    units BIGINT NOT NULL DEFAULT 0,
+    revenue DECIMAL(16, 2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (granularity, bucket_start, dimension, dimension_key)
+);
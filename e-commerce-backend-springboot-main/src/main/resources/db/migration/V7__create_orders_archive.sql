@@ -0,0 +1,27 @@
+-- Old orders in a final status, moved out of orders by the archival job
+CREATE TABLE IF NOT EXISTS orders_archive (
+    id BIGINT PRIMARY KEY,
+    product_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    status VARCHAR(255) NOT NULL,
+    order_date DATETIME(6) NOT NULL,
+    quantity INT NOT NULL,
+    shipping_first_name VARCHAR(255),
+    shipping_last_name VARCHAR(255),
+    shipping_address VARCHAR(255),
+    shipping_city VARCHAR(255),
+    shipping_state VARCHAR(255),
+    shipping_zip_code VARCHAR(255),
+    shipping_country VARCHAR(255),
+    shipping_phone VARCHAR(255),
+    payment_method VARCHAR(255),
+    card_last_four VARCHAR(255),
+    archived_at DATETIME(6) NOT NULL,
+    INDEX idx_orders_archive_product_date (product_id, order_date),
+    INDEX idx_orders_archive_user (user_id),
+    FOREIGN KEY (product_id) REFERENCES products(id),
+    FOREIGN KEY (user_id) REFERENCES `user`(id)
+);
+
+-- Finding archival candidates
+CREATE INDEX idx_orders_status_date ON orders (status, order_date);
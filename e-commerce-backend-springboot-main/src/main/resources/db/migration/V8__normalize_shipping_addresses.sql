@@ -0,0 +1,66 @@
+-- Distinct shipping addresses, shared by every order shipped to the same address.
+-- content_hash is SHA-256 over the trimmed fields joined with CHAR(31), NULL treated as ''
+-- (the same computation as ShippingAddressDao.contentHash).
+CREATE TABLE IF NOT EXISTS shipping_addresses (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    content_hash CHAR(64) NOT NULL,
+    first_name VARCHAR(255),
+    last_name VARCHAR(255),
+    address VARCHAR(255),
+    city VARCHAR(255),
+    state VARCHAR(255),
+    zip_code VARCHAR(255),
+    country VARCHAR(255),
+    phone VARCHAR(255),
+    created_at DATETIME(6) NOT NULL,
+    UNIQUE KEY uk_shipping_addresses_hash (content_hash)
+);
+
+INSERT IGNORE INTO shipping_addresses
+    (content_hash, first_name, last_name, address, city, state, zip_code, country, phone, created_at)
+SELECT SHA2(CONCAT_WS(CHAR(31 USING utf8mb4), f, l, a, c, s, z, co, ph), 256),
+       NULLIF(f, ''), NULLIF(l, ''), NULLIF(a, ''), NULLIF(c, ''), NULLIF(s, ''), NULLIF(z, ''),
+       NULLIF(co, ''), NULLIF(ph, ''), NOW(6)
+FROM (
+    SELECT COALESCE(TRIM(shipping_first_name), '') f, COALESCE(TRIM(shipping_last_name), '') l,
+           COALESCE(TRIM(shipping_address), '') a, COALESCE(TRIM(shipping_city), '') c,
+           COALESCE(TRIM(shipping_state), '') s, COALESCE(TRIM(shipping_zip_code), '') z,
+           COALESCE(TRIM(shipping_country), '') co, COALESCE(TRIM(shipping_phone), '') ph
+    FROM orders
+    UNION
+    SELECT COALESCE(TRIM(shipping_first_name), ''), COALESCE(TRIM(shipping_last_name), ''),
+           COALESCE(TRIM(shipping_address), ''), COALESCE(TRIM(shipping_city), ''),
+           COALESCE(TRIM(shipping_state), ''), COALESCE(TRIM(shipping_zip_code), ''),
+           COALESCE(TRIM(shipping_country), ''), COALESCE(TRIM(shipping_phone), '')
+    FROM orders_archive
+) addresses
+WHERE CONCAT(f, l, a, c, s, z, co, ph) <> '';
+
+-- Point orders at their address, then drop the copied columns
+ALTER TABLE orders ADD COLUMN shipping_address_id BIGINT NULL,
+    ADD CONSTRAINT fk_orders_shipping_address FOREIGN KEY (shipping_address_id) REFERENCES shipping_addresses(id);
+ALTER TABLE orders_archive ADD COLUMN shipping_address_id BIGINT NULL,
+    ADD CONSTRAINT fk_orders_archive_shipping_address FOREIGN KEY (shipping_address_id) REFERENCES shipping_addresses(id);
+
+UPDATE orders o JOIN shipping_addresses sa ON sa.content_hash = SHA2(CONCAT_WS(CHAR(31 USING utf8mb4),
+        COALESCE(TRIM(o.shipping_first_name), ''), COALESCE(TRIM(o.shipping_last_name), ''),
+        COALESCE(TRIM(o.shipping_address), ''), COALESCE(TRIM(o.shipping_city), ''),
+        COALESCE(TRIM(o.shipping_state), ''), COALESCE(TRIM(o.shipping_zip_code), ''),
+        COALESCE(TRIM(o.shipping_country), ''), COALESCE(TRIM(o.shipping_phone), '')), 256)
+SET o.shipping_address_id = sa.id;
+
+UPDATE orders_archive o JOIN shipping_addresses sa ON sa.content_hash = SHA2(CONCAT_WS(CHAR(31 USING utf8mb4),
+        COALESCE(TRIM(o.shipping_first_name), ''), COALESCE(TRIM(o.shipping_last_name), ''),
+        COALESCE(TRIM(o.shipping_address), ''), COALESCE(TRIM(o.shipping_city), ''),
+        COALESCE(TRIM(o.shipping_state), ''), COALESCE(TRIM(o.shipping_zip_code), ''),
+        COALESCE(TRIM(o.shipping_country), ''), COALESCE(TRIM(o.shipping_phone), '')), 256)
+SET o.shipping_address_id = sa.id;
+
+ALTER TABLE orders
+    DROP COLUMN shipping_first_name, DROP COLUMN shipping_last_name, DROP COLUMN shipping_address,
+    DROP COLUMN shipping_city, DROP COLUMN shipping_state, DROP COLUMN shipping_zip_code,
+    DROP COLUMN shipping_country, DROP COLUMN shipping_phone;
+ALTER TABLE orders_archive
+    DROP COLUMN shipping_first_name, DROP COLUMN shipping_last_name, DROP COLUMN shipping_address,
+    DROP COLUMN shipping_city, DROP COLUMN shipping_state, DROP COLUMN shipping_zip_code,
+    DROP COLUMN shipping_country, DROP COLUMN shipping_phone;
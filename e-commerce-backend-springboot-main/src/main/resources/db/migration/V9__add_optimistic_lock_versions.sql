@@ -0,0 +1,3 @@
+-- Optimistic lock versions for targeted order and product updates
+ALTER TABLE orders ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE products ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
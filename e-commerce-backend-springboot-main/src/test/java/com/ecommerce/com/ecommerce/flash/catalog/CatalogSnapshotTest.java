@@ -0,0 +1,139 @@
+package com.ecommerce.com.ecommerce.flash.catalog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class CatalogSnapshotTest {
+
+	@Test
+	void filtersByCategoryAndSortsByColumn() {
+		CatalogSnapshot snapshot = CatalogSnapshot.build(List.of(
+				row(3L, "Mouse", 19.99, "Accessories", List.of("S")),
+				row(1L, "Laptop", 1499.5, "Electronics", List.of("13", "15")),
+				row(2L, "Monitor", 249.0, "electronics", List.of()),
+				row(4L, "Cable", 249.0, null, List.of("S"))), Map.of());
+
+		assertEquals(List.of(1L, 2L, 3L, 4L), ids(snapshot, snapshot.select(null, null)));
+		assertEquals(List.of(1L, 2L), ids(snapshot, snapshot.select("Electronics", null)));
+		assertEquals(List.of(3L, 2L, 4L, 1L), ids(snapshot, snapshot.select(null, CatalogSort.parse("price"))));
+		assertEquals(List.of(1L, 4L, 2L, 3L), ids(snapshot, snapshot.select(null, CatalogSort.parse("-price"))));
+		assertEquals(List.of(4L, 1L, 2L, 3L), ids(snapshot, snapshot.select(null, CatalogSort.parse("name"))));
+
+		Map<String, Object> laptop = snapshot.rows(snapshot.select(null, null), 0, 1, CatalogSnapshot.SNAPSHOT_FIELDS).get(0);
+		assertEquals("Laptop", laptop.get("name"));
+		assertEquals(1499.5, laptop.get("price"));
+		assertEquals(List.of("13", "15"), laptop.get("productSizes"));
+		assertEquals("Electronics", laptop.get("category"));
+	}
+
+	@Test
+	void patchingReplacesChangedRowsAndLeavesTheOriginalAlone() {
+		CatalogSnapshot original = CatalogSnapshot.build(List.of(
+				row(1L, "Laptop", 1499.5, "Electronics", List.of()),
+				row(2L, "Monitor", 249.0, "Electronics", List.of())), Map.of());
+
+		CatalogSnapshot patched = original.patched(List.of(1L, 2L, 5L),
+				List.of(row(2L, "Monitor 4K", 299.0, "Electronics", List.of()), row(5L, "Dock", 89.0, "Accessories", List.of())),
+				Map.of());
+
+		assertEquals(List.of(1L, 2L), ids(original, original.select(null, null)));
+		assertEquals(List.of(2L, 5L), ids(patched, patched.select(null, null)));
+		assertEquals("Monitor 4K", patched.rows(patched.select(null, null), 0, 1, Set.of("name")).get(0).get("name"));
+	}
+
+	@Test
+	void patchingKeepsEverySortOrderAndUnchangedText() {
+		List<Map<String, Object>> rows = new ArrayList<>();
+		for (long id = 1; id <= 50; id++) {
+			rows.add(row(id, "Item " + (char) ('a' + id % 26) + id, (id * 37) % 11, id % 2 == 0 ? "Even" : "Odd", List.of("S" + id % 3)));
+		}
+		CatalogSnapshot original = CatalogSnapshot.build(rows, Map.of());
+
+		List<Map<String, Object>> fresh = List.of(
+				row(7L, "aaa first", 1000.0, "Odd", List.of("XL")),
+				row(20L, "Item b20", 0.5, "New", List.of()),
+				row(51L, "zzz last", 5.0, "Even", List.of("S1")),
+				row(0L, "Item m0", 5.0, "Odd", List.of()));
+		CatalogSnapshot patched = original.patched(List.of(3L, 7L, 20L, 40L, 51L, 0L), fresh, Map.of());
+
+		// The same as building from scratch with the patched rows
+		List<Map<String, Object>> expectedRows = new ArrayList<>(rows);
+		expectedRows.removeIf(row -> List.of(3L, 7L, 20L, 40L).contains(row.get("id")));
+		expectedRows.addAll(fresh);
+		CatalogSnapshot expected = CatalogSnapshot.build(expectedRows, Map.of());
+		for (String sort : List.of("price", "-price", "stock", "name", "-name")) {
+			assertEquals(ids(expected, expected.select(null, CatalogSort.parse(sort))),
+					ids(patched, patched.select(null, CatalogSort.parse(sort))), sort);
+		}
+		assertEquals(ids(expected, expected.select("odd", CatalogSort.parse("name"))),
+				ids(patched, patched.select("odd", CatalogSort.parse("name"))));
+		assertEquals(ids(expected, expected.select("new", null)), ids(patched, patched.select("new", null)));
+		assertEquals(expected.rows(expected.select(null, null), null, null, CatalogSnapshot.SNAPSHOT_FIELDS),
+				patched.rows(patched.select(null, null), null, null, CatalogSnapshot.SNAPSHOT_FIELDS));
+	}
+
+	@Test
+	void compactionKeepsTheRows() {
+		CatalogSnapshot snapshot = CatalogSnapshot.build(List.of(row(1L, "Laptop", 1499.5, "Electronics", List.of("13"))),
+				Map.of());
+		for (int i = 0; i < 40; i++) {
+			snapshot = snapshot.patched(List.of(2L), List.of(row(2L, "Monitor " + i, 249.0 + i, "Electronics", List.of())),
+					Map.of());
+		}
+		assertTrue(snapshot.needsCompaction());
+
+		CatalogSnapshot compacted = snapshot.compacted();
+		assertFalse(compacted.needsCompaction());
+		assertEquals(snapshot.rows(snapshot.select(null, CatalogSort.parse("name")), null, null, CatalogSnapshot.SNAPSHOT_FIELDS),
+				compacted.rows(compacted.select(null, CatalogSort.parse("name")), null, null, CatalogSnapshot.SNAPSHOT_FIELDS));
+		assertEquals("Monitor 39", compacted.rows(compacted.select(null, null), 1, 1, Set.of("name")).get(0).get("name"));
+	}
+
+	@Test
+	void isCurrentComparesVersionAndStock() {
+		Map<String, Object> versioned = row(1L, "Laptop", 1499.5, "Electronics", List.of());
+		versioned.put(CatalogSnapshot.VERSION, 4L);
+		CatalogSnapshot snapshot = CatalogSnapshot.build(List.of(versioned, row(2L, "Monitor", 249.0, null, List.of())),
+				Map.of());
+
+		assertTrue(snapshot.isCurrent(1L, 4L, 10));
+		assertFalse(snapshot.isCurrent(1L, 5L, 10));
+		assertFalse(snapshot.isCurrent(1L, 4L, 9));
+		// Rows loaded without a version are never current, nor are products the snapshot lacks
+		assertFalse(snapshot.isCurrent(2L, 0L, 10));
+		assertFalse(snapshot.isCurrent(3L, 0L, 10));
+	}
+
+	private static Map<String, Object> row(Long id, String name, double price, String category, List<String> sizes) {
+		Map<String, Object> row = new LinkedHashMap<>();
+		row.put("id", id);
+		row.put("name", name);
+		row.put("description", name + " description");
+		row.put("price", price);
+		row.put("stock", 10);
+		row.put("category", category);
+		row.put("available", true);
+		row.put("productSizes", new ArrayList<>(sizes));
+		row.put("productColors", new ArrayList<>());
+		row.put("productImageBase64", null);
+		row.put("productOwner", null);
+		return row;
+	}
+
+	private static List<Long> ids(CatalogSnapshot snapshot, int[] selected) {
+		List<Long> ids = new ArrayList<>();
+		for (Map<String, Object> row : snapshot.rows(selected, null, null, Set.of("id"))) {
+			ids.add((Long) row.get("id"));
+		}
+		return ids;
+	}
+}
@@ -0,0 +1,56 @@
+package com.ecommerce.com.ecommerce.flash.catalog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import com.ecommerce.com.ecommerce.flash.catalog.EncodedResponse.Coding;
+
+class EncodedResponseTest {
+
+	private final EncodedResponse response = new EncodedResponse(null, MediaType.APPLICATION_JSON,
+			"[{\"id\":1,\"name\":\"Shirt\"}]".getBytes(StandardCharsets.UTF_8));
+
+	@Test
+	void tagsEachCodingDifferently() {
+		String identity = response.etag(Coding.IDENTITY);
+		String gzip = response.etag(Coding.GZIP);
+		String deflate = response.etag(Coding.DEFLATE);
+		assertNotEquals(identity, gzip);
+		assertNotEquals(identity, deflate);
+		assertNotEquals(gzip, deflate);
+		assertEquals(identity.substring(0, identity.length() - 1) + "-gzip\"", gzip);
+	}
+
+	@Test
+	void matchesOnlyTheSelectedCoding() {
+		String gzip = response.etag(Coding.GZIP);
+		assertTrue(response.matches(gzip, Coding.GZIP));
+		assertFalse(response.matches(gzip, Coding.IDENTITY));
+		assertFalse(response.matches(response.etag(Coding.IDENTITY), Coding.DEFLATE));
+	}
+
+	@Test
+	void parsesWildcardListsAndWeakTags() {
+		String gzip = response.etag(Coding.GZIP);
+		assertTrue(response.matches("*", Coding.IDENTITY));
+		assertTrue(response.matches(" * ", Coding.GZIP));
+		assertTrue(response.matches("\"other\", " + gzip, Coding.GZIP));
+		assertTrue(response.matches("\"a\",W/" + gzip + " ,\"b\"", Coding.GZIP));
+		assertTrue(response.matches("W/" + response.etag(Coding.IDENTITY), Coding.IDENTITY));
+
+		assertFalse(response.matches(null, Coding.IDENTITY));
+		assertFalse(response.matches("", Coding.IDENTITY));
+		assertFalse(response.matches("\"other\", W/\"else\"", Coding.GZIP));
+		// A tag that merely starts with ours is a different tag
+		assertFalse(response.matches(gzip.substring(0, gzip.length() - 1) + "x\"", Coding.GZIP));
+		assertFalse(response.matches(gzip.substring(1, gzip.length() - 1), Coding.GZIP));
+	}
+
+}
@@ -0,0 +1,57 @@
+package com.ecommerce.com.ecommerce.flash.inventory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class StripedStockCounterTest {
+
+	@Test
+	void acquiresAcrossStripesAndRejectsWhenShort() {
+		StripedStockCounter counter = new StripedStockCounter(10, 4);
+		assertEquals(4, counter.stripes());
+		assertTrue(counter.tryAcquire(7));
+		assertFalse(counter.tryAcquire(4));
+		assertEquals(3, counter.available());
+		counter.release(1);
+		assertTrue(counter.tryAcquire(4));
+		assertEquals(0, counter.available());
+	}
+
+	@Test
+	void neverOversellsUnderConcurrentCheckouts() throws InterruptedException {
+		int stock = 1000;
+		StripedStockCounter counter = new StripedStockCounter(stock, 8);
+		AtomicInteger sold = new AtomicInteger();
+		ExecutorService pool = Executors.newFixedThreadPool(16);
+		CountDownLatch start = new CountDownLatch(1);
+		for (int i = 0; i < 5000; i++) {
+			int units = 1 + (i % 3);
+			pool.execute(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				if (counter.tryAcquire(units)) {
+					sold.addAndGet(units);
+				}
+			});
+		}
+		start.countDown();
+		pool.shutdown();
+		assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+		assertEquals(stock, sold.get() + counter.available());
+		assertTrue(sold.get() <= stock);
+	}
+
+}
@@ -0,0 +1,95 @@
+package com.ecommerce.com.ecommerce.flash.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class AdaptiveConcurrencyLimiterTest {
+
+	private static final int ALL = Integer.MAX_VALUE;
+
+	private static AdaptiveConcurrencyLimiter limiter() {
+		// initial 20, bounds 10..100, tolerance 2, smoothing 0.2, windows of 10 samples
+		return new AdaptiveConcurrencyLimiter(20, 10, 100, 2.0, 0.2, 10);
+	}
+
+	// Rounds of up to `concurrency` requests (as many as are admitted), all taking latencyMillis
+	private static void run(AdaptiveConcurrencyLimiter limiter, int concurrency, long latencyMillis, int rounds) {
+		for (int round = 0; round < rounds; round++) {
+			int admitted = 0;
+			while (admitted < concurrency && limiter.tryAcquire(1.0)) {
+				admitted++;
+			}
+			for (int i = 0; i < admitted; i++) {
+				limiter.release(latencyMillis * 1_000_000);
+			}
+		}
+		assertEquals(0, limiter.inFlight());
+	}
+
+	@Test
+	void growsOnlyWhileTrafficUsesTheLimit() {
+		AdaptiveConcurrencyLimiter limiter = limiter();
+		run(limiter, 2, 1, 100);
+		assertEquals(20, limiter.limit());
+
+		run(limiter, ALL, 1, 20);
+		int grown = limiter.limit();
+		assertTrue(grown > 20, "limit " + grown);
+
+		run(limiter, ALL, 1, 2000);
+		assertEquals(100, limiter.limit());
+	}
+
+	@Test
+	void shrinksWhenLatencyInflates() {
+		AdaptiveConcurrencyLimiter limiter = limiter();
+		run(limiter, 2, 1, 50);
+		run(limiter, ALL, 1, 100);
+		int before = limiter.limit();
+		assertTrue(before > 20, "limit " + before);
+
+		run(limiter, ALL, 10, 5);
+		assertTrue(limiter.limit() < before, "limit " + limiter.limit());
+		run(limiter, ALL, 10, 500);
+		assertEquals(10, limiter.limit());
+	}
+
+	@Test
+	void staysDownThroughALongBrownoutAndRecoversAfter() {
+		AdaptiveConcurrencyLimiter limiter = limiter();
+		run(limiter, 2, 1, 50);
+		run(limiter, ALL, 1, 100);
+
+		// Saturated and slow for far longer than the long-term average needs to follow it
+		run(limiter, ALL, 10, 5000);
+		assertEquals(10, limiter.limit());
+
+		run(limiter, ALL, 1, 50);
+		assertTrue(limiter.limit() > 10, "limit " + limiter.limit());
+	}
+
+	@Test
+	void unsampledReleasesDoNotMoveTheLimit() {
+		AdaptiveConcurrencyLimiter limiter = limiter();
+		for (int i = 0; i < 1000; i++) {
+			assertTrue(limiter.tryAcquire(1.0));
+			limiter.release(-1);
+		}
+		assertEquals(20, limiter.limit());
+	}
+
+	@Test
+	void sharesCapAdmission() {
+		AdaptiveConcurrencyLimiter limiter = limiter();
+		int admitted = 0;
+		while (limiter.tryAcquire(0.5)) {
+			admitted++;
+		}
+		assertEquals(10, admitted);
+		assertTrue(limiter.tryAcquire(1.0));
+		assertEquals(11, limiter.inFlight());
+	}
+
+}
@@ -0,0 +1,40 @@
+package com.ecommerce.com.ecommerce.flash.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ecommerce.com.ecommerce.flash.ratelimit.LoadShedFilter.Priority;
+
+class LoadShedFilterTest {
+
+	private final LoadShedFilter filter = new LoadShedFilter();
+
+	LoadShedFilterTest() {
+		ReflectionTestUtils.setField(filter, "enabled", true);
+	}
+
+	@Test
+	void intakeLongPollsNeverTakeASlot() {
+		assertTrue(filter.shouldNotFilter(new MockHttpServletRequest("GET", "/api/orders/intake/abc")));
+		assertTrue(filter.shouldNotFilter(new MockHttpServletRequest("OPTIONS", "/api/orders")));
+
+		assertFalse(filter.shouldNotFilter(new MockHttpServletRequest("POST", "/api/orders")));
+		assertFalse(filter.shouldNotFilter(new MockHttpServletRequest("POST", "/api/auth/login")));
+		assertFalse(filter.shouldNotFilter(new MockHttpServletRequest("GET", "/api/products/1/page")));
+	}
+
+	@Test
+	void checkoutOutranksCartBrowseAndAdmin() {
+		assertEquals(Priority.CHECKOUT, LoadShedFilter.priorityOf("POST", "/api/orders"));
+		assertEquals(Priority.CART, LoadShedFilter.priorityOf("GET", "/api/orders/7"));
+		assertEquals(Priority.CART, LoadShedFilter.priorityOf("POST", "/api/auth/login"));
+		assertEquals(Priority.BROWSE, LoadShedFilter.priorityOf("GET", "/api/products/approved"));
+		assertEquals(Priority.ADMIN, LoadShedFilter.priorityOf("GET", "/api/orders"));
+	}
+
+}
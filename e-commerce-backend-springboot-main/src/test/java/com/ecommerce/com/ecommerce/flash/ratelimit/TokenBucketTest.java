@@ -0,0 +1,77 @@
+package com.ecommerce.com.ecommerce.flash.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class TokenBucketTest {
+
+	// 10 per second, bursts of 3
+	private static final long INTERVAL = TimeUnit.MILLISECONDS.toNanos(100);
+	private static final long BURST = INTERVAL * 3;
+
+	@Test
+	void allowsABurstThenOneTokenPerInterval() {
+		long now = 1_000_000_000L;
+		TokenBucket bucket = new TokenBucket(now);
+		for (int i = 0; i < 3; i++) {
+			assertEquals(0, bucket.tryAcquire(now, INTERVAL, BURST));
+		}
+		assertEquals(INTERVAL, bucket.tryAcquire(now, INTERVAL, BURST));
+		assertEquals(INTERVAL / 2, bucket.tryAcquire(now + INTERVAL / 2, INTERVAL, BURST));
+
+		assertEquals(0, bucket.tryAcquire(now + INTERVAL, INTERVAL, BURST));
+		assertTrue(bucket.tryAcquire(now + INTERVAL, INTERVAL, BURST) > 0);
+	}
+
+	@Test
+	void refillsUpToTheBurstOnly() {
+		long now = 0;
+		TokenBucket bucket = new TokenBucket(now);
+		assertEquals(0, bucket.tryAcquire(now, INTERVAL, BURST));
+		assertFalse(bucket.isFull(now));
+
+		// Idle for much longer than a full refill: still only a burst of 3
+		long later = now + TimeUnit.SECONDS.toNanos(60);
+		assertTrue(bucket.isFull(later));
+		for (int i = 0; i < 3; i++) {
+			assertEquals(0, bucket.tryAcquire(later, INTERVAL, BURST));
+		}
+		assertTrue(bucket.tryAcquire(later, INTERVAL, BURST) > 0);
+	}
+
+	@Test
+	void grantsExactlyTheBurstToConcurrentCallers() throws InterruptedException {
+		long now = 42;
+		TokenBucket bucket = new TokenBucket(now);
+		AtomicInteger granted = new AtomicInteger();
+		ExecutorService pool = Executors.newFixedThreadPool(16);
+		CountDownLatch start = new CountDownLatch(1);
+		for (int i = 0; i < 1000; i++) {
+			pool.execute(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				if (bucket.tryAcquire(now, INTERVAL, BURST) == 0) {
+					granted.incrementAndGet();
+				}
+			});
+		}
+		start.countDown();
+		pool.shutdown();
+		assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+		assertEquals(3, granted.get());
+	}
+
+}
@@ -0,0 +1,106 @@
+package com.ecommerce.com.ecommerce.flash.service;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.ecommerce.com.ecommerce.flash.dao.OrderDao;
+import com.ecommerce.com.ecommerce.flash.dto.OrderSnapshot;
+import com.ecommerce.com.ecommerce.flash.inventory.InventoryEngine;
+
+@ExtendWith(MockitoExtension.class)
+class OrderServiceTest {
+
+	@Mock
+	private OrderDao orderDao;
+
+	@Mock
+	private InventoryEngine inventoryEngine;
+
+	@InjectMocks
+	private OrderService orderService;
+
+	@Test
+	void cancellingOrRejectingAPlacedOrderReturnsItsStock() {
+		when(orderDao.changeOrderStatus(1L, "CANCELLED")).thenReturn(Optional.of(order(1L, "PENDING")));
+		when(orderDao.changeOrderStatus(2L, "REJECTED")).thenReturn(Optional.of(order(2L, "ACCEPTED")));
+
+		assertTrue(orderService.updateOrderStatus(1L, "CANCELLED"));
+		assertTrue(orderService.updateOrderStatus(2L, "REJECTED"));
+
+		verify(inventoryEngine, times(2)).restock(10L, 3);
+		verify(inventoryEngine, never()).take(any(), anyInt());
+	}
+
+	@Test
+	void deletingAPlacedOrderReturnsItsStockButACartItemDoesNot() {
+		when(orderDao.orderExists(1L)).thenReturn(true);
+		when(orderDao.orderExists(2L)).thenReturn(true);
+		when(orderDao.deleteOrder(1L)).thenReturn(Optional.of(order(1L, "PENDING")));
+		when(orderDao.deleteOrder(2L)).thenReturn(Optional.of(order(2L, "In Cart")));
+
+		assertTrue(orderService.deleteOrder(1L));
+		assertTrue(orderService.deleteOrder(2L));
+
+		verify(inventoryEngine).restock(10L, 3);
+	}
+
+	@Test
+	void revivingARejectedOrderTakesStockAgainOrFails() {
+		when(orderDao.changeOrderStatus(1L, "ACCEPTED")).thenReturn(Optional.of(order(1L, "REJECTED")));
+		when(inventoryEngine.take(10L, 3)).thenReturn(true, false);
+
+		assertTrue(orderService.updateOrderStatus(1L, "ACCEPTED"));
+		assertThrows(IllegalStateException.class, () -> orderService.updateOrderStatus(1L, "ACCEPTED"));
+		verify(inventoryEngine, never()).restock(any(), anyInt());
+	}
+
+	@Test
+	void changingAPlacedOrdersQuantityTakesOrReturnsTheDifference() {
+		when(orderDao.lockOrder(1L)).thenReturn(Optional.of(order(1L, "PENDING")));
+		when(inventoryEngine.take(10L, 2)).thenReturn(true, false);
+
+		assertTrue(orderService.updateOrderQuantity(1L, 5));
+		verify(orderDao).changeOrderQuantity(any(), eq(5));
+		assertThrows(IllegalStateException.class, () -> orderService.updateOrderQuantity(1L, 5));
+		verify(orderDao, never()).changeOrderQuantity(any(), eq(4));
+
+		assertTrue(orderService.updateOrderQuantity(1L, 1));
+		verify(inventoryEngine).restock(10L, 2);
+	}
+
+	@Test
+	void cartItemsChangeWithoutStockAndFinishedOrdersDoNotChange() {
+		when(orderDao.lockOrder(1L)).thenReturn(Optional.of(order(1L, "In Cart")));
+		when(orderDao.lockOrder(2L)).thenReturn(Optional.of(order(2L, "CANCELLED")));
+
+		assertTrue(orderService.updateOrderQuantity(1L, 7));
+		assertThrows(IllegalStateException.class, () -> orderService.updateOrderQuantity(2L, 7));
+		assertFalse(orderService.updateOrderQuantity(3L, 7));
+
+		verify(orderDao, times(1)).changeOrderQuantity(any(), anyInt());
+		verify(inventoryEngine, never()).take(any(), anyInt());
+		verify(inventoryEngine, never()).restock(any(), anyInt());
+	}
+
+	private static OrderSnapshot order(Long id, String status) {
+		return new OrderSnapshot(id, 10L, 3, status, LocalDateTime.now(), 0, new BigDecimal("9.99"));
+	}
+}
@@ -0,0 +1,45 @@
+package com.ecommerce.com.ecommerce.flash.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class CompletionTrieTest {
+
+	@Test
+	void returnsHeaviestCompletionsOfThePrefix() {
+		List<CompletionTrie.Entry<String>> entries = new ArrayList<>();
+		entries.add(new CompletionTrie.Entry<>("macbook pro", "MacBook Pro", 5));
+		entries.add(new CompletionTrie.Entry<>("macbook air", "MacBook Air", 9));
+		entries.add(new CompletionTrie.Entry<>("mac mini", "Mac mini", 1));
+		entries.add(new CompletionTrie.Entry<>("mouse", "Mouse", 7));
+		entries.add(new CompletionTrie.Entry<>("monitor", "Monitor", 3));
+		CompletionTrie<String> trie = CompletionTrie.build(entries, 10);
+
+		assertEquals(List.of("MacBook Air", "Mouse", "MacBook Pro", "Monitor", "Mac mini"), trie.complete("m", 10));
+		assertEquals(List.of("MacBook Air", "MacBook Pro", "Mac mini"), trie.complete("mac", 10));
+		assertEquals(List.of("MacBook Air", "MacBook Pro"), trie.complete("macb", 10));
+		assertEquals(List.of("MacBook Pro"), trie.complete("macbook p", 10));
+		assertEquals(List.of("MacBook Air"), trie.complete("m", 1));
+		assertTrue(trie.complete("mx", 10).isEmpty());
+		assertTrue(trie.complete("macbook pro max", 10).isEmpty());
+	}
+
+	@Test
+	void listsAValueOnceWhenSeveralOfItsKeysMatch() {
+		String value = "Pro Stand Pro";
+		List<CompletionTrie.Entry<String>> entries = new ArrayList<>();
+		entries.add(new CompletionTrie.Entry<>("pro stand pro", value, 2));
+		entries.add(new CompletionTrie.Entry<>("pro", value, 2));
+		entries.add(new CompletionTrie.Entry<>("stand pro", value, 2));
+		entries.add(new CompletionTrie.Entry<>("projector", "Projector", 1));
+		CompletionTrie<String> trie = CompletionTrie.build(entries, 1);
+
+		assertEquals(List.of(value), trie.complete("pro", 10));
+		assertEquals(List.of("Projector"), trie.complete("proj", 10));
+	}
+}
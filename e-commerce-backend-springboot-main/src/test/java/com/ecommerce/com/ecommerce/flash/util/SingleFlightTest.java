@@ -0,0 +1,127 @@
+package com.ecommerce.com.ecommerce.flash.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+class SingleFlightTest {
+
+	private static final int WAITERS = 8;
+
+	private final SingleFlight<String, String> flight = new SingleFlight<>();
+	private final AtomicInteger loads = new AtomicInteger();
+	private final CountDownLatch started = new CountDownLatch(1);
+	private final CountDownLatch release = new CountDownLatch(1);
+	// What each caller got back: its value or the Throwable it saw
+	private final Queue<Object> outcomes = new ConcurrentLinkedQueue<>();
+
+	@Test
+	void coalescesConcurrentCallsIntoOneLoad() throws InterruptedException {
+		runConcurrently(() -> "value");
+
+		assertEquals(1, loads.get());
+		assertEquals(WAITERS + 1, outcomes.size());
+		outcomes.forEach(outcome -> assertEquals("value", outcome));
+		assertEquals(0, flight.inFlight());
+
+		// Nothing is kept once the load is done
+		assertEquals("again", flight.execute("key", () -> "again"));
+	}
+
+	@Test
+	void sharesTheLoaderExceptionWithWaiters() throws InterruptedException {
+		IllegalStateException failure = new IllegalStateException("database down");
+		runConcurrently(() -> {
+			throw failure;
+		});
+
+		assertEquals(1, loads.get());
+		assertEquals(WAITERS + 1, outcomes.size());
+		outcomes.forEach(outcome -> assertSame(failure, outcome));
+		assertEquals(0, flight.inFlight());
+	}
+
+	@Test
+	void releasesWaitersWhenTheLoaderThrowsAnError() throws InterruptedException {
+		Error failure = new Error("out of something");
+		runConcurrently(() -> {
+			throw failure;
+		});
+
+		assertEquals(WAITERS + 1, outcomes.size());
+		outcomes.forEach(outcome -> assertSame(failure, outcome));
+		assertEquals(0, flight.inFlight());
+		assertThrows(IllegalArgumentException.class, () -> flight.execute("key", () -> {
+			throw new IllegalArgumentException();
+		}));
+	}
+
+	// One leader runs loader (held until every waiter has joined its flight), WAITERS more callers
+	// join; fails if anyone is still waiting afterwards
+	private void runConcurrently(Supplier<String> loader) throws InterruptedException {
+		Thread leader = caller(() -> {
+			loads.incrementAndGet();
+			started.countDown();
+			await(release);
+			return loader.get();
+		});
+		assertTrue(started.await(10, TimeUnit.SECONDS));
+
+		List<Thread> waiters = new ArrayList<>();
+		for (int i = 0; i < WAITERS; i++) {
+			waiters.add(caller(() -> {
+				loads.incrementAndGet();
+				return "not coalesced";
+			}));
+		}
+		for (Thread waiter : waiters) {
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+			while (waiter.getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+				Thread.sleep(1);
+			}
+		}
+		release.countDown();
+
+		leader.join(10000);
+		assertFalse(leader.isAlive());
+		for (Thread waiter : waiters) {
+			waiter.join(10000);
+			assertFalse(waiter.isAlive(), "waiter still blocked");
+		}
+	}
+
+	private Thread caller(Supplier<String> loader) {
+		Thread thread = new Thread(() -> {
+			try {
+				outcomes.add(flight.execute("key", loader));
+			} catch (Throwable e) {
+				outcomes.add(e);
+			}
+		});
+		thread.setDaemon(true);
+		thread.start();
+		return thread;
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}